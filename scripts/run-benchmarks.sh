@@ -0,0 +1,17 @@
+#!/bin/bash
+
+# Run JMH Benchmarks
+# Arguments are passed to JMH, e.g. a benchmark name regex and -p catalogSize=1000
+
+set -e
+
+echo "⏱️  Running JMH Benchmarks..."
+echo "=================================="
+echo ""
+
+mvn -B -q -P benchmark test-compile exec:exec -Djmh.args="-rf json -rff target/jmh-result.json $*"
+
+echo ""
+echo "=================================="
+echo "✅ Results written to target/jmh-result.json"
+echo "=================================="
@@ -0,0 +1,73 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ShoppingCart;
+import com.ecommerce.service.ProductService;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+
+/**
+ * Builds synthetic catalogs and carts for the JMH benchmarks.
+ *
+ * <p>Product {@code i} has ID {@code B0000i}, a name made of one adjective and one noun from
+ * small vocabularies, and one of {@link #CATEGORY_COUNT} categories. Generation is seeded, so
+ * every fork benchmarks the same catalog.</p>
+ */
+final class BenchmarkCatalog {
+    static final int CATEGORY_COUNT = 50;
+    static final int STOCK = 1_000_000_000;
+
+    private static final String[] ADJECTIVES = {
+            "wireless", "compact", "premium", "portable", "ergonomic", "smart", "classic", "rugged"
+    };
+    private static final String[] NOUNS = {
+            "keyboard", "speaker", "monitor", "backpack", "lamp", "charger", "notebook", "headset",
+            "camera", "kettle"
+    };
+
+    private BenchmarkCatalog() {
+    }
+
+    /**
+     * Returns a service holding the sample products plus {@code size} generated ones, each with
+     * enough stock that benchmarks never run out.
+     */
+    static ProductService create(int size) {
+        ProductService productService = new ProductService();
+        for (Product product : productService.getAllProducts()) {
+            product.setStockQuantity(STOCK);
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < size; i++) {
+            String adjective = ADJECTIVES[random.nextInt(ADJECTIVES.length)];
+            String noun = NOUNS[random.nextInt(NOUNS.length)];
+            BigDecimal price = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+            productService.addProduct(new Product(productId(i), adjective + " " + noun,
+                    "A " + adjective + " " + noun + " for everyday use", price, STOCK, category(i)));
+        }
+        return productService;
+    }
+
+    static String productId(int index) {
+        return "B" + String.format("%07d", index);
+    }
+
+    static String category(int index) {
+        return "Category" + (index % CATEGORY_COUNT);
+    }
+
+    /**
+     * Fills a cart with {@code cartSize} distinct products picked at random from the first
+     * {@code catalogSize} generated ones.
+     */
+    static ShoppingCart cart(ProductService productService, String userId, int catalogSize, int cartSize,
+                             SplittableRandom random) {
+        ShoppingCart cart = new ShoppingCart(userId);
+        while (cart.getItems().size() < Math.min(cartSize, catalogSize)) {
+            Product product = productService.getProductById(productId(random.nextInt(catalogSize)));
+            cart.addItem(product, 1 + random.nextInt(3));
+        }
+        return cart;
+    }
+}
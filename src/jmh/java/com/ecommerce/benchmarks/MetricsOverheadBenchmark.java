@@ -0,0 +1,97 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.index.ProductSearchIndex;
+import com.ecommerce.metrics.Counter;
+import com.ecommerce.metrics.LatencyHistogram;
+import com.ecommerce.model.Product;
+import com.ecommerce.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the always-on service metrics.
+ *
+ * <p>The primitives are measured on their own, on one thread and with all threads recording into
+ * the same histogram and counter. {@code searchInstrumented} versus {@code searchBare} runs the
+ * same query through {@link ProductService}, which times it, and straight against a
+ * {@link ProductSearchIndex} holding the same products, which does not.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    @Param({"1000"})
+    public int catalogSize;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final Counter counter = new Counter();
+    private ProductService productService;
+    private ProductSearchIndex searchIndex;
+
+    @Setup
+    public void setUp() {
+        productService = BenchmarkCatalog.create(catalogSize);
+        searchIndex = new ProductSearchIndex();
+        searchIndex.rebuild(productService.getAllProducts());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long nanoTimePair() {
+        long start = System.nanoTime();
+        return System.nanoTime() - start;
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void recordLatency() {
+        histogram.recordSince(System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(ProductServiceBenchmark.CONTENDED_THREADS)
+    public void recordLatencyContended() {
+        histogram.recordSince(System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void incrementCounter() {
+        counter.increment();
+    }
+
+    @Benchmark
+    @Threads(ProductServiceBenchmark.CONTENDED_THREADS)
+    public void incrementCounterContended() {
+        counter.increment();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<Product> searchBare() {
+        return searchIndex.search("B00001");
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<Product> searchInstrumented() {
+        return productService.searchProducts("B00001");
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.events.OrderEventBus;
+import com.ecommerce.events.OrderEventType;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Order;
+import com.ecommerce.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost to the publishing thread of an order event, by number of subscribers. Subscribers only
+ * count what they receive, so a full buffer shows up as drops rather than as publisher latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderEventBusBenchmark {
+
+    @Param({"0", "1", "4"})
+    public int subscribers;
+
+    private OrderEventBus bus;
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        bus = new OrderEventBus();
+        for (int i = 0; i < subscribers; i++) {
+            long[] received = new long[1];
+            bus.subscribe("subscriber" + i, events -> received[0] += events.size());
+        }
+        ProductService productService = new ProductService();
+        order = new Order("ORD000001", "bench-user", List.of(new CartItem(productService.getProductById("P001"), 1)),
+                "123 Main St");
+    }
+
+    @TearDown
+    public void tearDown() {
+        bus.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void publish() {
+        bus.publish(OrderEventType.CONFIRMED, order);
+    }
+
+    @Benchmark
+    @Threads(ProductServiceBenchmark.CONTENDED_THREADS)
+    public void publishContended() {
+        bus.publish(OrderEventType.CONFIRMED, order);
+    }
+}
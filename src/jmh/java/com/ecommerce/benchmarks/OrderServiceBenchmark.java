@@ -0,0 +1,122 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.ShoppingCart;
+import com.ecommerce.service.OrderPlacementResult;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout: reserving stock, generating an ID and registering the order.
+ *
+ * <p>One operation places {@code orderVolume} carts, either one {@code createOrder} call at a
+ * time or as a single {@code createOrders} batch. In the contended variants all threads draw from
+ * the same catalog, so they race on stock for the products their carts share; a smaller
+ * {@code catalogSize} means more contention. The services are recreated every iteration so the
+ * order maps do not grow without bound.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderServiceBenchmark {
+    private static final String ADDRESS = "123 Main St";
+
+    @State(Scope.Benchmark)
+    public static class Services {
+        @Param({"100", "100000"})
+        public int catalogSize;
+
+        ProductService productService;
+        OrderService orderService;
+
+        @Setup(Level.Trial)
+        public void createCatalog() {
+            productService = BenchmarkCatalog.create(catalogSize);
+        }
+
+        @Setup(Level.Iteration)
+        public void createOrderService() {
+            orderService = new OrderService(productService);
+        }
+
+        @TearDown(Level.Iteration)
+        public void closeOrderService() {
+            orderService.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Carts {
+        @Param({"1", "10"})
+        public int cartSize;
+
+        @Param({"1", "100"})
+        public int orderVolume;
+
+        List<ShoppingCart> carts;
+
+        @Setup(Level.Trial)
+        public void setUp(Services services) {
+            long threadId = Thread.currentThread().getId();
+            SplittableRandom random = new SplittableRandom(threadId);
+            carts = new ArrayList<>(orderVolume);
+            for (int i = 0; i < orderVolume; i++) {
+                carts.add(BenchmarkCatalog.cart(services.productService, "user" + threadId + "-" + i,
+                        services.catalogSize, cartSize, random));
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void createOrder(Services services, Carts carts, Blackhole blackhole) {
+        placeOneByOne(services, carts, blackhole);
+    }
+
+    @Benchmark
+    @Threads(ProductServiceBenchmark.CONTENDED_THREADS)
+    public void createOrderContended(Services services, Carts carts, Blackhole blackhole) {
+        placeOneByOne(services, carts, blackhole);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<OrderPlacementResult> createOrders(Services services, Carts carts) {
+        return services.orderService.createOrders(carts.carts, ADDRESS);
+    }
+
+    @Benchmark
+    @Threads(ProductServiceBenchmark.CONTENDED_THREADS)
+    public List<OrderPlacementResult> createOrdersContended(Services services, Carts carts) {
+        return services.orderService.createOrders(carts.carts, ADDRESS);
+    }
+
+    private static void placeOneByOne(Services services, Carts carts, Blackhole blackhole) {
+        for (ShoppingCart cart : carts.carts) {
+            Order order = services.orderService.createOrder(cart, ADDRESS);
+            blackhole.consume(order);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.catalog.ProductVersion;
+import com.ecommerce.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Catalog read paths: keyword search, search-as-you-type completion and category lookup.
+ *
+ * <p>Each operation runs on one thread and on {@value #CONTENDED_THREADS} threads sharing the
+ * same catalog. Reads go through the {@link ProductVersion} forms, as display code does. They
+ * would not wait for concurrent writes, but writes would compete for the same cores, so the
+ * catalog is built once and only read while measuring.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+    static final int CONTENDED_THREADS = 4;
+
+    @Param({"1000", "100000"})
+    public int catalogSize;
+
+    /** A common word, a rare ID fragment and a two-term query. */
+    @Param({"wireless", "B00001", "smart lamp"})
+    public String keyword;
+
+    private ProductService productService;
+
+    @Setup
+    public void setUp() {
+        productService = BenchmarkCatalog.create(catalogSize);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<ProductVersion> searchProducts() {
+        return productService.searchProductVersions(keyword);
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public List<ProductVersion> searchProductsContended() {
+        return productService.searchProductVersions(keyword);
+    }
+
+    /**
+     * The completions a search box asks for while the keyword is typed, one keystroke at a time.
+     */
+    @Benchmark
+    @Threads(1)
+    public int autocompleteKeystrokes() {
+        return typeKeyword();
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public int autocompleteKeystrokesContended() {
+        return typeKeyword();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int getProductsByCategory() {
+        return iterateCategory();
+    }
+
+    @Benchmark
+    @Threads(CONTENDED_THREADS)
+    public int getProductsByCategoryContended() {
+        return iterateCategory();
+    }
+
+    private int typeKeyword() {
+        int found = 0;
+        for (int length = 1; length <= keyword.length(); length++) {
+            found += productService.autocompleteProductVersions(keyword.substring(0, length), 10).size();
+        }
+        return found;
+    }
+
+    private int iterateCategory() {
+        // Callers iterate what they get back, so include that in the cost
+        String category = BenchmarkCatalog.category(ThreadLocalRandom.current().nextInt(BenchmarkCatalog.CATEGORY_COUNT));
+        int stock = 0;
+        for (ProductVersion product : productService.getProductVersionsByCategory(category)) {
+            stock += product.getStockQuantity();
+        }
+        return stock;
+    }
+}
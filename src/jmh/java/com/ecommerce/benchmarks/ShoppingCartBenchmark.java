@@ -0,0 +1,102 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ShoppingCart;
+import com.ecommerce.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart building and totalling.
+ *
+ * <p>A cart belongs to one shopper, so every thread works on its own carts; the contended
+ * variants measure how well that scales when all threads share the same {@code Product}
+ * instances and allocate at the same time.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShoppingCartBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Catalog {
+        @Param({"1000", "100000"})
+        public int catalogSize;
+
+        ProductService productService;
+
+        @Setup
+        public void setUp() {
+            productService = BenchmarkCatalog.create(catalogSize);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Carts {
+        @Param({"1", "10", "100"})
+        public int cartSize;
+
+        Product[] products;
+        ShoppingCart filled;
+
+        @Setup
+        public void setUp(Catalog catalog) {
+            SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+            filled = BenchmarkCatalog.cart(catalog.productService, "bench-user", catalog.catalogSize, cartSize, random);
+            products = new Product[cartSize];
+            int i = 0;
+            for (var item : filled.getItems()) {
+                products[i++] = item.getProduct();
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ShoppingCart addItem(Carts carts) {
+        return fill(carts);
+    }
+
+    @Benchmark
+    @Threads(ProductServiceBenchmark.CONTENDED_THREADS)
+    public ShoppingCart addItemContended(Carts carts) {
+        return fill(carts);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public BigDecimal getTotal(Carts carts) {
+        return carts.filled.getTotal();
+    }
+
+    @Benchmark
+    @Threads(ProductServiceBenchmark.CONTENDED_THREADS)
+    public BigDecimal getTotalContended(Carts carts) {
+        return carts.filled.getTotal();
+    }
+
+    private static ShoppingCart fill(Carts carts) {
+        // One operation builds a whole cart of cartSize lines
+        ShoppingCart cart = new ShoppingCart("bench-user");
+        for (Product product : carts.products) {
+            cart.addItem(product, 1);
+        }
+        return cart;
+    }
+}
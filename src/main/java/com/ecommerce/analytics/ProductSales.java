@@ -0,0 +1,39 @@
+package com.ecommerce.analytics;
+
+import com.ecommerce.model.Money;
+
+/**
+ * Units sold and revenue for one product, net of cancellations.
+ */
+public class ProductSales {
+    private final String productId;
+    private final long unitsSold;
+    private final Money revenue;
+
+    public ProductSales(String productId, long unitsSold, Money revenue) {
+        this.productId = productId;
+        this.unitsSold = unitsSold;
+        this.revenue = revenue;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public long getUnitsSold() {
+        return unitsSold;
+    }
+
+    public Money getRevenue() {
+        return revenue;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductSales{" +
+                "productId='" + productId + '\'' +
+                ", unitsSold=" + unitsSold +
+                ", revenue=" + revenue +
+                '}';
+    }
+}
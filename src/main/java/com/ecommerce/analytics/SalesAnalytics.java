@@ -0,0 +1,310 @@
+package com.ecommerce.analytics;
+
+import com.ecommerce.model.Money;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderLines;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sales figures kept up to date as orders are placed and cancelled: units and revenue per
+ * product, revenue per category and a ranking of the best-selling products.
+ *
+ * <p>Category revenue is summed in {@link LongAdder}s, which spread concurrent additions over
+ * striped cells, so checkouts in the same category do not contend. Each product's figures are
+ * updated under that product's own lock, together with its entry in a concurrent skip-list
+ * ranking, so only checkouts of the same product serialize. Reads take no locks: a product's
+ * figures cost O(1), category revenue O(categories) and the top k products O(k). A product that
+ * is being re-ranked may briefly be missing from the ranking.</p>
+ *
+ * <p>Figures are net of cancellations. Revenue is kept in minor units per currency; a product's
+ * own revenue is kept in the currency of its first sale, and lines in another currency only add
+ * units. {@link #recompute(List)} rebuilds everything with a fork/join pass over a list of orders
+ * and swaps the result in. Updates racing with the swap land in the replaced figures and are
+ * lost, so recompute while no orders are being placed or cancelled.</p>
+ */
+public class SalesAnalytics {
+    /** Category under which lines of products without a category are counted. */
+    public static final String UNCATEGORIZED = "uncategorized";
+
+    // Orders per fork/join leaf when recomputing
+    private static final int RECOMPUTE_SLICE = 4096;
+
+    private volatile Tallies tallies = new Tallies();
+
+    public void recordOrder(OrderLines lines) {
+        tallies.apply(lines, 1);
+    }
+
+    public void recordCancellation(OrderLines lines) {
+        tallies.apply(lines, -1);
+    }
+
+    public long getUnitsSold(String productId) {
+        SkuTally sku = tallies.skus.get(productId);
+        return sku == null ? 0 : sku.units;
+    }
+
+    /**
+     * Returns the product's revenue, or zero in the default currency if it has sold nothing.
+     */
+    public Money getRevenue(String productId) {
+        SkuTally sku = tallies.skus.get(productId);
+        return sku == null ? Money.zero(Money.DEFAULT_CURRENCY) : sku.revenue();
+    }
+
+    /**
+     * Returns revenue per category in {@link Money#DEFAULT_CURRENCY}.
+     */
+    public Map<String, Money> getRevenueByCategory() {
+        return getRevenueByCategory(Money.DEFAULT_CURRENCY);
+    }
+
+    /**
+     * Returns revenue per category from lines priced in {@code currency}.
+     */
+    public Map<String, Money> getRevenueByCategory(Currency currency) {
+        Map<String, LongAdder> categories = tallies.revenueByCategory.get(currency);
+        if (categories == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Money> revenue = new HashMap<>();
+        categories.forEach((category, sum) -> revenue.put(category, Money.ofMinor(sum.sum(), currency)));
+        return revenue;
+    }
+
+    /**
+     * Returns up to {@code k} products with the most units sold, best first; ties are broken by
+     * product ID.
+     */
+    public List<ProductSales> getTopSellingProducts(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k cannot be negative");
+        }
+        List<ProductSales> top = new ArrayList<>(Math.min(k, 64));
+        for (Rank rank : tallies.ranking) {
+            if (top.size() == k) {
+                break;
+            }
+            top.add(new ProductSales(rank.sku.productId, rank.units, rank.sku.revenue()));
+        }
+        return top;
+    }
+
+    /**
+     * Replaces every figure with ones computed from {@code orders}, skipping cancelled orders.
+     * The orders are split across the common fork/join pool.
+     */
+    public void recompute(List<Order> orders) {
+        List<Order> slices = orders instanceof RandomAccess ? orders : new ArrayList<>(orders);
+        Partial total = ForkJoinPool.commonPool().invoke(new RecomputeTask(slices, 0, slices.size()));
+        tallies = total.toTallies();
+    }
+
+    private static final class Tallies {
+        final Map<String, SkuTally> skus = new ConcurrentHashMap<>();
+        final Map<Currency, Map<String, LongAdder>> revenueByCategory = new ConcurrentHashMap<>();
+        final NavigableSet<Rank> ranking = new ConcurrentSkipListSet<>();
+
+        void apply(OrderLines lines, int sign) {
+            Currency currency = lines.getCurrency();
+            Map<String, LongAdder> categories = revenueByCategory.get(currency);
+            if (categories == null) {
+                categories = revenueByCategory.computeIfAbsent(currency, key -> new ConcurrentHashMap<>());
+            }
+            for (int line = 0; line < lines.size(); line++) {
+                long amount = sign * lines.getLineTotal(line).getMinorUnits();
+                category(categories, lines.getCategory(line)).add(amount);
+                sku(lines.getProductId(line)).add(sign * (long) lines.getQuantity(line), amount, currency, ranking);
+            }
+        }
+
+        SkuTally sku(String productId) {
+            SkuTally sku = skus.get(productId);
+            return sku != null ? sku : skus.computeIfAbsent(productId, SkuTally::new);
+        }
+
+        static LongAdder category(Map<String, LongAdder> categories, String category) {
+            String key = category == null ? UNCATEGORIZED : category;
+            LongAdder sum = categories.get(key);
+            return sum != null ? sum : categories.computeIfAbsent(key, unused -> new LongAdder());
+        }
+    }
+
+    private static final class SkuTally {
+        final String productId;
+        // Written under this tally's lock, read without it
+        volatile long units;
+        volatile long revenueMinorUnits;
+        volatile Currency currency;
+        private Rank rank;
+
+        SkuTally(String productId) {
+            this.productId = productId;
+        }
+
+        synchronized void add(long quantity, long amount, Currency lineCurrency, NavigableSet<Rank> ranking) {
+            if (currency == null) {
+                currency = lineCurrency;
+            }
+            if (currency.equals(lineCurrency)) {
+                revenueMinorUnits += amount;
+            }
+            units += quantity;
+            if (rank != null) {
+                ranking.remove(rank);
+            }
+            rank = units > 0 ? new Rank(units, this) : null;
+            if (rank != null) {
+                ranking.add(rank);
+            }
+        }
+
+        Money revenue() {
+            Currency current = currency;
+            return Money.ofMinor(revenueMinorUnits, current == null ? Money.DEFAULT_CURRENCY : current);
+        }
+    }
+
+    /**
+     * A product's place in the ranking: most units first, then by product ID.
+     */
+    private static final class Rank implements Comparable<Rank> {
+        final long units;
+        final SkuTally sku;
+
+        Rank(long units, SkuTally sku) {
+            this.units = units;
+            this.sku = sku;
+        }
+
+        @Override
+        public int compareTo(Rank other) {
+            int byUnits = Long.compare(other.units, units);
+            return byUnits != 0 ? byUnits : sku.productId.compareTo(other.sku.productId);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Rank && compareTo((Rank) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(units) * 31 + sku.productId.hashCode();
+        }
+    }
+
+    /**
+     * Plain, single-threaded sums for one slice of orders.
+     */
+    private static final class Partial {
+        // Per product: units, revenue in minor units
+        final Map<String, long[]> skus = new HashMap<>();
+        final Map<String, Currency> skuCurrencies = new HashMap<>();
+        final Map<Currency, Map<String, long[]>> revenueByCategory = new HashMap<>();
+
+        void add(Order order) {
+            OrderLines lines = order.getLines();
+            Currency currency = lines.getCurrency();
+            Map<String, long[]> categories = revenueByCategory.computeIfAbsent(currency, key -> new HashMap<>());
+            for (int line = 0; line < lines.size(); line++) {
+                long amount = lines.getLineTotal(line).getMinorUnits();
+                String category = lines.getCategory(line) == null ? UNCATEGORIZED : lines.getCategory(line);
+                categories.computeIfAbsent(category, key -> new long[1])[0] += amount;
+                String productId = lines.getProductId(line);
+                long[] sku = skus.computeIfAbsent(productId, key -> new long[2]);
+                sku[0] += lines.getQuantity(line);
+                if (skuCurrencies.computeIfAbsent(productId, key -> currency).equals(currency)) {
+                    sku[1] += amount;
+                }
+            }
+        }
+
+        /**
+         * Folds {@code later}, the slice following this one, into this one.
+         */
+        Partial merge(Partial later) {
+            later.skus.forEach((productId, sums) -> {
+                Currency currency = later.skuCurrencies.get(productId);
+                long[] own = skus.get(productId);
+                if (own == null) {
+                    skus.put(productId, sums);
+                    skuCurrencies.put(productId, currency);
+                    return;
+                }
+                own[0] += sums[0];
+                if (skuCurrencies.get(productId).equals(currency)) {
+                    own[1] += sums[1];
+                }
+            });
+            later.revenueByCategory.forEach((currency, categories) -> {
+                Map<String, long[]> own = revenueByCategory.computeIfAbsent(currency, key -> new HashMap<>());
+                categories.forEach((category, sum) -> own.merge(category, sum, (a, b) -> {
+                    a[0] += b[0];
+                    return a;
+                }));
+            });
+            return this;
+        }
+
+        Tallies toTallies() {
+            Tallies tallies = new Tallies();
+            skus.forEach((productId, sums) -> {
+                SkuTally sku = tallies.sku(productId);
+                sku.add(sums[0], sums[1], skuCurrencies.get(productId), tallies.ranking);
+            });
+            revenueByCategory.forEach((currency, categories) -> {
+                Map<String, LongAdder> own = new ConcurrentHashMap<>();
+                categories.forEach((category, sum) -> Tallies.category(own, category).add(sum[0]));
+                tallies.revenueByCategory.put(currency, own);
+            });
+            return tallies;
+        }
+    }
+
+    private static final class RecomputeTask extends RecursiveTask<Partial> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Order> orders;
+        private final int from;
+        private final int to;
+
+        RecomputeTask(List<Order> orders, int from, int to) {
+            this.orders = orders;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Partial compute() {
+            if (to - from <= RECOMPUTE_SLICE) {
+                Partial partial = new Partial();
+                for (int i = from; i < to; i++) {
+                    Order order = orders.get(i);
+                    if (order.getStatus() != Order.OrderStatus.CANCELLED) {
+                        partial.add(order);
+                    }
+                }
+                return partial;
+            }
+            int middle = (from + to) >>> 1;
+            RecomputeTask right = new RecomputeTask(orders, middle, to);
+            right.fork();
+            Partial left = new RecomputeTask(orders, from, middle).compute();
+            return left.merge(right.join());
+        }
+    }
+}
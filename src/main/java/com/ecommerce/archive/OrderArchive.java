@@ -0,0 +1,468 @@
+package com.ecommerce.archive;
+
+import com.ecommerce.model.Money;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderLines;
+
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Columnar store for orders that reached a final status.
+ *
+ * <p>A delivered or cancelled order never changes again, so it does not need to stay a graph of
+ * {@code Order}, {@code CartItem}, {@code Product}, {@code LocalDateTime} and {@code BigDecimal}
+ * objects. Each archived order becomes one row across primitive column arrays, and each of its
+ * lines one row across the line columns. Strings that repeat (users, addresses, product IDs,
+ * names, categories, currencies) are stored once in a dictionary and referenced by code; order
+ * IDs are packed as UTF-8 into a single byte array. Lookups by order ID and by sequence position
+ * go through open-addressed tables of row numbers. None of it holds object references per
+ * order, so the collector has nothing to trace.</p>
+ *
+ * <p>Every read builds a fresh {@link Order} with the lines it was archived with. Rows are never
+ * removed. Writes take a write lock and reads a read lock.</p>
+ */
+public class OrderArchive {
+    private static final int NO_ROW = -1;
+    private static final int NO_CODE = -1;
+    private static final Order.OrderStatus[] STATUSES = Order.OrderStatus.values();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Dictionary values = new Dictionary();
+    private final Dictionary users = new Dictionary();
+
+    // Order columns; idOffsets and lineOffsets have one more entry, marking where the last row ends
+    private byte[] idBytes = new byte[1024];
+    private int[] idOffsets = new int[17];
+    private int[] idHashes = new int[16];
+    private int[] positions = new int[16];
+    private int[] userCodes = new int[16];
+    private int[] addressCodes = new int[16];
+    private int[] currencyCodes = new int[16];
+    private byte[] statuses = new byte[16];
+    private long[] createdSeconds = new long[16];
+    private int[] createdNanos = new int[16];
+    private long[] totals = new long[16];
+    private int[] lineOffsets = new int[17];
+    private int rowCount;
+
+    // Line columns
+    private int[] productCodes = new int[32];
+    private int[] nameCodes = new int[32];
+    private int[] categoryCodes = new int[32];
+    private int[] quantities = new int[32];
+    private long[] unitPrices = new long[32];
+    private int lineCount;
+
+    // Open-addressed, at most half full
+    private int[] rowsById = emptyTable(32);
+    private int[] rowsByPosition = emptyTable(32);
+
+    // Indexed by user code; each user's rows sorted by creation time
+    private int[][] rowsByUser = new int[16][];
+    private int[] userRowCounts = new int[16];
+
+    /**
+     * Archives {@code orders}; {@code positions[i]} is the sequence position of
+     * {@code orders.get(i)}.
+     *
+     * @throws IllegalArgumentException if an order is not delivered or cancelled, or is already
+     *                                  archived
+     */
+    public void addAll(List<Order> orders, int[] positions) {
+        if (orders.size() != positions.length) {
+            throw new IllegalArgumentException("Expected one position per order");
+        }
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < positions.length; i++) {
+                append(orders.get(i), positions[i]);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the archived order with {@code orderId}, or {@code null} if there is none.
+     */
+    public Order find(String orderId) {
+        if (orderId == null) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            int row = rowOf(orderId);
+            return row == NO_ROW ? null : materialize(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the archived order at sequence {@code position}, or {@code null} if there is none.
+     */
+    public Order findByPosition(int position) {
+        lock.readLock().lock();
+        try {
+            int hash = mix(position);
+            int mask = rowsByPosition.length - 1;
+            for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+                int row = rowsByPosition[slot];
+                if (row == NO_ROW) {
+                    return null;
+                }
+                if (positions[row] == position) {
+                    return materialize(row);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countByUser(String userId) {
+        lock.readLock().lock();
+        try {
+            int user = users.find(userId);
+            return user == NO_CODE ? 0 : userRowCounts[user];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Merges the user's archived orders into {@code live}, the orders of the same user still held
+     * elsewhere, oldest first. Both must be sorted by creation time. Archived orders in the
+     * returned read-only list are built when they are read.
+     */
+    public List<Order> history(String userId, List<Order> live) {
+        int[] rows;
+        long[] seconds;
+        int[] nanos;
+        lock.readLock().lock();
+        try {
+            int user = users.find(userId);
+            if (user == NO_CODE) {
+                return live;
+            }
+            rows = Arrays.copyOf(rowsByUser[user], userRowCounts[user]);
+            seconds = new long[rows.length];
+            nanos = new int[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                seconds[i] = createdSeconds[rows[i]];
+                nanos[i] = createdNanos[rows[i]];
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // Non-negative sources index into live, negative ones encode an archived row as ~row
+        int[] sources = new int[rows.length + live.size()];
+        int archived = 0;
+        int current = 0;
+        for (int i = 0; i < sources.length; i++) {
+            boolean takeArchived;
+            if (archived == rows.length) {
+                takeArchived = false;
+            } else if (current == live.size()) {
+                takeArchived = true;
+            } else {
+                LocalDateTime createdAt = live.get(current).getCreatedAt();
+                long liveSeconds = createdAt.toEpochSecond(ZoneOffset.UTC);
+                takeArchived = seconds[archived] < liveSeconds
+                        || seconds[archived] == liveSeconds && nanos[archived] <= createdAt.getNano();
+            }
+            sources[i] = takeArchived ? ~rows[archived++] : current++;
+        }
+        return new HistoryView(sources, live);
+    }
+
+    /**
+     * Returns roughly how many bytes the archive's arrays occupy, including unused capacity but
+     * not the dictionary strings.
+     */
+    public long estimateSizeBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = idBytes.length + statuses.length;
+            bytes += 4L * (idOffsets.length + idHashes.length + positions.length + userCodes.length
+                    + addressCodes.length + currencyCodes.length + createdNanos.length + lineOffsets.length);
+            bytes += 8L * (createdSeconds.length + totals.length + unitPrices.length);
+            bytes += 4L * (productCodes.length + nameCodes.length + categoryCodes.length + quantities.length);
+            bytes += 4L * (rowsById.length + rowsByPosition.length + userRowCounts.length);
+            for (int[] rows : rowsByUser) {
+                bytes += rows == null ? 0 : 4L * rows.length;
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void append(Order order, int position) {
+        Order.OrderStatus status = order.getStatus();
+        if (status != Order.OrderStatus.DELIVERED && status != Order.OrderStatus.CANCELLED) {
+            throw new IllegalArgumentException("Only delivered or cancelled orders can be archived: " + order.getOrderId());
+        }
+        if (rowOf(order.getOrderId()) != NO_ROW) {
+            throw new IllegalArgumentException("Order already archived: " + order.getOrderId());
+        }
+        OrderLines lines = order.getLines();
+        Currency currency = lines.getCurrency();
+        long total = Money.of(order.getTotalAmount(), currency, RoundingMode.UNNECESSARY).getMinorUnits();
+
+        int row = rowCount;
+        ensureRowCapacity(row + 1);
+        byte[] id = order.getOrderId().getBytes(StandardCharsets.UTF_8);
+        int idStart = idOffsets[row];
+        if (idStart + id.length > idBytes.length) {
+            idBytes = Arrays.copyOf(idBytes, grow(idBytes.length, idStart + id.length));
+        }
+        System.arraycopy(id, 0, idBytes, idStart, id.length);
+        idOffsets[row + 1] = idStart + id.length;
+        idHashes[row] = mix(order.getOrderId().hashCode());
+        positions[row] = position;
+        int user = users.code(order.getUserId());
+        userCodes[row] = user;
+        addressCodes[row] = values.code(order.getShippingAddress());
+        currencyCodes[row] = values.code(currency.getCurrencyCode());
+        statuses[row] = (byte) status.ordinal();
+        createdSeconds[row] = order.getCreatedAt().toEpochSecond(ZoneOffset.UTC);
+        createdNanos[row] = order.getCreatedAt().getNano();
+        totals[row] = total;
+
+        ensureLineCapacity(lineCount + lines.size());
+        for (int line = 0; line < lines.size(); line++) {
+            productCodes[lineCount] = values.code(lines.getProductId(line));
+            nameCodes[lineCount] = values.code(lines.getProductName(line));
+            categoryCodes[lineCount] = values.code(lines.getCategory(line));
+            quantities[lineCount] = lines.getQuantity(line);
+            unitPrices[lineCount] = lines.getUnitPriceMinorUnits(line);
+            lineCount++;
+        }
+        lineOffsets[row + 1] = lineCount;
+        rowCount = row + 1;
+
+        if (rowCount * 2 > rowsById.length) {
+            rowsById = rehash(rowsById.length * 2, idHashes);
+            rowsByPosition = rehash(rowsByPosition.length * 2, null);
+        } else {
+            insert(rowsById, idHashes[row], row);
+            insert(rowsByPosition, mix(position), row);
+        }
+        addToUser(user, row);
+    }
+
+    private void addToUser(int user, int row) {
+        if (user >= rowsByUser.length) {
+            int length = Math.max(rowsByUser.length * 2, user + 1);
+            rowsByUser = Arrays.copyOf(rowsByUser, length);
+            userRowCounts = Arrays.copyOf(userRowCounts, length);
+        }
+        int[] rows = rowsByUser[user];
+        int count = userRowCounts[user];
+        if (rows == null) {
+            rows = new int[2];
+        } else if (count == rows.length) {
+            rows = Arrays.copyOf(rows, count * 2);
+        }
+        // Orders usually finish in the order they were placed, so this rarely moves anything
+        int index = count;
+        while (index > 0 && isCreatedAfter(rows[index - 1], row)) {
+            rows[index] = rows[index - 1];
+            index--;
+        }
+        rows[index] = row;
+        rowsByUser[user] = rows;
+        userRowCounts[user] = count + 1;
+    }
+
+    private boolean isCreatedAfter(int row, int other) {
+        return createdSeconds[row] > createdSeconds[other]
+                || createdSeconds[row] == createdSeconds[other] && createdNanos[row] > createdNanos[other];
+    }
+
+    private int rowOf(String orderId) {
+        int hash = mix(orderId.hashCode());
+        byte[] key = null;
+        int mask = rowsById.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int row = rowsById[slot];
+            if (row == NO_ROW) {
+                return NO_ROW;
+            }
+            if (idHashes[row] == hash) {
+                if (key == null) {
+                    key = orderId.getBytes(StandardCharsets.UTF_8);
+                }
+                if (Arrays.equals(idBytes, idOffsets[row], idOffsets[row + 1], key, 0, key.length)) {
+                    return row;
+                }
+            }
+        }
+    }
+
+    private Order materialize(int row) {
+        String orderId = new String(idBytes, idOffsets[row], idOffsets[row + 1] - idOffsets[row], StandardCharsets.UTF_8);
+        Currency currency = Currency.getInstance(values.get(currencyCodes[row]));
+        OrderLines.Builder lines = OrderLines.builder(currency, lineOffsets[row + 1] - lineOffsets[row]);
+        for (int line = lineOffsets[row]; line < lineOffsets[row + 1]; line++) {
+            lines.add(values.get(productCodes[line]), values.get(nameCodes[line]), values.get(categoryCodes[line]),
+                    quantities[line], unitPrices[line]);
+        }
+        LocalDateTime createdAt = LocalDateTime.ofEpochSecond(createdSeconds[row], createdNanos[row], ZoneOffset.UTC);
+        return new Order(orderId, users.get(userCodes[row]), lines.build(), values.get(addressCodes[row]),
+                STATUSES[statuses[row]], createdAt, Money.ofMinor(totals[row], currency).toBigDecimal());
+    }
+
+    private void ensureRowCapacity(int rows) {
+        if (rows <= positions.length) {
+            return;
+        }
+        int length = grow(positions.length, rows);
+        idOffsets = Arrays.copyOf(idOffsets, length + 1);
+        idHashes = Arrays.copyOf(idHashes, length);
+        positions = Arrays.copyOf(positions, length);
+        userCodes = Arrays.copyOf(userCodes, length);
+        addressCodes = Arrays.copyOf(addressCodes, length);
+        currencyCodes = Arrays.copyOf(currencyCodes, length);
+        statuses = Arrays.copyOf(statuses, length);
+        createdSeconds = Arrays.copyOf(createdSeconds, length);
+        createdNanos = Arrays.copyOf(createdNanos, length);
+        totals = Arrays.copyOf(totals, length);
+        lineOffsets = Arrays.copyOf(lineOffsets, length + 1);
+    }
+
+    private void ensureLineCapacity(int lines) {
+        if (lines <= quantities.length) {
+            return;
+        }
+        int length = grow(quantities.length, lines);
+        productCodes = Arrays.copyOf(productCodes, length);
+        nameCodes = Arrays.copyOf(nameCodes, length);
+        categoryCodes = Arrays.copyOf(categoryCodes, length);
+        quantities = Arrays.copyOf(quantities, length);
+        unitPrices = Arrays.copyOf(unitPrices, length);
+    }
+
+    // Columns grow by half, like ArrayList, to keep unused capacity down
+    private static int grow(int length, int needed) {
+        return Math.max(length + (length >> 1), needed);
+    }
+
+    /**
+     * Builds a table of {@code capacity} slots holding every row, keyed by {@code hashes}, or by
+     * sequence position when {@code hashes} is null.
+     */
+    private int[] rehash(int capacity, int[] hashes) {
+        int[] table = emptyTable(capacity);
+        for (int row = 0; row < rowCount; row++) {
+            insert(table, hashes == null ? mix(positions[row]) : hashes[row], row);
+        }
+        return table;
+    }
+
+    private static void insert(int[] table, int hash, int row) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != NO_ROW) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = row;
+    }
+
+    private static int[] emptyTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, NO_ROW);
+        return table;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Assigns each distinct string a dense code; {@code null} is {@link #NO_CODE}.
+     */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> strings = new ArrayList<>();
+
+        int code(String value) {
+            if (value == null) {
+                return NO_CODE;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = strings.size();
+                codes.put(value, code);
+                strings.add(value);
+            }
+            return code;
+        }
+
+        int find(String value) {
+            Integer code = value == null ? null : codes.get(value);
+            return code == null ? NO_CODE : code;
+        }
+
+        String get(int code) {
+            return code == NO_CODE ? null : strings.get(code);
+        }
+    }
+
+    private final class HistoryView extends AbstractList<Order> implements RandomAccess {
+        private final int[] sources;
+        private final List<Order> live;
+
+        HistoryView(int[] sources, List<Order> live) {
+            this.sources = sources;
+            this.live = live;
+        }
+
+        @Override
+        public Order get(int index) {
+            if (index < 0 || index >= sources.length) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + sources.length);
+            }
+            int source = sources[index];
+            if (source >= 0) {
+                return live.get(source);
+            }
+            lock.readLock().lock();
+            try {
+                return materialize(~source);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public int size() {
+            return sources.length;
+        }
+    }
+}
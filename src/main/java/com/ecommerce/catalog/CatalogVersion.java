@@ -0,0 +1,86 @@
+package com.ecommerce.catalog;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * One published state of the catalog. Versions are immutable: a writer that adds, replaces or
+ * removes a product publishes a new version sharing all untouched structure with this one, and
+ * readers holding this one keep seeing exactly what it contained.
+ */
+public final class CatalogVersion {
+    private static final CatalogVersion EMPTY = new CatalogVersion(0, PersistentHashMap.empty());
+
+    private final long version;
+    private final PersistentHashMap<String, ProductVersion> products;
+
+    private CatalogVersion(long version, PersistentHashMap<String, ProductVersion> products) {
+        this.version = version;
+        this.products = products;
+    }
+
+    public static CatalogVersion empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a number that grows with every published change.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the product with {@code productId}, or {@code null} if this version has none.
+     */
+    public ProductVersion get(String productId) {
+        return products.get(productId);
+    }
+
+    public boolean contains(String productId) {
+        return products.containsKey(productId);
+    }
+
+    public int size() {
+        return products.size();
+    }
+
+    /**
+     * Returns the products in this version as a read-only collection, in no particular order.
+     */
+    public Collection<ProductVersion> products() {
+        return products.values();
+    }
+
+    public Stream<ProductVersion> stream() {
+        return products.values().stream();
+    }
+
+    public CatalogVersion with(ProductVersion product) {
+        return new CatalogVersion(version + 1, products.plus(product.getId(), product));
+    }
+
+    public CatalogVersion without(String productId) {
+        PersistentHashMap<String, ProductVersion> remaining = products.minus(productId);
+        return remaining == products ? this : new CatalogVersion(version + 1, remaining);
+    }
+
+    /**
+     * Returns a version with every product in {@code changes} added or replaced, built without
+     * copying a path per product. With {@code replaceAll}, products not in {@code changes} are
+     * dropped.
+     */
+    public CatalogVersion withAll(Collection<ProductVersion> changes, boolean replaceAll) {
+        PersistentHashMap.Builder<String, ProductVersion> builder =
+                (replaceAll ? PersistentHashMap.<String, ProductVersion>empty() : products).toBuilder();
+        for (ProductVersion product : changes) {
+            builder.put(product.getId(), product);
+        }
+        return new CatalogVersion(version + 1, builder.build());
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogVersion{version=" + version + ", size=" + size() + "}";
+    }
+}
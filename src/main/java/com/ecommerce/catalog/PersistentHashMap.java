@@ -0,0 +1,479 @@
+package com.ecommerce.catalog;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+
+/**
+ * Immutable hash map with structural sharing: a hash array mapped trie of 32-way nodes.
+ *
+ * <p>{@link #plus} and {@link #minus} return a new map that shares every node off the path to
+ * the changed key with the old one, so an update copies at most a handful of small arrays
+ * (about four levels for a million keys) and the old map stays valid and unchanged. Maps are
+ * safe to read from any number of threads without synchronization. A {@link Builder} mutates
+ * nodes it created itself in place, for loading many keys without copying paths per key.</p>
+ *
+ * @param <K> key type; keys must not be {@code null}
+ * @param <V> value type; values must not be {@code null}
+ */
+public final class PersistentHashMap<K, V> {
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    private static final PersistentHashMap<?, ?> EMPTY = new PersistentHashMap<>(BitmapNode.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <K, V> PersistentHashMap<K, V> empty() {
+        return (PersistentHashMap<K, V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        if (key == null) {
+            return null;
+        }
+        return (V) root.find(0, hash(key), key);
+    }
+
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Returns a map with {@code key} mapped to {@code value}, or this map if it already was.
+     */
+    public PersistentHashMap<K, V> plus(K key, V value) {
+        checkEntry(key, value);
+        boolean[] added = new boolean[1];
+        Node newRoot = root.assoc(null, 0, hash(key), key, value, added);
+        return newRoot == root ? this : new PersistentHashMap<>(newRoot, added[0] ? size + 1 : size);
+    }
+
+    /**
+     * Returns a map without {@code key}, or this map if it had no such key.
+     */
+    public PersistentHashMap<K, V> minus(Object key) {
+        if (key == null) {
+            return this;
+        }
+        boolean[] removed = new boolean[1];
+        Node newRoot = root.without(null, 0, hash(key), key, removed);
+        if (!removed[0]) {
+            return this;
+        }
+        return new PersistentHashMap<>(newRoot == null ? BitmapNode.EMPTY : newRoot, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        root.forEach((BiConsumer<Object, Object>) action);
+    }
+
+    /**
+     * Returns a read-only view of the values, in no particular order.
+     */
+    public Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public Spliterator<V> spliterator() {
+                return Spliterators.spliterator(iterator(), size,
+                        Spliterator.SIZED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+            }
+        };
+    }
+
+    /**
+     * Returns a builder starting from this map's contents. This map is not affected by it.
+     */
+    public Builder<K, V> toBuilder() {
+        return new Builder<>(root, size);
+    }
+
+    private static void checkEntry(Object key, Object value) {
+        if (key == null || value == null) {
+            throw new IllegalArgumentException("Keys and values cannot be null");
+        }
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Collects many changes, then produces a map in one step. Nodes the builder created are
+     * updated in place; nodes shared with the map it started from are copied on first change.
+     * A builder must be used by one thread at a time and not after {@link #build()}.
+     */
+    public static final class Builder<K, V> {
+        private Object edit = new Object();
+        private Node root;
+        private int size;
+
+        private Builder(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+
+        public Builder<K, V> put(K key, V value) {
+            checkEntry(key, value);
+            ensureOpen();
+            boolean[] added = new boolean[1];
+            root = root.assoc(edit, 0, hash(key), key, value, added);
+            if (added[0]) {
+                size++;
+            }
+            return this;
+        }
+
+        public Builder<K, V> remove(Object key) {
+            ensureOpen();
+            if (key != null) {
+                // Nodes owned by this builder shrink in place, so the root may stay the same
+                boolean[] removed = new boolean[1];
+                Node newRoot = root.without(edit, 0, hash(key), key, removed);
+                root = newRoot == null ? BitmapNode.EMPTY : newRoot;
+                if (removed[0]) {
+                    size--;
+                }
+            }
+            return this;
+        }
+
+        public PersistentHashMap<K, V> build() {
+            ensureOpen();
+            // Later changes through this builder would mutate the returned map's nodes
+            edit = null;
+            return size == 0 ? empty() : new PersistentHashMap<>(root, size);
+        }
+
+        private void ensureOpen() {
+            if (edit == null) {
+                throw new IllegalStateException("Builder has already been used to build a map");
+            }
+        }
+    }
+
+    private abstract static class Node {
+        abstract Object find(int shift, int hash, Object key);
+
+        abstract Node assoc(Object edit, int shift, int hash, Object key, Object value, boolean[] added);
+
+        /**
+         * Returns the node without {@code key}: this node if the key is absent, {@code null} if
+         * the node ends up empty. Sets {@code removed[0]} if the key was present.
+         */
+        abstract Node without(Object edit, int shift, int hash, Object key, boolean[] removed);
+
+        abstract void forEach(BiConsumer<Object, Object> action);
+    }
+
+    /**
+     * Up to 32 slots, present ones flagged in {@code bitmap}. Each present slot takes two array
+     * cells: a key and its value, or {@code null} and a child node.
+     */
+    private static final class BitmapNode extends Node {
+        static final BitmapNode EMPTY = new BitmapNode(null, 0, new Object[0]);
+
+        final Object edit;
+        int bitmap;
+        Object[] array;
+
+        BitmapNode(Object edit, int bitmap, Object[] array) {
+            this.edit = edit;
+            this.bitmap = bitmap;
+            this.array = array;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return null;
+            }
+            int index = index(bit);
+            Object k = array[2 * index];
+            Object v = array[2 * index + 1];
+            if (k == null) {
+                return ((Node) v).find(shift + BITS, hash, key);
+            }
+            return key.equals(k) ? v : null;
+        }
+
+        @Override
+        Node assoc(Object edit, int shift, int hash, Object key, Object value, boolean[] added) {
+            int bit = bit(hash, shift);
+            int index = index(bit);
+            if ((bitmap & bit) != 0) {
+                Object k = array[2 * index];
+                Object v = array[2 * index + 1];
+                if (k == null) {
+                    Node child = ((Node) v).assoc(edit, shift + BITS, hash, key, value, added);
+                    return child == v ? this : withCell(edit, 2 * index + 1, child);
+                }
+                if (key.equals(k)) {
+                    return v == value ? this : withCell(edit, 2 * index + 1, value);
+                }
+                added[0] = true;
+                Node child = pair(edit, shift + BITS, k, v, hash, key, value);
+                BitmapNode node = withCell(edit, 2 * index, null);
+                node.array[2 * index + 1] = child;
+                return node;
+            }
+            added[0] = true;
+            int count = Integer.bitCount(bitmap);
+            Object[] grown = new Object[2 * (count + 1)];
+            System.arraycopy(array, 0, grown, 0, 2 * index);
+            grown[2 * index] = key;
+            grown[2 * index + 1] = value;
+            System.arraycopy(array, 2 * index, grown, 2 * (index + 1), 2 * (count - index));
+            if (edit != null && this.edit == edit) {
+                bitmap |= bit;
+                array = grown;
+                return this;
+            }
+            return new BitmapNode(edit, bitmap | bit, grown);
+        }
+
+        @Override
+        Node without(Object edit, int shift, int hash, Object key, boolean[] removed) {
+            int bit = bit(hash, shift);
+            if ((bitmap & bit) == 0) {
+                return this;
+            }
+            int index = index(bit);
+            Object k = array[2 * index];
+            Object v = array[2 * index + 1];
+            if (k == null) {
+                Node child = ((Node) v).without(edit, shift + BITS, hash, key, removed);
+                if (child == v) {
+                    return this;
+                }
+                if (child != null) {
+                    return withCell(edit, 2 * index + 1, child);
+                }
+            } else if (!key.equals(k)) {
+                return this;
+            } else {
+                removed[0] = true;
+            }
+            if (bitmap == bit) {
+                return null;
+            }
+            int count = Integer.bitCount(bitmap);
+            Object[] shrunk = new Object[2 * (count - 1)];
+            System.arraycopy(array, 0, shrunk, 0, 2 * index);
+            System.arraycopy(array, 2 * (index + 1), shrunk, 2 * index, 2 * (count - index - 1));
+            if (edit != null && this.edit == edit) {
+                bitmap ^= bit;
+                array = shrunk;
+                return this;
+            }
+            return new BitmapNode(edit, bitmap ^ bit, shrunk);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (array[i] == null) {
+                    ((Node) array[i + 1]).forEach(action);
+                } else {
+                    action.accept(array[i], array[i + 1]);
+                }
+            }
+        }
+
+        private BitmapNode withCell(Object edit, int cell, Object content) {
+            if (edit != null && this.edit == edit) {
+                array[cell] = content;
+                return this;
+            }
+            Object[] copy = array.clone();
+            copy[cell] = content;
+            return new BitmapNode(edit, bitmap, copy);
+        }
+
+        private int index(int bit) {
+            return Integer.bitCount(bitmap & (bit - 1));
+        }
+
+        private static int bit(int hash, int shift) {
+            return 1 << ((hash >>> shift) & MASK);
+        }
+
+        private static Node pair(Object edit, int shift, Object key1, Object value1, int hash2, Object key2, Object value2) {
+            int hash1 = hash(key1);
+            if (hash1 == hash2) {
+                return new CollisionNode(hash1, new Object[]{key1, value1, key2, value2});
+            }
+            boolean[] added = new boolean[1];
+            return new BitmapNode(edit, 0, new Object[0])
+                    .assoc(edit, shift, hash1, key1, value1, added)
+                    .assoc(edit, shift, hash2, key2, value2, added);
+        }
+    }
+
+    /**
+     * Keys whose full hashes are equal, kept as a flat key/value array. Never updated in place.
+     */
+    private static final class CollisionNode extends Node {
+        final int hash;
+        final Object[] array;
+
+        CollisionNode(int hash, Object[] array) {
+            this.hash = hash;
+            this.array = array;
+        }
+
+        @Override
+        Object find(int shift, int hash, Object key) {
+            int index = indexOf(key);
+            return index < 0 ? null : array[index + 1];
+        }
+
+        @Override
+        Node assoc(Object edit, int shift, int hash, Object key, Object value, boolean[] added) {
+            if (hash != this.hash) {
+                // A different hash sharing this node's prefix: nest this node one level down
+                Node parent = new BitmapNode(edit, BitmapNode.bit(this.hash, shift), new Object[]{null, this});
+                return parent.assoc(edit, shift, hash, key, value, added);
+            }
+            int index = indexOf(key);
+            if (index >= 0) {
+                if (array[index + 1] == value) {
+                    return this;
+                }
+                Object[] copy = array.clone();
+                copy[index + 1] = value;
+                return new CollisionNode(hash, copy);
+            }
+            added[0] = true;
+            Object[] grown = new Object[array.length + 2];
+            System.arraycopy(array, 0, grown, 0, array.length);
+            grown[array.length] = key;
+            grown[array.length + 1] = value;
+            return new CollisionNode(hash, grown);
+        }
+
+        @Override
+        Node without(Object edit, int shift, int hash, Object key, boolean[] removed) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            removed[0] = true;
+            if (array.length == 2) {
+                return null;
+            }
+            Object[] shrunk = new Object[array.length - 2];
+            System.arraycopy(array, 0, shrunk, 0, index);
+            System.arraycopy(array, index + 2, shrunk, index, array.length - index - 2);
+            return new CollisionNode(hash, shrunk);
+        }
+
+        @Override
+        void forEach(BiConsumer<Object, Object> action) {
+            for (int i = 0; i < array.length; i += 2) {
+                action.accept(array[i], array[i + 1]);
+            }
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < array.length; i += 2) {
+                if (key.equals(array[i])) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Depth-first walk over the trie with an explicit stack of (node, cell) positions.
+     */
+    private static final class ValueIterator<V> implements Iterator<V> {
+        private final Deque<Object[]> nodes = new ArrayDeque<>();
+        private final Deque<int[]> cells = new ArrayDeque<>();
+        private Object next;
+
+        ValueIterator(Node root) {
+            push(root);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Object value = next;
+            advance();
+            return (V) value;
+        }
+
+        private void push(Node node) {
+            nodes.push(node instanceof BitmapNode ? ((BitmapNode) node).array : ((CollisionNode) node).array);
+            cells.push(new int[]{0});
+        }
+
+        private void advance() {
+            next = null;
+            while (!nodes.isEmpty()) {
+                Object[] array = nodes.peek();
+                int[] cell = cells.peek();
+                if (cell[0] >= array.length) {
+                    nodes.pop();
+                    cells.pop();
+                    continue;
+                }
+                Object key = array[cell[0]];
+                Object value = array[cell[0] + 1];
+                cell[0] += 2;
+                if (key == null) {
+                    push((Node) value);
+                } else {
+                    next = value;
+                    return;
+                }
+            }
+        }
+    }
+}
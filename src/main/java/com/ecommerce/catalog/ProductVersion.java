@@ -0,0 +1,80 @@
+package com.ecommerce.catalog;
+
+import com.ecommerce.model.Money;
+import com.ecommerce.model.Product;
+
+import java.math.BigDecimal;
+import java.util.Currency;
+
+/**
+ * A product's descriptive fields as they were when its catalog version was published.
+ *
+ * <p>Immutable, so a reader never sees a half-applied update. Stock is deliberately not frozen:
+ * it changes on every checkout through lock-free reservations on the live {@link Product}, which
+ * {@link #getProduct()} returns.</p>
+ */
+public final class ProductVersion {
+    private final Product product;
+    private final String id;
+    private final String name;
+    private final String description;
+    private final BigDecimal price;
+    private final Money unitPrice;
+    private final Currency currency;
+    private final String category;
+
+    public ProductVersion(Product product) {
+        this.product = product;
+        this.id = product.getId();
+        this.name = product.getName();
+        this.description = product.getDescription();
+        this.price = product.getPrice();
+        this.unitPrice = product.getUnitPrice();
+        this.currency = product.getCurrency();
+        this.category = product.getCategory();
+    }
+
+    /**
+     * Returns the live product, for stock and reservations.
+     */
+    public Product getProduct() {
+        return product;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public Money getUnitPrice() {
+        return unitPrice;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public int getStockQuantity() {
+        return product.getStockQuantity();
+    }
+
+    @Override
+    public String toString() {
+        return "ProductVersion{id='" + id + "', name='" + name + "', price=" + price + ", category='" + category + "'}";
+    }
+}
@@ -0,0 +1,69 @@
+package com.ecommerce.events;
+
+import com.ecommerce.model.Order;
+
+/**
+ * One order lifecycle event.
+ *
+ * <p>Events handed to an {@link OrderEventHandler} are slots of a preallocated ring buffer and
+ * are reused once the handler returns. Read what you need during the call, or keep
+ * {@link #copy()}.</p>
+ */
+public final class OrderEvent {
+    private OrderEventType type;
+    private Order order;
+    private long timestampMillis;
+
+    OrderEvent() {
+    }
+
+    public OrderEvent(OrderEventType type, Order order, long timestampMillis) {
+        set(type, order, timestampMillis);
+    }
+
+    void set(OrderEventType type, Order order, long timestampMillis) {
+        this.type = type;
+        this.order = order;
+        this.timestampMillis = timestampMillis;
+    }
+
+    void clear() {
+        order = null;
+    }
+
+    public OrderEventType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the order the event is about. The order is live: by the time a subscriber looks
+     * at it, it may have moved past the status in {@link #getType()}.
+     */
+    public Order getOrder() {
+        return order;
+    }
+
+    public String getOrderId() {
+        return order.getOrderId();
+    }
+
+    /**
+     * Returns when the event was published, in epoch milliseconds.
+     */
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    /**
+     * Returns a copy that stays valid after the handler returns.
+     */
+    public OrderEvent copy() {
+        return new OrderEvent(type, order, timestampMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "OrderEvent{type=" + type + ", orderId='" + (order == null ? null : order.getOrderId())
+                + "', timestampMillis=" + timestampMillis + "}";
+    }
+}
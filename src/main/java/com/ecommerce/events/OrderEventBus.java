@@ -0,0 +1,92 @@
+package com.ecommerce.events;
+
+import com.ecommerce.model.Order;
+
+import java.util.Arrays;
+
+/**
+ * In-process fan-out of order lifecycle events to independent subscribers.
+ *
+ * <p>Each subscriber gets its own ring buffer and thread, so a slow subscriber only affects
+ * itself. Publishing writes the event into every subscriber's buffer and returns; with the
+ * default {@link OverflowPolicy#DROP_NEWEST} it never waits. With no subscribers, publishing
+ * costs a volatile read.</p>
+ */
+public class OrderEventBus implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    private static final Subscription[] NONE = new Subscription[0];
+
+    private volatile Subscription[] subscriptions = NONE;
+
+    /**
+     * Subscribes with a buffer of {@value #DEFAULT_CAPACITY} events, batches of up to
+     * {@value #DEFAULT_MAX_BATCH_SIZE} and {@link OverflowPolicy#DROP_NEWEST}.
+     */
+    public Subscription subscribe(String name, OrderEventHandler handler) {
+        return subscribe(name, handler, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH_SIZE, OverflowPolicy.DROP_NEWEST);
+    }
+
+    /**
+     * Starts delivering events published from now on to {@code handler}, on a thread of its own.
+     *
+     * @param capacity     ring buffer size, a power of two
+     * @param maxBatchSize most events handed to the handler in one call
+     * @param policy       what to do when the buffer is full
+     */
+    public Subscription subscribe(String name, OrderEventHandler handler, int capacity, int maxBatchSize,
+                                  OverflowPolicy policy) {
+        Subscription[] holder = new Subscription[1];
+        Subscription subscription = new Subscription(name, handler, capacity, maxBatchSize, policy,
+                () -> remove(holder[0]));
+        holder[0] = subscription;
+        synchronized (this) {
+            Subscription[] current = subscriptions;
+            Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+            updated[current.length] = subscription;
+            subscriptions = updated;
+        }
+        return subscription;
+    }
+
+    /**
+     * Publishes an event about {@code order} to every subscriber.
+     */
+    public void publish(OrderEventType type, Order order) {
+        Subscription[] current = subscriptions;
+        if (current.length == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        for (Subscription subscription : current) {
+            subscription.publish(type, order, now);
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.length;
+    }
+
+    /**
+     * Closes every subscription, delivering what each has buffered.
+     */
+    @Override
+    public void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    private synchronized void remove(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        int index = Arrays.asList(current).indexOf(subscription);
+        if (index < 0) {
+            return;
+        }
+        Subscription[] updated = new Subscription[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        subscriptions = updated;
+    }
+}
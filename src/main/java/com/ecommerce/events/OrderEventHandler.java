@@ -0,0 +1,17 @@
+package com.ecommerce.events;
+
+import java.util.List;
+
+/**
+ * Receives order events in batches, on the subscription's own thread.
+ */
+@FunctionalInterface
+public interface OrderEventHandler {
+
+    /**
+     * Handles the next batch of events, in publication order. The list and its events are only
+     * valid during the call. An exception is counted on the {@link Subscription} and the batch
+     * is not redelivered.
+     */
+    void onEvents(List<OrderEvent> events);
+}
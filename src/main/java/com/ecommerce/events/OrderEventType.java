@@ -0,0 +1,34 @@
+package com.ecommerce.events;
+
+import com.ecommerce.model.Order;
+
+/**
+ * What happened to an order: it was placed, or it moved to the status of the same name.
+ */
+public enum OrderEventType {
+    CREATED,
+    CONFIRMED,
+    SHIPPED,
+    DELIVERED,
+    CANCELLED;
+
+    /**
+     * Returns the event type for an order that has just moved to {@code status}.
+     */
+    public static OrderEventType forStatus(Order.OrderStatus status) {
+        switch (status) {
+            case PENDING:
+                return CREATED;
+            case CONFIRMED:
+                return CONFIRMED;
+            case SHIPPED:
+                return SHIPPED;
+            case DELIVERED:
+                return DELIVERED;
+            case CANCELLED:
+                return CANCELLED;
+            default:
+                throw new IllegalArgumentException("Unknown order status: " + status);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.ecommerce.events;
+
+/**
+ * What a publisher does when a subscriber's ring buffer is full.
+ */
+public enum OverflowPolicy {
+    /**
+     * Discard the new event for that subscriber and count it as dropped. Publishing never waits.
+     */
+    DROP_NEWEST,
+    /**
+     * Wait until the subscriber frees a slot. Every event is delivered, but a slow subscriber
+     * slows down the thread that publishes, which for order events is the checkout thread.
+     */
+    BLOCK
+}
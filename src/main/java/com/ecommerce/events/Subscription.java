@@ -0,0 +1,215 @@
+package com.ecommerce.events;
+
+import com.ecommerce.model.Order;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One subscriber's view of the {@link OrderEventBus}: a preallocated multi-producer,
+ * single-consumer ring buffer and the thread that drains it into the handler.
+ *
+ * <p>Publishers claim a slot by advancing the tail with a CAS, fill the slot in place and mark it
+ * published with its sequence number. The subscriber thread takes every consecutive published
+ * slot, up to the batch size, hands them to the handler as one list and then releases them by
+ * advancing the head. Nothing is allocated per event and no lock is taken.</p>
+ */
+public final class Subscription implements AutoCloseable {
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+    private static final long BLOCKED_PARK_NANOS = 1_000;
+
+    private final String name;
+    private final OrderEventHandler handler;
+    private final OverflowPolicy policy;
+    private final int maxBatchSize;
+    private final int mask;
+    private final OrderEvent[] slots;
+    // Sequence number each slot was last published with
+    private final AtomicLongArray published;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+    private volatile boolean idle;
+    private volatile boolean closed;
+    private final LongAdder dropped = new LongAdder();
+    private volatile long delivered;
+    private volatile long failedBatches;
+    private final Thread consumer;
+    private final Runnable onClose;
+
+    Subscription(String name, OrderEventHandler handler, int capacity, int maxBatchSize, OverflowPolicy policy,
+                 Runnable onClose) {
+        if (handler == null || policy == null) {
+            throw new IllegalArgumentException("Handler and overflow policy cannot be null");
+        }
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two of at least 2: " + capacity);
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + maxBatchSize);
+        }
+        this.name = name;
+        this.handler = handler;
+        this.policy = policy;
+        this.maxBatchSize = maxBatchSize;
+        this.mask = capacity - 1;
+        this.slots = new OrderEvent[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new OrderEvent();
+            published.set(i, i - (long) capacity);
+        }
+        this.onClose = onClose;
+        this.consumer = new Thread(this::run, "order-events-" + name);
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns how many events were discarded because the buffer was full.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getDeliveredCount() {
+        return delivered;
+    }
+
+    /**
+     * Returns how many batches the handler threw on.
+     */
+    public long getFailedBatchCount() {
+        return failedBatches;
+    }
+
+    /**
+     * Returns how many published events are waiting for the handler.
+     */
+    public long getBacklog() {
+        return tail.get() - head;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Stops accepting events, delivers the ones already buffered and waits for the subscriber
+     * thread to finish.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        onClose.run();
+        LockSupport.unpark(consumer);
+        if (Thread.currentThread() == consumer) {
+            return;
+        }
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Offers one event, applying the overflow policy if the buffer is full. Returns whether the
+     * event was buffered.
+     */
+    boolean publish(OrderEventType type, Order order, long timestampMillis) {
+        long sequence;
+        while (true) {
+            if (closed) {
+                return false;
+            }
+            sequence = tail.get();
+            if (sequence - head >= slots.length) {
+                if (policy == OverflowPolicy.DROP_NEWEST) {
+                    dropped.increment();
+                    return false;
+                }
+                LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+            } else if (tail.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        int index = (int) sequence & mask;
+        slots[index].set(type, order, timestampMillis);
+        published.set(index, sequence);
+        if (idle) {
+            LockSupport.unpark(consumer);
+        }
+        return true;
+    }
+
+    private void run() {
+        Batch batch = new Batch();
+        while (true) {
+            long next = head;
+            int count = 0;
+            while (count < maxBatchSize && published.get((int) (next + count) & mask) == next + count) {
+                count++;
+            }
+            if (count == 0) {
+                if (closed && tail.get() == next) {
+                    return;
+                }
+                idle = true;
+                // Re-check after announcing, so a publisher that missed the flag is not missed
+                if (published.get((int) next & mask) != next) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+                idle = false;
+                continue;
+            }
+            batch.reset(next, count);
+            try {
+                handler.onEvents(batch);
+            } catch (RuntimeException e) {
+                failedBatches++;
+            }
+            for (int i = 0; i < count; i++) {
+                slots[(int) (next + i) & mask].clear();
+            }
+            delivered += count;
+            head = next + count;
+        }
+    }
+
+    /**
+     * Read-only window over consecutive ring slots.
+     */
+    private final class Batch extends AbstractList<OrderEvent> implements RandomAccess {
+        private long start;
+        private int size;
+
+        void reset(long start, int size) {
+            this.start = start;
+            this.size = size;
+        }
+
+        @Override
+        public OrderEvent get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            }
+            return slots[(int) (start + index) & mask];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ecommerce.export;
+
+import com.ecommerce.model.Order;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Which orders an export includes: a set of statuses and a half-open creation time range.
+ * Instances are immutable; the {@code with} methods return narrowed copies.
+ */
+public final class OrderExportFilter implements Predicate<Order> {
+    private static final OrderExportFilter ALL = new OrderExportFilter(EnumSet.allOf(Order.OrderStatus.class), null, null);
+
+    private final Set<Order.OrderStatus> statuses;
+    private final LocalDateTime createdFrom;
+    private final LocalDateTime createdBefore;
+
+    private OrderExportFilter(Set<Order.OrderStatus> statuses, LocalDateTime createdFrom, LocalDateTime createdBefore) {
+        this.statuses = statuses;
+        this.createdFrom = createdFrom;
+        this.createdBefore = createdBefore;
+    }
+
+    public static OrderExportFilter all() {
+        return ALL;
+    }
+
+    /**
+     * Keeps only orders whose current status is one of {@code statuses}.
+     */
+    public OrderExportFilter withStatuses(Collection<Order.OrderStatus> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            throw new IllegalArgumentException("At least one status is required");
+        }
+        return new OrderExportFilter(EnumSet.copyOf(statuses), createdFrom, createdBefore);
+    }
+
+    /**
+     * Keeps only orders created at or after {@code from} and before {@code before}. Either bound
+     * may be {@code null} for no limit.
+     */
+    public OrderExportFilter withCreatedBetween(LocalDateTime from, LocalDateTime before) {
+        if (from != null && before != null && from.isAfter(before)) {
+            throw new IllegalArgumentException("Range start " + from + " is after its end " + before);
+        }
+        return new OrderExportFilter(statuses, from, before);
+    }
+
+    public LocalDateTime getCreatedFrom() {
+        return createdFrom;
+    }
+
+    public LocalDateTime getCreatedBefore() {
+        return createdBefore;
+    }
+
+    @Override
+    public boolean test(Order order) {
+        if (!statuses.contains(order.getStatus())) {
+            return false;
+        }
+        LocalDateTime createdAt = order.getCreatedAt();
+        return (createdFrom == null || !createdAt.isBefore(createdFrom))
+                && (createdBefore == null || createdAt.isBefore(createdBefore));
+    }
+
+    @Override
+    public String toString() {
+        return "OrderExportFilter{statuses=" + statuses + ", createdFrom=" + createdFrom
+                + ", createdBefore=" + createdBefore + "}";
+    }
+}
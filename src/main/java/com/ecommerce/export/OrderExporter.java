@@ -0,0 +1,96 @@
+package com.ecommerce.export;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderLines;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.time.format.DateTimeFormatter;
+import java.util.Iterator;
+
+/**
+ * Writes orders as newline-delimited JSON, one object per line:
+ *
+ * <pre>
+ * {"orderId":"ORD000001","userId":"user123","status":"DELIVERED","createdAt":"2026-01-02T10:15:30",
+ *  "shippingAddress":"123 Main St","totalAmount":1029.98,
+ *  "items":[{"productId":"P001","name":"Laptop","quantity":1,"unitPrice":999.99,"currency":"USD","lineTotal":999.99}]}
+ * </pre>
+ *
+ * <p>Orders are pulled from an iterator and written straight into one streaming
+ * {@link JsonGenerator}, whose buffers come from Jackson's per-thread recycler; no tree or
+ * intermediate string is built, so memory stays flat however many orders are exported.</p>
+ */
+public final class OrderExporter {
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final SerializedString NEWLINE = new SerializedString("\n");
+
+    private OrderExporter() {
+    }
+
+    /**
+     * Writes every order {@code filter} accepts and returns how many were written. The channel
+     * is flushed but not closed.
+     */
+    public static long export(Iterator<Order> orders, OrderExportFilter filter, WritableByteChannel channel) {
+        return export(orders, filter, Channels.newOutputStream(channel));
+    }
+
+    /**
+     * Writes every order {@code filter} accepts and returns how many were written. The stream
+     * is flushed but not closed.
+     */
+    public static long export(Iterator<Order> orders, OrderExportFilter filter, OutputStream out) {
+        long written = 0;
+        try (JsonGenerator generator = JSON.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+            generator.setRootValueSeparator(NEWLINE);
+            while (orders.hasNext()) {
+                Order order = orders.next();
+                if (filter.test(order)) {
+                    writeOrder(generator, order);
+                    written++;
+                }
+            }
+            if (written > 0) {
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not export orders", e);
+        }
+        return written;
+    }
+
+    private static void writeOrder(JsonGenerator generator, Order order) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("orderId", order.getOrderId());
+        generator.writeStringField("userId", order.getUserId());
+        generator.writeStringField("status", order.getStatus().name());
+        generator.writeStringField("createdAt", DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(order.getCreatedAt()));
+        generator.writeStringField("shippingAddress", order.getShippingAddress());
+        generator.writeNumberField("totalAmount", order.getTotalAmount());
+        generator.writeArrayFieldStart("items");
+        OrderLines lines = order.getLines();
+        for (int line = 0; line < lines.size(); line++) {
+            generator.writeStartObject();
+            generator.writeStringField("productId", lines.getProductId(line));
+            generator.writeStringField("name", lines.getProductName(line));
+            generator.writeNumberField("quantity", lines.getQuantity(line));
+            generator.writeNumberField("unitPrice", lines.getUnitPrice(line).toBigDecimal());
+            generator.writeStringField("currency", lines.getCurrency().getCurrencyCode());
+            generator.writeNumberField("lineTotal", lines.getLineTotal(line).toBigDecimal());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+        generator.writeEndObject();
+    }
+}
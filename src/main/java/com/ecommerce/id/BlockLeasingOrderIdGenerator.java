@@ -0,0 +1,62 @@
+package com.ecommerce.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sequential IDs that stay unique across instances sharing a {@link FileBlockAllocator}.
+ *
+ * <p>Each instance leases a block of values and hands them out with a lock-free increment; only
+ * the thread that finds the block exhausted takes a lock to lease the next one. IDs are unique
+ * but only increase within one instance.</p>
+ */
+public class BlockLeasingOrderIdGenerator implements OrderIdGenerator {
+    private final String prefix;
+    private final FileBlockAllocator allocator;
+    private final int blockSize;
+    private volatile Block block = new Block(0, 0);
+
+    public BlockLeasingOrderIdGenerator(FileBlockAllocator allocator, int blockSize) {
+        this(SequentialOrderIdGenerator.DEFAULT_PREFIX, allocator, blockSize);
+    }
+
+    public BlockLeasingOrderIdGenerator(String prefix, FileBlockAllocator allocator, int blockSize) {
+        if (prefix == null || allocator == null) {
+            throw new IllegalArgumentException("Prefix and allocator cannot be null");
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be greater than 0");
+        }
+        this.prefix = prefix;
+        this.allocator = allocator;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public String nextId() {
+        while (true) {
+            Block current = block;
+            long value = current.next.getAndIncrement();
+            if (value < current.end) {
+                return OrderIds.format(prefix, value, SequentialOrderIdGenerator.DEFAULT_DIGITS);
+            }
+            refill(current);
+        }
+    }
+
+    private synchronized void refill(Block exhausted) {
+        if (block == exhausted) {
+            long start = allocator.lease(blockSize);
+            block = new Block(start, start + blockSize);
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
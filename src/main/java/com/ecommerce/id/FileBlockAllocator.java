@@ -0,0 +1,101 @@
+package com.ecommerce.id;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Hands out disjoint ranges of IDs from a counter stored in a local file.
+ *
+ * <p>The file holds the next unallocated value as eight big-endian bytes. Each lease takes an
+ * exclusive file lock, advances the stored value and forces it to disk before returning, so
+ * processes sharing the file never receive overlapping ranges and a restart never reuses one.
+ * Values leased but not used before a crash are skipped, not reissued. An empty file starts at
+ * the first value; a file shorter than eight bytes is refused rather than restarted, so a damaged
+ * counter cannot hand out IDs a second time.</p>
+ *
+ * <p>File locks are held per JVM, so allocators for the same file inside one JVM also
+ * synchronize on a shared monitor: the first allocator's path instance, kept only as long as
+ * some allocator for the file is.</p>
+ */
+public class FileBlockAllocator {
+    private static final Map<Path, WeakReference<Path>> JVM_LOCKS = new WeakHashMap<>();
+
+    private final Path file;
+    private final long firstValue;
+    private final Object jvmLock;
+
+    public FileBlockAllocator(Path file) {
+        this(file, 1);
+    }
+
+    public FileBlockAllocator(Path file, long firstValue) {
+        if (file == null) {
+            throw new IllegalArgumentException("Allocator file cannot be null");
+        }
+        this.file = file;
+        this.firstValue = firstValue;
+        this.jvmLock = jvmLockFor(file.toAbsolutePath().normalize());
+    }
+
+    /**
+     * Reserves {@code size} consecutive values and returns the first one.
+     */
+    public long lease(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Block size must be greater than 0");
+        }
+        synchronized (jvmLock) {
+            return leaseLocked(size);
+        }
+    }
+
+    private long leaseLocked(int size) {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.lock();
+            try {
+                ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+                long next = firstValue;
+                if (channel.size() > 0) {
+                    while (buffer.hasRemaining()) {
+                        if (channel.read(buffer, buffer.position()) < 0) {
+                            throw new IOException("ID allocator file is truncated: " + file);
+                        }
+                    }
+                    next = buffer.getLong(0);
+                }
+                buffer.clear();
+                buffer.putLong(0, Math.addExact(next, size));
+                channel.write(buffer, 0);
+                channel.force(true);
+                return next;
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not lease ID block from " + file, e);
+        }
+    }
+
+    // Keys are held weakly, and each value only refers to its own key weakly, so entries go away
+    // once no allocator for the file is left
+    private static Object jvmLockFor(Path path) {
+        synchronized (JVM_LOCKS) {
+            WeakReference<Path> existing = JVM_LOCKS.get(path);
+            Path lock = existing == null ? null : existing.get();
+            if (lock == null) {
+                lock = path;
+                JVM_LOCKS.put(path, new WeakReference<>(path));
+            }
+            return lock;
+        }
+    }
+}
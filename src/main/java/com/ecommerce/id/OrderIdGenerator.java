@@ -0,0 +1,28 @@
+package com.ecommerce.id;
+
+/**
+ * Source of unique order IDs. Implementations are safe to call from many threads at once.
+ */
+public interface OrderIdGenerator {
+
+    String nextId();
+
+    /**
+     * Returns {@code count} unique IDs. Implementations that can reserve a range in one step
+     * should override this.
+     */
+    default String[] nextIds(int count) {
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = nextId();
+        }
+        return ids;
+    }
+
+    /**
+     * Tells the generator about an ID issued before it was created, such as one recovered from a
+     * journal, so it never issues that ID again.
+     */
+    default void observe(String existingId) {
+    }
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.id;
+
+/**
+ * Formats order IDs without going through {@code String.format}.
+ */
+public final class OrderIds {
+
+    private OrderIds() {
+    }
+
+    /**
+     * Returns {@code prefix} followed by {@code value} in decimal, left-padded with zeros to at
+     * least {@code minDigits} digits. Values wider than {@code minDigits} are never truncated.
+     */
+    public static String format(String prefix, long value, int minDigits) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Order ID value cannot be negative: " + value);
+        }
+        int digits = 1;
+        for (long rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        int width = Math.max(digits, minDigits);
+        int prefixLength = prefix.length();
+        char[] chars = new char[prefixLength + width];
+        prefix.getChars(0, prefixLength, chars, 0);
+        int position = chars.length;
+        long rest = value;
+        do {
+            chars[--position] = (char) ('0' + rest % 10);
+            rest /= 10;
+        } while (rest != 0);
+        while (position > prefixLength) {
+            chars[--position] = '0';
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,65 @@
+package com.ecommerce.id;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free, strictly increasing IDs for a single instance: {@code ORD000001}, {@code ORD000002},
+ * and so on. IDs keep growing past six digits instead of wrapping.
+ */
+public class SequentialOrderIdGenerator implements OrderIdGenerator {
+    public static final String DEFAULT_PREFIX = "ORD";
+    public static final int DEFAULT_DIGITS = 6;
+
+    private final String prefix;
+    private final AtomicLong counter;
+
+    public SequentialOrderIdGenerator() {
+        this(DEFAULT_PREFIX, 1);
+    }
+
+    public SequentialOrderIdGenerator(String prefix, long firstValue) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Prefix cannot be null");
+        }
+        if (firstValue < 0) {
+            throw new IllegalArgumentException("First value cannot be negative");
+        }
+        this.prefix = prefix;
+        this.counter = new AtomicLong(firstValue);
+    }
+
+    @Override
+    public String nextId() {
+        return OrderIds.format(prefix, counter.getAndIncrement(), DEFAULT_DIGITS);
+    }
+
+    @Override
+    public void observe(String existingId) {
+        if (existingId == null || !existingId.startsWith(prefix) || existingId.length() == prefix.length()) {
+            return;
+        }
+        long value = 0;
+        for (int i = prefix.length(); i < existingId.length(); i++) {
+            char c = existingId.charAt(i);
+            if (c < '0' || c > '9' || value > (Long.MAX_VALUE - 9) / 10) {
+                return;
+            }
+            value = value * 10 + (c - '0');
+        }
+        long next = value + 1;
+        counter.accumulateAndGet(next, Math::max);
+    }
+
+    @Override
+    public String[] nextIds(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Count cannot be negative");
+        }
+        long first = counter.getAndAdd(count);
+        String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = OrderIds.format(prefix, first + i, DEFAULT_DIGITS);
+        }
+        return ids;
+    }
+}
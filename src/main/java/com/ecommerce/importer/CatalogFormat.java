@@ -0,0 +1,19 @@
+package com.ecommerce.importer;
+
+/**
+ * Supplier feed formats {@link CatalogImporter} understands.
+ *
+ * <p>Both carry the fields {@code id}, {@code name}, {@code description}, {@code price},
+ * {@code stockQuantity} (or {@code stock}), {@code category} and {@code currency}; names are
+ * matched ignoring case and unknown fields are ignored.</p>
+ */
+public enum CatalogFormat {
+    /**
+     * A JSON array of product objects, or product objects one after another (NDJSON).
+     */
+    JSON,
+    /**
+     * RFC 4180 CSV with a header row naming the columns.
+     */
+    CSV
+}
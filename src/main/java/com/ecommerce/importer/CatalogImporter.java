@@ -0,0 +1,305 @@
+package com.ecommerce.importer;
+
+import com.ecommerce.model.Product;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Streams products out of a supplier feed.
+ *
+ * <p>The calling thread tokenizes the feed, with Jackson's streaming parser for JSON, into
+ * batches of raw field values. Worker threads validate the batches and turn them into
+ * {@link Product}s in parallel. Finished batches go to the sink on the calling thread, in file
+ * order, so a product that appears twice ends up as its last occurrence. At most a few batches
+ * per worker are in flight at once, so memory use does not depend on the size of the feed.</p>
+ */
+public final class CatalogImporter {
+    public static final int BATCH_SIZE = 1024;
+    public static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    // Column order of a raw record
+    private static final int ID = 0;
+    private static final int NAME = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int PRICE = 3;
+    private static final int STOCK = 4;
+    private static final int CATEGORY = 5;
+    private static final int CURRENCY = 6;
+    private static final int COLUMN_COUNT = 7;
+
+    private CatalogImporter() {
+    }
+
+    /**
+     * Reads every product in {@code in} and passes them to {@code sink} in batches of up to
+     * {@value #BATCH_SIZE}. Invalid records are skipped and reported in the result. The stream is
+     * not closed.
+     *
+     * @throws UncheckedIOException if the feed cannot be read or is not well-formed; batches
+     *                              already passed to the sink stay applied
+     */
+    public static ImportResult read(InputStream in, CatalogFormat format, Consumer<List<Product>> sink) {
+        int workers = Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "catalog-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Pipeline pipeline = new Pipeline(executor, 2 * workers, sink);
+        try {
+            if (format == CatalogFormat.JSON) {
+                readJson(in, pipeline);
+            } else {
+                readCsv(in, pipeline);
+            }
+            pipeline.finish();
+            return pipeline.result();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not import catalog", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void readJson(InputStream in, Pipeline pipeline) throws IOException {
+        try (JsonParser parser = JSON.createParser(in)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            JsonToken token = parser.nextToken();
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            long recordNumber = 0;
+            while (token != null && !(array && token == JsonToken.END_ARRAY)) {
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected a product object at " + parser.getCurrentLocation());
+                }
+                String[] row = new String[COLUMN_COUNT];
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    int column = column(parser.getCurrentName());
+                    JsonToken value = parser.nextToken();
+                    if (value.isStructStart()) {
+                        parser.skipChildren();
+                    } else if (column >= 0 && value != JsonToken.VALUE_NULL) {
+                        row[column] = parser.getText();
+                    }
+                }
+                pipeline.add(++recordNumber, row);
+                token = parser.nextToken();
+            }
+        }
+    }
+
+    private static void readCsv(InputStream in, Pipeline pipeline) throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+        String[] header = reader.next();
+        if (header == null) {
+            return;
+        }
+        int[] columns = new int[header.length];
+        for (int i = 0; i < header.length; i++) {
+            columns[i] = column(header[i].trim());
+        }
+        String[] fields;
+        while ((fields = reader.next()) != null) {
+            String[] row = new String[COLUMN_COUNT];
+            for (int i = 0; i < fields.length && i < columns.length; i++) {
+                if (columns[i] >= 0 && !fields[i].isEmpty()) {
+                    row[columns[i]] = fields[i];
+                }
+            }
+            pipeline.add(reader.getRecordLine(), row);
+        }
+    }
+
+    private static int column(String name) {
+        switch (name.toLowerCase(Locale.ROOT)) {
+            case "id":
+                return ID;
+            case "name":
+                return NAME;
+            case "description":
+                return DESCRIPTION;
+            case "price":
+                return PRICE;
+            case "stock":
+            case "stockquantity":
+                return STOCK;
+            case "category":
+                return CATEGORY;
+            case "currency":
+                return CURRENCY;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Turns one raw record into a product, or throws {@link IllegalArgumentException} saying
+     * what is wrong with it.
+     */
+    static Product toProduct(String[] row) {
+        String id = row[ID] == null ? null : row[ID].trim();
+        if (id == null || id.isEmpty()) {
+            throw new IllegalArgumentException("missing id");
+        }
+        if (row[NAME] == null || row[NAME].isBlank()) {
+            throw new IllegalArgumentException("missing name for product " + id);
+        }
+        if (row[PRICE] == null) {
+            throw new IllegalArgumentException("missing price for product " + id);
+        }
+        BigDecimal price;
+        try {
+            price = new BigDecimal(row[PRICE].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid price '" + row[PRICE] + "' for product " + id);
+        }
+        if (price.signum() < 0) {
+            throw new IllegalArgumentException("negative price for product " + id);
+        }
+        int stock;
+        try {
+            stock = row[STOCK] == null ? 0 : Integer.parseInt(row[STOCK].trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid stock '" + row[STOCK] + "' for product " + id);
+        }
+        if (stock < 0) {
+            throw new IllegalArgumentException("negative stock for product " + id);
+        }
+
+        Product product = new Product(id, row[NAME], row[DESCRIPTION], null, stock, row[CATEGORY]);
+        try {
+            if (row[CURRENCY] != null) {
+                product.setCurrency(Currency.getInstance(row[CURRENCY].trim().toUpperCase(Locale.ROOT)));
+            }
+            product.setPrice(price);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new IllegalArgumentException("invalid price or currency for product " + id + ": " + e.getMessage());
+        }
+        return product;
+    }
+
+    /**
+     * Fans raw batches out to the workers and hands their results to the sink in submission
+     * order, keeping at most {@code maxInFlight} batches outstanding.
+     */
+    private static final class Pipeline {
+        private final ExecutorService executor;
+        private final int maxInFlight;
+        private final Consumer<List<Product>> sink;
+        private final ArrayDeque<Future<Converted>> inFlight = new ArrayDeque<>();
+        private final List<String> errors = new ArrayList<>();
+        private long[] recordNumbers = new long[BATCH_SIZE];
+        private List<String[]> rows = new ArrayList<>(BATCH_SIZE);
+        private long accepted;
+        private long rejected;
+
+        Pipeline(ExecutorService executor, int maxInFlight, Consumer<List<Product>> sink) {
+            this.executor = executor;
+            this.maxInFlight = maxInFlight;
+            this.sink = sink;
+        }
+
+        void add(long recordNumber, String[] row) {
+            recordNumbers[rows.size()] = recordNumber;
+            rows.add(row);
+            if (rows.size() == BATCH_SIZE) {
+                submit();
+            }
+        }
+
+        void finish() {
+            if (!rows.isEmpty()) {
+                submit();
+            }
+            while (!inFlight.isEmpty()) {
+                drainOldest();
+            }
+        }
+
+        ImportResult result() {
+            return new ImportResult(accepted, rejected, Collections.unmodifiableList(errors));
+        }
+
+        private void submit() {
+            if (inFlight.size() == maxInFlight) {
+                drainOldest();
+            }
+            List<String[]> batch = rows;
+            long[] numbers = recordNumbers;
+            inFlight.add(executor.submit(() -> convert(batch, numbers)));
+            rows = new ArrayList<>(BATCH_SIZE);
+            recordNumbers = new long[BATCH_SIZE];
+        }
+
+        private void drainOldest() {
+            Converted converted;
+            try {
+                converted = inFlight.removeFirst().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Catalog import was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Catalog import worker failed", e.getCause());
+            }
+            if (!converted.products.isEmpty()) {
+                sink.accept(converted.products);
+            }
+            accepted += converted.products.size();
+            rejected += converted.rejected;
+            for (String error : converted.errors) {
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(error);
+                }
+            }
+        }
+
+        private static Converted convert(List<String[]> batch, long[] recordNumbers) {
+            Converted converted = new Converted(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    converted.products.add(toProduct(batch.get(i)));
+                } catch (IllegalArgumentException e) {
+                    converted.rejected++;
+                    if (converted.errors.size() < MAX_REPORTED_ERRORS) {
+                        converted.errors.add("Record " + recordNumbers[i] + ": " + e.getMessage());
+                    }
+                }
+            }
+            return converted;
+        }
+    }
+
+    private static final class Converted {
+        private final List<Product> products;
+        private final List<String> errors = new ArrayList<>();
+        private int rejected;
+
+        Converted(int size) {
+            products = new ArrayList<>(size);
+        }
+    }
+}
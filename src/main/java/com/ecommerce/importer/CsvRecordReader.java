@@ -0,0 +1,117 @@
+package com.ecommerce.importer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 reader: comma-separated fields, optionally quoted, with doubled
+ * quotes as escapes and line breaks allowed inside quotes. Reads through a fixed buffer, so only
+ * the current record is held in memory.
+ */
+final class CsvRecordReader {
+    private final Reader reader;
+    private final char[] buffer = new char[1 << 16];
+    private int position;
+    private int limit;
+    private long lineNumber = 1;
+    private long recordLine;
+    private final StringBuilder field = new StringBuilder();
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Returns the line the record last returned by {@link #next()} started on.
+     */
+    long getRecordLine() {
+        return recordLine;
+    }
+
+    /**
+     * Returns the next record's fields, or {@code null} at the end of the input. Blank lines are
+     * skipped.
+     */
+    String[] next() throws IOException {
+        int c;
+        while ((c = peek()) == '\r' || c == '\n') {
+            consumeLineBreak();
+        }
+        if (c < 0) {
+            return null;
+        }
+        recordLine = lineNumber;
+        List<String> fields = new ArrayList<>();
+        while (true) {
+            fields.add(readField());
+            c = peek();
+            if (c == ',') {
+                position++;
+            } else {
+                if (c >= 0) {
+                    consumeLineBreak();
+                }
+                return fields.toArray(new String[0]);
+            }
+        }
+    }
+
+    private String readField() throws IOException {
+        field.setLength(0);
+        if (peek() != '"') {
+            int c;
+            while ((c = peek()) >= 0 && c != ',' && c != '\r' && c != '\n') {
+                field.append((char) c);
+                position++;
+            }
+            return field.toString();
+        }
+        long startLine = lineNumber;
+        position++;
+        while (true) {
+            int c = peek();
+            if (c < 0) {
+                throw new IOException("Unterminated quoted field starting on line " + startLine);
+            }
+            position++;
+            if (c == '"') {
+                if (peek() != '"') {
+                    break;
+                }
+                position++;
+            } else if (c == '\n') {
+                lineNumber++;
+            }
+            field.append((char) c);
+        }
+        int c = peek();
+        if (c >= 0 && c != ',' && c != '\r' && c != '\n') {
+            throw new IOException("Unexpected character after quoted field on line " + lineNumber);
+        }
+        return field.toString();
+    }
+
+    private void consumeLineBreak() throws IOException {
+        if (peek() == '\r') {
+            position++;
+        }
+        if (peek() == '\n') {
+            position++;
+        }
+        lineNumber++;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position];
+    }
+}
@@ -0,0 +1,40 @@
+package com.ecommerce.importer;
+
+import java.util.List;
+
+/**
+ * Outcome of a catalog import: how many records were applied and rejected, and why the first
+ * few were rejected.
+ */
+public class ImportResult {
+    private final long acceptedCount;
+    private final long rejectedCount;
+    private final List<String> errors;
+
+    ImportResult(long acceptedCount, long rejectedCount, List<String> errors) {
+        this.acceptedCount = acceptedCount;
+        this.rejectedCount = rejectedCount;
+        this.errors = errors;
+    }
+
+    public long getAcceptedCount() {
+        return acceptedCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    /**
+     * Returns messages for up to {@value CatalogImporter#MAX_REPORTED_ERRORS} rejected records,
+     * in file order. Each names the record: its position for JSON, its line number for CSV.
+     */
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{accepted=" + acceptedCount + ", rejected=" + rejectedCount + "}";
+    }
+}
@@ -0,0 +1,376 @@
+package com.ecommerce.index;
+
+import com.ecommerce.model.Product;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToLongFunction;
+
+/**
+ * Prefix completion over the words of product names, ranked by a pluggable score.
+ *
+ * <p>Names are normalized (lowercased, accents stripped) and split into words at every character
+ * that is not a letter or digit. Each word is a path in a character trie whose children are kept
+ * in sorted parallel arrays rather than maps. Every node caches the best
+ * {@link #getMaxSuggestions()} products anywhere below it, so a completion walks the prefix and
+ * reads that cache: the cost follows the length of the prefix, not the size of the catalog.
+ * Adding, updating or removing a product re-ranks only the nodes on the paths of its words, each
+ * from its own words and its children's caches.</p>
+ *
+ * <p>A query's last word is completed as a prefix; earlier words must each prefix some word of the
+ * name, in any order, so {@code "wireless mo"} finds "Wireless Mouse". When earlier words filter
+ * out cached candidates, the subtree is searched instead, which costs more for short prefixes.</p>
+ *
+ * <p>Products rank by descending score, then by name and ID. Scores are taken when a product is
+ * indexed, so a score that moves on its own, such as stock, is only as fresh as the last update
+ * or {@link #refreshScores()}.</p>
+ *
+ * <p>Nodes left empty by removals stay in the trie until the next rebuild.</p>
+ *
+ * <p>Not thread-safe; callers serialize writes with reads.</p>
+ */
+public class AutocompleteIndex {
+    public static final int DEFAULT_MAX_SUGGESTIONS = 10;
+
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+    private static final Comparator<Entry> RANKING = Comparator.comparingLong((Entry entry) -> entry.score).reversed()
+            .thenComparing(entry -> entry.name)
+            .thenComparing(entry -> entry.productId);
+
+    private final int maxSuggestions;
+    private ToLongFunction<Product> score;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private Node root = new Node();
+
+    /**
+     * Creates an index ranking by stock on hand that returns up to
+     * {@value #DEFAULT_MAX_SUGGESTIONS} completions.
+     */
+    public AutocompleteIndex() {
+        this(Product::getStockQuantity, DEFAULT_MAX_SUGGESTIONS);
+    }
+
+    public AutocompleteIndex(ToLongFunction<Product> score, int maxSuggestions) {
+        if (score == null) {
+            throw new IllegalArgumentException("Score cannot be null");
+        }
+        if (maxSuggestions <= 0) {
+            throw new IllegalArgumentException("Max suggestions must be positive");
+        }
+        this.score = score;
+        this.maxSuggestions = maxSuggestions;
+    }
+
+    public int getMaxSuggestions() {
+        return maxSuggestions;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void put(Product product) {
+        Entry previous = entries.remove(product.getId());
+        if (previous != null) {
+            unlink(previous);
+        }
+        Entry entry = new Entry(product, score.applyAsLong(product));
+        entries.put(product.getId(), entry);
+        for (String word : entry.words) {
+            Node[] path = path(word, true);
+            path[path.length - 1].add(entry);
+            rerank(path);
+        }
+    }
+
+    public void remove(String productId) {
+        Entry entry = entries.remove(productId);
+        if (entry != null) {
+            unlink(entry);
+        }
+    }
+
+    /**
+     * Replaces the whole index with {@code products}, ranking every node once at the end.
+     */
+    public void rebuild(Collection<Product> products) {
+        entries.clear();
+        root = new Node();
+        for (Product product : products) {
+            Entry entry = new Entry(product, score.applyAsLong(product));
+            if (entries.put(product.getId(), entry) != null) {
+                throw new IllegalArgumentException("Duplicate product ID: " + product.getId());
+            }
+            for (String word : entry.words) {
+                Node[] path = path(word, true);
+                path[path.length - 1].add(entry);
+            }
+        }
+        rerankSubtree(root);
+    }
+
+    /**
+     * Switches to a new score and re-ranks every product with it.
+     */
+    public void setScore(ToLongFunction<Product> score) {
+        if (score == null) {
+            throw new IllegalArgumentException("Score cannot be null");
+        }
+        this.score = score;
+        refreshScores();
+    }
+
+    /**
+     * Scores every product again and re-ranks, for scores that change without the product being
+     * updated.
+     */
+    public void refreshScores() {
+        List<Product> products = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            products.add(entry.product);
+        }
+        rebuild(products);
+    }
+
+    /**
+     * Returns up to {@code limit} products completing {@code prefix}, best first. {@code limit}
+     * is capped at {@link #getMaxSuggestions()}. A blank prefix completes to nothing.
+     */
+    public List<Product> complete(String prefix, int limit) {
+        if (prefix == null) {
+            throw new IllegalArgumentException("Prefix cannot be null");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        String[] words = words(prefix);
+        int wanted = Math.min(limit, maxSuggestions);
+        if (words.length == 0 || wanted == 0) {
+            return new ArrayList<>();
+        }
+        Node[] path = path(words[words.length - 1], false);
+        if (path == null) {
+            return new ArrayList<>();
+        }
+        Node node = path[path.length - 1];
+        String[] others = Arrays.copyOf(words, words.length - 1);
+
+        List<Product> results = new ArrayList<>(wanted);
+        for (Entry entry : node.top) {
+            if (results.size() == wanted) {
+                return results;
+            }
+            if (entry.matchesAll(others)) {
+                results.add(entry.product);
+            }
+        }
+        if (results.size() == wanted || others.length == 0 || node.top.length < maxSuggestions) {
+            // Either no word filtered the cache, or the cache already held the whole subtree
+            return results;
+        }
+
+        Set<Entry> matches = new LinkedHashSet<>();
+        collect(node, others, matches);
+        List<Entry> ranked = new ArrayList<>(matches);
+        ranked.sort(RANKING);
+        results.clear();
+        for (int i = 0; i < ranked.size() && i < wanted; i++) {
+            results.add(ranked.get(i).product);
+        }
+        return results;
+    }
+
+    /**
+     * Normalizes {@code text} the way names are indexed and splits it into words.
+     */
+    static String[] words(String text) {
+        if (text == null) {
+            return new String[0];
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= folded.length(); i++) {
+            boolean wordChar = i < folded.length() && Character.isLetterOrDigit(folded.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                words.add(folded.substring(start, i));
+                start = -1;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    private void unlink(Entry entry) {
+        for (String word : entry.words) {
+            Node[] path = path(word, false);
+            if (path != null) {
+                path[path.length - 1].remove(entry);
+                rerank(path);
+            }
+        }
+    }
+
+    /**
+     * Returns the nodes from the root to the end of {@code word}, creating missing ones if
+     * {@code create} is set, or {@code null} if the word is not in the trie.
+     */
+    private Node[] path(String word, boolean create) {
+        Node[] path = new Node[word.length() + 1];
+        Node node = root;
+        path[0] = node;
+        for (int i = 0; i < word.length(); i++) {
+            Node child = node.child(word.charAt(i));
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = node.addChild(word.charAt(i));
+            }
+            node = child;
+            path[i + 1] = node;
+        }
+        return path;
+    }
+
+    private void rerank(Node[] path) {
+        for (int i = path.length - 1; i >= 0; i--) {
+            path[i].rerank(maxSuggestions);
+        }
+    }
+
+    private void rerankSubtree(Node node) {
+        for (int i = 0; i < node.childCount; i++) {
+            rerankSubtree(node.children[i]);
+        }
+        node.rerank(maxSuggestions);
+    }
+
+    private static void collect(Node node, String[] others, Set<Entry> matches) {
+        for (int i = 0; i < node.entryCount; i++) {
+            if (node.entries[i].matchesAll(others)) {
+                matches.add(node.entries[i]);
+            }
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            collect(node.children[i], others, matches);
+        }
+    }
+
+    /**
+     * One indexed product: its normalized words and the score it was ranked with.
+     */
+    private static final class Entry {
+        final Product product;
+        final String productId;
+        final String name;
+        final String[] words;
+        final long score;
+
+        Entry(Product product, long score) {
+            this.product = product;
+            this.productId = product.getId();
+            this.name = product.getName() == null ? "" : product.getName().toLowerCase(Locale.ROOT);
+            this.words = new LinkedHashSet<>(Arrays.asList(words(product.getName()))).toArray(new String[0]);
+            this.score = score;
+        }
+
+        boolean matchesAll(String[] prefixes) {
+            for (String prefix : prefixes) {
+                if (!hasWordStartingWith(prefix)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean hasWordStartingWith(String prefix) {
+            for (String word : words) {
+                if (word.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Node {
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        int childCount;
+        // Products with a word ending exactly here
+        Entry[] entries = NO_ENTRIES;
+        int entryCount;
+        // Best products anywhere below, most relevant first
+        Entry[] top = NO_ENTRIES;
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, 0, childCount, label);
+            return index >= 0 ? children[index] : null;
+        }
+
+        Node addChild(char label) {
+            int index = -Arrays.binarySearch(labels, 0, childCount, label) - 1;
+            if (childCount == labels.length) {
+                int capacity = Math.max(2, childCount * 2);
+                labels = Arrays.copyOf(labels, capacity);
+                children = Arrays.copyOf(children, capacity);
+            }
+            System.arraycopy(labels, index, labels, index + 1, childCount - index);
+            System.arraycopy(children, index, children, index + 1, childCount - index);
+            Node child = new Node();
+            labels[index] = label;
+            children[index] = child;
+            childCount++;
+            return child;
+        }
+
+        void add(Entry entry) {
+            if (entryCount == entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(2, entryCount * 2));
+            }
+            entries[entryCount++] = entry;
+        }
+
+        void remove(Entry entry) {
+            for (int i = 0; i < entryCount; i++) {
+                if (entries[i] == entry) {
+                    entries[i] = entries[--entryCount];
+                    entries[entryCount] = null;
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Recomputes the cache from this node's own products and its children's caches, which
+         * together always contain the best products of the subtree.
+         */
+        void rerank(int maxSuggestions) {
+            List<Entry> candidates = new ArrayList<>(entryCount + childCount * maxSuggestions);
+            candidates.addAll(Arrays.asList(entries).subList(0, entryCount));
+            for (int i = 0; i < childCount; i++) {
+                candidates.addAll(Arrays.asList(children[i].top));
+            }
+            candidates.sort(RANKING);
+            // A product with several words under this node shows up once per word
+            Set<Entry> best = new LinkedHashSet<>();
+            for (int i = 0; i < candidates.size() && best.size() < maxSuggestions; i++) {
+                best.add(candidates.get(i));
+            }
+            top = best.toArray(NO_ENTRIES);
+        }
+    }
+}
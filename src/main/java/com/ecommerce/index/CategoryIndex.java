@@ -0,0 +1,189 @@
+package com.ecommerce.index;
+
+import com.ecommerce.catalog.ProductVersion;
+import com.ecommerce.model.Product;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Secondary index from a case-insensitive category to the products in it, as the catalog
+ * versions they were published with.
+ *
+ * <p>Each category keeps its products in a copy-on-write array, in the order they were added.
+ * Writes copy one category's array; reads hand out a read-only list over the current array
+ * without copying it, so a lookup costs O(1) plus whatever the caller iterates. The category a
+ * product was indexed under is remembered by product ID, so an update that mutated the same
+ * {@code Product} instance still moves it out of its old category.</p>
+ *
+ * <p>Products are held as {@link ProductVersion}s, so a category's members keep the fields they
+ * were indexed with even while their live {@code Product} is being changed in place.</p>
+ *
+ * <p>Writers must be serialized by the caller. Reads may run alongside a write: they see a
+ * category's array either before or after it, and a rebuild swaps in a complete new map.</p>
+ */
+public class CategoryIndex {
+    private static final ProductVersion[] EMPTY = new ProductVersion[0];
+
+    private volatile Map<String, ProductVersion[]> productsByCategory = new ConcurrentHashMap<>();
+    private Map<String, String> categoryByProductId = new HashMap<>();
+
+    public void put(ProductVersion product) {
+        String category = normalize(product.getCategory());
+        String previous = categoryByProductId.get(product.getId());
+        if (previous != null && previous.equals(category)) {
+            replace(category, product);
+            return;
+        }
+        if (previous != null) {
+            remove(previous, product.getId());
+        }
+        if (category == null) {
+            categoryByProductId.remove(product.getId());
+            return;
+        }
+        ProductVersion[] current = productsByCategory.getOrDefault(category, EMPTY);
+        ProductVersion[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = product;
+        productsByCategory.put(category, updated);
+        categoryByProductId.put(product.getId(), category);
+    }
+
+    /**
+     * Replaces the whole index with {@code products}, building each category's array once
+     * instead of copying it per product.
+     */
+    public void rebuild(Collection<ProductVersion> products) {
+        Map<String, List<ProductVersion>> grouped = new HashMap<>();
+        Map<String, String> categories = new HashMap<>();
+        for (ProductVersion product : products) {
+            String category = normalize(product.getCategory());
+            if (category == null) {
+                continue;
+            }
+            String previous = categories.put(product.getId(), category);
+            if (previous != null) {
+                throw new IllegalArgumentException("Duplicate product ID: " + product.getId());
+            }
+            grouped.computeIfAbsent(category, key -> new ArrayList<>()).add(product);
+        }
+        Map<String, ProductVersion[]> rebuilt = new ConcurrentHashMap<>(Math.max(16, grouped.size() * 2));
+        grouped.forEach((category, members) -> rebuilt.put(category, members.toArray(EMPTY)));
+        categoryByProductId = categories;
+        productsByCategory = rebuilt;
+    }
+
+    public void remove(String productId) {
+        String category = categoryByProductId.remove(productId);
+        if (category != null) {
+            remove(category, productId);
+        }
+    }
+
+    public void clear() {
+        categoryByProductId = new HashMap<>();
+        productsByCategory = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns a read-only view of the products in {@code category}. The view is a snapshot: later
+     * catalog changes do not show up in it.
+     */
+    public List<ProductVersion> get(String category) {
+        ProductVersion[] products = members(category);
+        return products == null ? Collections.emptyList() : new VersionView(products);
+    }
+
+    /**
+     * Same as {@link #get(String)}, but viewing the live products, for stock.
+     */
+    public List<Product> getProducts(String category) {
+        ProductVersion[] products = members(category);
+        return products == null ? Collections.emptyList() : new ProductView(products);
+    }
+
+    private ProductVersion[] members(String category) {
+        return category == null ? null : productsByCategory.get(normalize(category));
+    }
+
+    private void replace(String category, ProductVersion product) {
+        ProductVersion[] current = productsByCategory.get(category);
+        int index = indexOf(current, product.getId());
+        if (current[index] != product) {
+            ProductVersion[] updated = current.clone();
+            updated[index] = product;
+            productsByCategory.put(category, updated);
+        }
+    }
+
+    private void remove(String category, String productId) {
+        ProductVersion[] current = productsByCategory.get(category);
+        int index = indexOf(current, productId);
+        if (current.length == 1) {
+            productsByCategory.remove(category);
+            return;
+        }
+        ProductVersion[] updated = new ProductVersion[current.length - 1];
+        System.arraycopy(current, 0, updated, 0, index);
+        System.arraycopy(current, index + 1, updated, index, current.length - index - 1);
+        productsByCategory.put(category, updated);
+    }
+
+    private static int indexOf(ProductVersion[] products, String productId) {
+        for (int i = 0; i < products.length; i++) {
+            if (products[i].getId().equals(productId)) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Category index out of sync for product: " + productId);
+    }
+
+    private static String normalize(String category) {
+        return category == null ? null : category.toLowerCase(Locale.ROOT);
+    }
+
+    private static final class VersionView extends AbstractList<ProductVersion> implements RandomAccess {
+        private final ProductVersion[] products;
+
+        VersionView(ProductVersion[] products) {
+            this.products = products;
+        }
+
+        @Override
+        public ProductVersion get(int index) {
+            return products[index];
+        }
+
+        @Override
+        public int size() {
+            return products.length;
+        }
+    }
+
+    private static final class ProductView extends AbstractList<Product> implements RandomAccess {
+        private final ProductVersion[] products;
+
+        ProductView(ProductVersion[] products) {
+            this.products = products;
+        }
+
+        @Override
+        public Product get(int index) {
+            return products[index].getProduct();
+        }
+
+        @Override
+        public int size() {
+            return products.length;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.ecommerce.index;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Two copies of an index that is not thread-safe, arranged so that reads never wait for writes.
+ *
+ * <p>Readers go to whichever copy is published and only count themselves in and out, so a read
+ * never blocks or retries. A writer applies each change to the copy no reader is on, publishes
+ * that copy, waits for readers still on the other one to leave, and applies the same change
+ * there. Writes pay for applying every change twice and for waiting out reads in flight.</p>
+ *
+ * <p>Writes must be serialized by the caller, and a change must leave both copies the same
+ * when applied to each. A change that throws is still applied to the second copy, so a failed
+ * write leaves both copies equally affected, and the first failure is rethrown.</p>
+ */
+public final class LeftRight<T> {
+    private final T left;
+    private final T right;
+    private final AtomicInteger[] readers = {new AtomicInteger(), new AtomicInteger()};
+    private volatile boolean readingLeft = true;
+    // Which reader count new reads join; flipped only once the other count has drained
+    private volatile int readerCount;
+
+    public LeftRight(T left, T right) {
+        if (left == null || right == null || left == right) {
+            throw new IllegalArgumentException("Left-right needs two distinct copies");
+        }
+        this.left = left;
+        this.right = right;
+    }
+
+    public <R> R read(Function<? super T, ? extends R> reader) {
+        AtomicInteger count = readers[readerCount];
+        count.incrementAndGet();
+        try {
+            return reader.apply(readingLeft ? left : right);
+        } finally {
+            count.decrementAndGet();
+        }
+    }
+
+    public void write(Consumer<? super T> change) {
+        boolean wasReadingLeft = readingLeft;
+        RuntimeException failure = apply(change, wasReadingLeft ? right : left, null);
+        readingLeft = !wasReadingLeft;
+        int previous = readerCount;
+        int next = 1 - previous;
+        awaitNoReaders(next);
+        readerCount = next;
+        awaitNoReaders(previous);
+        failure = apply(change, wasReadingLeft ? left : right, failure);
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static <T> RuntimeException apply(Consumer<? super T> change, T copy, RuntimeException failure) {
+        try {
+            change.accept(copy);
+        } catch (RuntimeException e) {
+            if (failure == null) {
+                return e;
+            }
+            failure.addSuppressed(e);
+        }
+        return failure;
+    }
+
+    private void awaitNoReaders(int count) {
+        while (readers[count].get() != 0) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.ecommerce.index;
+
+import com.ecommerce.model.Order;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.IntFunction;
+
+/**
+ * Every order in the order it was registered, each at a fixed position.
+ *
+ * <p>Orders are appended to fixed-size chunks, so growing never copies existing orders and a
+ * position, once assigned, always holds the same order. That makes a position a stable paging
+ * cursor. Reads take the published size and hand out a read-only view of everything below it,
+ * without copying or locking; the view is random-access, so its streams split evenly for
+ * parallel consumers.</p>
+ *
+ * <p>An order can be evicted to keep it somewhere more compact. Its slot is cleared, and reads of
+ * that position go to the resolver given at construction instead. The order must be readable
+ * through the resolver before it is evicted.</p>
+ */
+public class OrderSequence {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final VarHandle SLOT = MethodHandles.arrayElementVarHandle(Order[].class);
+
+    private final IntFunction<Order> evicted;
+
+    // Written before size, read after it: a reader that sees a size also sees chunks covering it
+    private volatile Order[][] chunks = new Order[16][];
+    private volatile int size;
+
+    public OrderSequence() {
+        this(position -> {
+            throw new IllegalStateException("No resolver for evicted position " + position);
+        });
+    }
+
+    /**
+     * @param evicted returns the order at a position that was {@link #evict evicted}
+     */
+    public OrderSequence(IntFunction<Order> evicted) {
+        this.evicted = evicted;
+    }
+
+    /**
+     * Appends {@code order} and returns its position.
+     */
+    public synchronized int add(Order order) {
+        int position = size;
+        if (position == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Order sequence is full");
+        }
+        int chunk = position >>> CHUNK_BITS;
+        Order[][] current = chunks;
+        if (chunk == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        if (current[chunk] == null) {
+            current[chunk] = new Order[CHUNK_SIZE];
+        }
+        current[chunk][position & CHUNK_MASK] = order;
+        chunks = current;
+        size = position + 1;
+        return position;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the order at {@code position}, resolving it if it was evicted.
+     */
+    public Order get(int position) {
+        Order order = getIfPresent(position);
+        return order != null ? order : evicted.apply(position);
+    }
+
+    /**
+     * Returns the order at {@code position} if it is still held here, or {@code null} if it was
+     * evicted.
+     */
+    public Order getIfPresent(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", size: " + size);
+        }
+        return (Order) SLOT.getAcquire(chunks[position >>> CHUNK_BITS], position & CHUNK_MASK);
+    }
+
+    /**
+     * Drops the reference to the order at {@code position}; later reads resolve it through the
+     * resolver.
+     */
+    public void evict(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", size: " + size);
+        }
+        // Release pairs with the acquire in reads: whoever sees the cleared slot can resolve it
+        SLOT.setRelease(chunks[position >>> CHUNK_BITS], position & CHUNK_MASK, (Order) null);
+    }
+
+    public synchronized void clear() {
+        chunks = new Order[16][];
+        size = 0;
+    }
+
+    /**
+     * Returns every order registered so far, oldest first. Later additions do not show up in it.
+     */
+    public List<Order> all() {
+        int end = size;
+        return new ChunkView(chunks, 0, end, evicted);
+    }
+
+    /**
+     * Returns up to {@code limit} orders starting at {@code position}.
+     */
+    public List<Order> range(int position, int limit) {
+        if (position < 0 || limit < 0) {
+            throw new IllegalArgumentException("Position and limit cannot be negative");
+        }
+        int end = size;
+        int start = Math.min(position, end);
+        return new ChunkView(chunks, start, (int) Math.min(end, (long) start + limit), evicted);
+    }
+
+    private static final class ChunkView extends AbstractList<Order> implements RandomAccess {
+        private final Order[][] chunks;
+        private final int start;
+        private final int end;
+        private final IntFunction<Order> evicted;
+
+        ChunkView(Order[][] chunks, int start, int end, IntFunction<Order> evicted) {
+            this.chunks = chunks;
+            this.start = start;
+            this.end = end;
+            this.evicted = evicted;
+        }
+
+        @Override
+        public Order get(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size());
+            }
+            int position = start + index;
+            Order order = (Order) SLOT.getAcquire(chunks[position >>> CHUNK_BITS], position & CHUNK_MASK);
+            return order != null ? order : evicted.apply(position);
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.ecommerce.index;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Order positions sorted by creation time, for time-window queries.
+ *
+ * <p>Entries are kept in a concurrent skip list keyed by creation time, with the
+ * {@link OrderSequence} position breaking ties, so adds and range walks never block each other. A
+ * range is located in O(log n) and walked in either direction at O(1) per entry. The index holds
+ * positions rather than orders, so orders evicted from the sequence stay indexed without being
+ * kept alive. Creation times are read when an order is added; later edits to them are not
+ * tracked.</p>
+ */
+public class OrderTimeIndex {
+    private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>();
+
+    public void add(LocalDateTime createdAt, int position) {
+        entries.add(new Entry(createdAt, position));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the positions of orders created in {@code [from, before)}, oldest first or, with
+     * {@code newestFirst}, newest first. Orders created with equal times come in position order,
+     * or the reverse. The iterator is weakly consistent: it never fails, and may or may not see
+     * orders added while it is in use.
+     */
+    public PrimitiveIterator.OfInt positions(LocalDateTime from, LocalDateTime before, boolean newestFirst) {
+        if (from == null || before == null) {
+            throw new IllegalArgumentException("Time range bounds cannot be null");
+        }
+        if (!from.isBefore(before)) {
+            return new PositionIterator(Collections.emptyIterator());
+        }
+        // Real positions are never negative, so these bounds include every order at from and none at before
+        NavigableSet<Entry> range = entries.subSet(new Entry(from, -1), true, new Entry(before, -1), false);
+        return new PositionIterator(newestFirst ? range.descendingIterator() : range.iterator());
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        private final long seconds;
+        private final int nanos;
+        private final int position;
+
+        Entry(LocalDateTime createdAt, int position) {
+            this.seconds = createdAt.toEpochSecond(ZoneOffset.UTC);
+            this.nanos = createdAt.getNano();
+            this.position = position;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int bySeconds = Long.compare(seconds, other.seconds);
+            if (bySeconds != 0) {
+                return bySeconds;
+            }
+            int byNanos = Integer.compare(nanos, other.nanos);
+            return byNanos != 0 ? byNanos : Integer.compare(position, other.position);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Entry && compareTo((Entry) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(seconds) * 31 + position;
+        }
+    }
+
+    private static final class PositionIterator implements PrimitiveIterator.OfInt {
+        private final Iterator<Entry> entries;
+
+        PositionIterator(Iterator<Entry> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return entries.hasNext();
+        }
+
+        @Override
+        public int nextInt() {
+            if (!entries.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return entries.next().position;
+        }
+    }
+}
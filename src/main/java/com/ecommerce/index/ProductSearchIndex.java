@@ -0,0 +1,255 @@
+package com.ecommerce.index;
+
+import com.ecommerce.model.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Trigram inverted index over product names and descriptions.
+ *
+ * <p>Every product gets an internal document ID, and each trigram of its lowercased name and
+ * description maps to a posting list of document IDs. Document IDs only grow, so posting lists
+ * are appended to in sorted order and intersect with a linear merge. Removing or replacing a
+ * product only tombstones its old document; the index is rebuilt once tombstones outnumber live
+ * documents.</p>
+ *
+ * <p>A query is split on whitespace into terms, and a product matches when every term is a
+ * case-insensitive substring of its name or its description. For a single-term query that is
+ * exactly the old {@code searchProducts} behaviour. For a multi-term query it is a superset of
+ * it: the whole keyword no longer has to appear as one substring. A blank keyword matches every
+ * product. Posting lists only narrow down candidates; every candidate is checked against the
+ * stored lowercased text, so trigram collisions never produce false matches.</p>
+ *
+ * <p>The index reflects each product as it was when last added or updated. It is not
+ * thread-safe; callers serialize writes with reads.</p>
+ */
+public class ProductSearchIndex {
+    private static final int GRAM = 3;
+    private static final int MIN_TOMBSTONES_BEFORE_COMPACTION = 1024;
+
+    private final Map<String, Integer> docIdsByProductId = new HashMap<>();
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private Product[] products = new Product[16];
+    private String[] names = new String[16];
+    private String[] descriptions = new String[16];
+    private int docCount;
+    private int tombstones;
+
+    public void put(Product product) {
+        Integer previous = docIdsByProductId.get(product.getId());
+        if (previous != null) {
+            tombstone(previous);
+        }
+        int docId = appendDocument(product);
+        docIdsByProductId.put(product.getId(), docId);
+        maybeCompact();
+    }
+
+    public void remove(String productId) {
+        Integer docId = docIdsByProductId.remove(productId);
+        if (docId != null) {
+            tombstone(docId);
+            maybeCompact();
+        }
+    }
+
+    /**
+     * Replaces the whole index with {@code products}.
+     */
+    public void rebuild(Collection<Product> products) {
+        clear();
+        int capacity = Math.max(16, products.size());
+        this.products = new Product[capacity];
+        names = new String[capacity];
+        descriptions = new String[capacity];
+        for (Product product : products) {
+            if (docIdsByProductId.containsKey(product.getId())) {
+                throw new IllegalArgumentException("Duplicate product ID: " + product.getId());
+            }
+            docIdsByProductId.put(product.getId(), appendDocument(product));
+        }
+    }
+
+    public void clear() {
+        docIdsByProductId.clear();
+        postings.clear();
+        products = new Product[16];
+        names = new String[16];
+        descriptions = new String[16];
+        docCount = 0;
+        tombstones = 0;
+    }
+
+    public int size() {
+        return docIdsByProductId.size();
+    }
+
+    public List<Product> search(String keyword) {
+        if (keyword == null) {
+            throw new IllegalArgumentException("Search keyword cannot be null");
+        }
+        String[] terms = tokenize(keyword);
+        if (terms.length == 0) {
+            return allProducts();
+        }
+
+        List<PostingList> lists = new ArrayList<>();
+        for (String term : terms) {
+            for (int i = 0; i + GRAM <= term.length(); i++) {
+                PostingList list = postings.get(trigram(term, i));
+                if (list == null) {
+                    return new ArrayList<>();
+                }
+                lists.add(list);
+            }
+        }
+
+        List<Product> results = new ArrayList<>();
+        if (lists.isEmpty()) {
+            // Only terms shorter than a trigram: check every live document
+            for (int docId = 0; docId < docCount; docId++) {
+                if (matches(docId, terms)) {
+                    results.add(products[docId]);
+                }
+            }
+            return results;
+        }
+
+        lists.sort(Comparator.comparingInt(list -> list.size));
+        int[] candidates = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int candidateCount = candidates.length;
+        for (int i = 1; i < lists.size() && candidateCount > 0; i++) {
+            candidateCount = intersect(candidates, candidateCount, lists.get(i));
+        }
+        for (int i = 0; i < candidateCount; i++) {
+            if (matches(candidates[i], terms)) {
+                results.add(products[candidates[i]]);
+            }
+        }
+        return results;
+    }
+
+    private static String[] tokenize(String keyword) {
+        String normalized = normalize(keyword).trim();
+        return normalized.isEmpty() ? new String[0] : normalized.split("\\s+");
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static long trigram(String text, int offset) {
+        return ((long) text.charAt(offset) << 32)
+                | ((long) text.charAt(offset + 1) << 16)
+                | text.charAt(offset + 2);
+    }
+
+    /**
+     * Keeps the candidates that also appear in {@code list}, compacting them to the front.
+     */
+    private static int intersect(int[] candidates, int candidateCount, PostingList list) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < candidateCount && j < list.size; i++) {
+            int candidate = candidates[i];
+            while (j < list.size && list.ids[j] < candidate) {
+                j++;
+            }
+            if (j < list.size && list.ids[j] == candidate) {
+                candidates[kept++] = candidate;
+            }
+        }
+        return kept;
+    }
+
+    private boolean matches(int docId, String[] terms) {
+        if (products[docId] == null) {
+            return false;
+        }
+        for (String term : terms) {
+            if (!names[docId].contains(term) && !descriptions[docId].contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private List<Product> allProducts() {
+        List<Product> results = new ArrayList<>(docIdsByProductId.size());
+        for (int docId = 0; docId < docCount; docId++) {
+            if (products[docId] != null) {
+                results.add(products[docId]);
+            }
+        }
+        return results;
+    }
+
+    private int appendDocument(Product product) {
+        if (docCount == products.length) {
+            int capacity = products.length * 2;
+            products = Arrays.copyOf(products, capacity);
+            names = Arrays.copyOf(names, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+        }
+        int docId = docCount++;
+        products[docId] = product;
+        names[docId] = normalize(product.getName());
+        descriptions[docId] = normalize(product.getDescription());
+        indexText(names[docId], docId);
+        indexText(descriptions[docId], docId);
+        return docId;
+    }
+
+    private void indexText(String text, int docId) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            postings.computeIfAbsent(trigram(text, i), key -> new PostingList()).add(docId);
+        }
+    }
+
+    private void tombstone(int docId) {
+        products[docId] = null;
+        names[docId] = null;
+        descriptions[docId] = null;
+        tombstones++;
+    }
+
+    private void maybeCompact() {
+        if (tombstones < MIN_TOMBSTONES_BEFORE_COMPACTION || tombstones < docIdsByProductId.size()) {
+            return;
+        }
+        Product[] live = new Product[docIdsByProductId.size()];
+        int count = 0;
+        for (int docId = 0; docId < docCount; docId++) {
+            if (products[docId] != null) {
+                live[count++] = products[docId];
+            }
+        }
+        clear();
+        for (int i = 0; i < count; i++) {
+            put(live[i]);
+        }
+    }
+
+    private static final class PostingList {
+        private int[] ids = new int[4];
+        private int size;
+
+        void add(int docId) {
+            // Document IDs arrive in increasing order, so a repeated trigram is always the last entry
+            if (size > 0 && ids[size - 1] == docId) {
+                return;
+            }
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = docId;
+        }
+    }
+}
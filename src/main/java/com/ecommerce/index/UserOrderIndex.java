@@ -0,0 +1,164 @@
+package com.ecommerce.index;
+
+import com.ecommerce.model.Order;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user order history, ordered by creation time.
+ *
+ * <p>Each user's orders live in an append-only array. Slots below the published size are never
+ * written again, so reads return read-only views over the array without copying or locking. An
+ * order that arrives older than the newest one (two checkouts of the same user racing) is
+ * inserted into a fresh copy of the array, leaving existing views untouched.</p>
+ */
+public class UserOrderIndex {
+    private final Map<String, History> histories = new ConcurrentHashMap<>();
+
+    public void add(Order order) {
+        histories.computeIfAbsent(order.getUserId(), userId -> new History()).add(order);
+    }
+
+    /**
+     * Removes {@code orders} from their users' histories, copying each affected history once.
+     * Views handed out earlier keep showing them.
+     */
+    public void removeAll(Collection<Order> orders) {
+        Map<String, Map<Order, Boolean>> byUser = new HashMap<>();
+        for (Order order : orders) {
+            byUser.computeIfAbsent(order.getUserId(), userId -> new IdentityHashMap<>()).put(order, Boolean.TRUE);
+        }
+        byUser.forEach((userId, removed) -> {
+            History history = histories.get(userId);
+            if (history != null) {
+                history.removeAll(removed);
+            }
+        });
+    }
+
+    public void clear() {
+        histories.clear();
+    }
+
+    public int count(String userId) {
+        History history = histories.get(userId);
+        return history == null ? 0 : history.snapshot().size;
+    }
+
+    /**
+     * Returns all of a user's orders, oldest first.
+     */
+    public List<Order> all(String userId) {
+        History history = histories.get(userId);
+        if (history == null) {
+            return Collections.emptyList();
+        }
+        Snapshot snapshot = history.snapshot();
+        return new SliceView(snapshot.orders, 0, snapshot.size, false);
+    }
+
+    /**
+     * Returns up to {@code limit} of a user's orders, newest first, skipping the {@code offset}
+     * newest ones.
+     */
+    public List<Order> recent(String userId, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative");
+        }
+        History history = histories.get(userId);
+        if (history == null) {
+            return Collections.emptyList();
+        }
+        Snapshot snapshot = history.snapshot();
+        int end = snapshot.size - Math.min(offset, snapshot.size);
+        int start = Math.max(0, end - limit);
+        return new SliceView(snapshot.orders, start, end, true);
+    }
+
+    private static final class Snapshot {
+        private final Order[] orders;
+        private final int size;
+
+        Snapshot(Order[] orders, int size) {
+            this.orders = orders;
+            this.size = size;
+        }
+    }
+
+    private static final class History {
+        private volatile Snapshot snapshot = new Snapshot(new Order[4], 0);
+
+        Snapshot snapshot() {
+            return snapshot;
+        }
+
+        synchronized void add(Order order) {
+            Order[] orders = snapshot.orders;
+            int size = snapshot.size;
+            int position = size;
+            while (position > 0 && orders[position - 1].getCreatedAt().isAfter(order.getCreatedAt())) {
+                position--;
+            }
+            if (position == size && size < orders.length) {
+                orders[size] = order;
+                snapshot = new Snapshot(orders, size + 1);
+                return;
+            }
+            Order[] updated = Arrays.copyOf(orders, size == orders.length ? size * 2 : orders.length);
+            System.arraycopy(orders, position, updated, position + 1, size - position);
+            updated[position] = order;
+            snapshot = new Snapshot(updated, size + 1);
+        }
+
+        synchronized void removeAll(Map<Order, Boolean> removed) {
+            Order[] orders = snapshot.orders;
+            int size = snapshot.size;
+            List<Order> kept = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                if (!removed.containsKey(orders[i])) {
+                    kept.add(orders[i]);
+                }
+            }
+            // Sized to what is left, so removing most of a long history gives its memory back
+            Order[] compacted = kept.toArray(new Order[Math.max(4, kept.size() + 4)]);
+            snapshot = new Snapshot(compacted, kept.size());
+        }
+    }
+
+    private static final class SliceView extends AbstractList<Order> implements RandomAccess {
+        private final Order[] orders;
+        private final int start;
+        private final int end;
+        private final boolean reversed;
+
+        SliceView(Order[] orders, int start, int end, boolean reversed) {
+            this.orders = orders;
+            this.start = start;
+            this.end = end;
+            this.reversed = reversed;
+        }
+
+        @Override
+        public Order get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            return reversed ? orders[end - 1 - index] : orders[start + index];
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Reserves stock for many carts at once, each cart all-or-nothing.
+ *
+ * <p>Each product's stock is read once, and carts are allocated against those readings in
+ * submission order; a cart that cannot be covered in full gets nothing. Only the units allocated
+ * to carts are then taken from stock, one compare-and-set per product, so the batch never holds
+ * back stock that concurrent checkouts could use. If a product's stock has dropped below its
+ * allocation in the meantime, the units taken so far are put back and the allocation is redone
+ * against fresh readings. This costs one atomic update per product instead of one per cart
+ * line.</p>
+ */
+public final class BatchStockReservation {
+    private final boolean[] reserved;
+    private final RuntimeException[] failures;
+
+    private BatchStockReservation(boolean[] reserved, RuntimeException[] failures) {
+        this.reserved = reserved;
+        this.failures = failures;
+    }
+
+    /**
+     * Reserves stock for each cart's lines. Never throws for a single cart's shortfall; check
+     * {@link #isReserved(int)} and {@link #getFailure(int)} instead.
+     *
+     * @param carts         the lines of each cart; a {@code null} entry is skipped
+     * @param productLookup resolves a product ID to the catalog instance holding its stock
+     */
+    public static BatchStockReservation reserve(List<? extends Collection<CartItem>> carts,
+                                                Function<String, Product> productLookup) {
+        int cartCount = carts.size();
+        RuntimeException[] demandFailures = new RuntimeException[cartCount];
+        List<Map<String, Integer>> cartDemand = new ArrayList<>(cartCount);
+        Map<String, Product> products = new TreeMap<>();
+        Map<String, RuntimeException> lookupFailures = new HashMap<>();
+        for (int cart = 0; cart < cartCount; cart++) {
+            Map<String, Integer> demand = new HashMap<>();
+            cartDemand.add(demand);
+            if (carts.get(cart) == null) {
+                continue;
+            }
+            try {
+                for (CartItem item : carts.get(cart)) {
+                    demand.merge(item.getProduct().getId(), item.getQuantity(), Math::addExact);
+                }
+            } catch (ArithmeticException e) {
+                demandFailures[cart] = new IllegalArgumentException("Cart quantity is too large", e);
+                continue;
+            }
+            for (String productId : demand.keySet()) {
+                if (!products.containsKey(productId) && !lookupFailures.containsKey(productId)) {
+                    try {
+                        products.put(productId, productLookup.apply(productId));
+                    } catch (NoSuchElementException e) {
+                        lookupFailures.put(productId, e);
+                    }
+                }
+            }
+        }
+
+        while (true) {
+            boolean[] reserved = new boolean[cartCount];
+            RuntimeException[] failures = demandFailures.clone();
+            Map<String, Integer> available = new HashMap<>();
+            products.forEach((productId, product) -> available.put(productId, product.getStockQuantity()));
+
+            Map<String, Integer> allocated = new TreeMap<>();
+            for (int cart = 0; cart < cartCount; cart++) {
+                if (carts.get(cart) == null || failures[cart] != null) {
+                    continue;
+                }
+                RuntimeException failure = null;
+                for (Map.Entry<String, Integer> line : cartDemand.get(cart).entrySet()) {
+                    String productId = line.getKey();
+                    if (lookupFailures.containsKey(productId)) {
+                        failure = lookupFailures.get(productId);
+                        break;
+                    }
+                    if (available.get(productId) < line.getValue()) {
+                        failure = new IllegalStateException("Insufficient stock for product: " + products.get(productId).getName());
+                        break;
+                    }
+                }
+                if (failure != null) {
+                    failures[cart] = failure;
+                    continue;
+                }
+                // Both stay within the stock that was read, so neither can overflow
+                cartDemand.get(cart).forEach((productId, quantity) -> {
+                    available.merge(productId, -quantity, Integer::sum);
+                    allocated.merge(productId, quantity, Integer::sum);
+                });
+                reserved[cart] = true;
+            }
+
+            if (takeAll(allocated, products)) {
+                return new BatchStockReservation(reserved, failures);
+            }
+        }
+    }
+
+    /**
+     * Takes every allocated total from stock, in product ID order, or nothing if some product no
+     * longer has enough.
+     */
+    private static boolean takeAll(Map<String, Integer> allocated, Map<String, Product> products) {
+        List<Map.Entry<String, Integer>> taken = new ArrayList<>(allocated.size());
+        for (Map.Entry<String, Integer> entry : allocated.entrySet()) {
+            if (!products.get(entry.getKey()).tryReserveStock(entry.getValue())) {
+                // Sold elsewhere since it was read: put back what was taken and allocate again
+                for (Map.Entry<String, Integer> undo : taken) {
+                    products.get(undo.getKey()).addStock(undo.getValue());
+                }
+                return false;
+            }
+            taken.add(entry);
+        }
+        return true;
+    }
+
+    public boolean isReserved(int cart) {
+        return reserved[cart];
+    }
+
+    /**
+     * Returns why the cart's stock could not be reserved, or {@code null} if it was.
+     */
+    public RuntimeException getFailure(int cart) {
+        return failures[cart];
+    }
+}
@@ -0,0 +1,266 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.model.Product;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Soft stock reservations for carts that lapse after a time to live.
+ *
+ * <p>A cart created with holds takes its units out of stock as lines are added, so shoppers learn
+ * that a product has sold out while they shop rather than at checkout. A hold is renewed every
+ * time its line changes, and its units go back to stock if it is not claimed by checkout within
+ * the TTL. Deadlines are kept in hierarchical timing wheels rather than one scheduled task per
+ * hold: holds are spread over one wheel per CPU, each behind its own lock, and a single sweeper
+ * thread advances every wheel once per tick. Holds therefore expire up to one tick late.</p>
+ *
+ * <p>Holds are taken against the product instance added to the cart, which must be the catalog
+ * instance checkout reserves stock from.</p>
+ */
+public class CartHolds implements AutoCloseable {
+    public static final Duration DEFAULT_TICK = Duration.ofMillis(100);
+
+    private final long ttlNanos;
+    private final long tickNanos;
+    private final LongSupplier nanoClock;
+    private final long origin;
+    private final Stripe[] stripes;
+    private final LongAdder expired = new LongAdder();
+    // Null when expiry is driven through expireDue()
+    private final Thread sweeper;
+    private volatile boolean closed;
+
+    /**
+     * Creates holds that last {@code ttl}, expired by a sweeper thread every {@link #DEFAULT_TICK}.
+     */
+    public CartHolds(Duration ttl) {
+        this(ttl, DEFAULT_TICK, System::nanoTime, true);
+    }
+
+    /**
+     * Creates holds that last {@code ttl}, timed with {@code nanoClock} in steps of {@code tick}.
+     * No sweeper thread is started; holds expire only when {@link #expireDue()} is called.
+     */
+    public CartHolds(Duration ttl, Duration tick, LongSupplier nanoClock) {
+        this(ttl, tick, nanoClock, false);
+    }
+
+    private CartHolds(Duration ttl, Duration tick, LongSupplier nanoClock, boolean sweep) {
+        if (ttl == null || tick == null || nanoClock == null) {
+            throw new IllegalArgumentException("TTL, tick and clock cannot be null");
+        }
+        if (ttl.isNegative() || ttl.isZero() || tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("TTL and tick must be positive");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.tickNanos = tick.toNanos();
+        this.nanoClock = nanoClock;
+        this.origin = nanoClock.getAsLong();
+        int stripeCount = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+        if (sweep) {
+            this.sweeper = new Thread(this::runSweeper, "cart-hold-expiry");
+            this.sweeper.setDaemon(true);
+            this.sweeper.start();
+        } else {
+            this.sweeper = null;
+        }
+    }
+
+    public Duration getTtl() {
+        return Duration.ofNanos(ttlNanos);
+    }
+
+    /**
+     * Takes {@code quantity} units of {@code product} out of stock until the TTL runs out.
+     *
+     * @throws IllegalStateException if fewer units are in stock
+     */
+    public StockHold hold(Product product, int quantity) {
+        if (product == null) {
+            throw new IllegalArgumentException("Product cannot be null");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+        if (!product.tryReserveStock(quantity)) {
+            throw new IllegalStateException("Insufficient stock for product: " + product.getName());
+        }
+        int index = ThreadLocalRandom.current().nextInt(stripes.length);
+        StockHold hold = new StockHold(product, quantity, index);
+        Stripe stripe = stripes[index];
+        stripe.lock.lock();
+        try {
+            hold.timer = stripe.wheel.schedule(hold, deadline());
+        } finally {
+            stripe.lock.unlock();
+        }
+        return hold;
+    }
+
+    /**
+     * Changes an active hold to {@code quantity} units, taking or returning the difference, and
+     * restarts its TTL. If {@code hold} is {@code null} or no longer active, takes a new hold on
+     * {@code product} instead. On failure the existing hold is left as it was.
+     *
+     * @throws IllegalStateException if the extra units are not in stock
+     */
+    public StockHold resize(StockHold hold, Product product, int quantity) {
+        if (hold == null || !hold.isActive()) {
+            return hold(product, quantity);
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+        Stripe stripe = stripes[hold.stripe];
+        stripe.lock.lock();
+        try {
+            if (hold.timer != null) {
+                int extra = quantity - hold.quantity;
+                if (extra > 0 && !hold.product.tryReserveStock(extra)) {
+                    throw new IllegalStateException("Insufficient stock for product: " + hold.product.getName());
+                }
+                if (extra < 0) {
+                    hold.product.addStock(-extra);
+                }
+                hold.quantity = quantity;
+                stripe.wheel.cancel(hold.timer);
+                hold.timer = stripe.wheel.schedule(hold, deadline());
+                return hold;
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+        // Expired after the check above
+        return hold(product, quantity);
+    }
+
+    /**
+     * Ends a hold and puts its units back in stock. Does nothing if it is no longer active.
+     */
+    public void release(StockHold hold) {
+        int units = take(hold);
+        if (units > 0) {
+            hold.product.addStock(units);
+        }
+    }
+
+    /**
+     * Ends a hold without putting its units back, for checkout to turn them into an order.
+     * Returns the units now owned by the caller, or 0 if the hold is no longer active.
+     */
+    public int claim(StockHold hold) {
+        return take(hold);
+    }
+
+    /**
+     * Puts the units of every hold whose TTL has run out back in stock. Returns how many holds
+     * expired.
+     */
+    public int expireDue() {
+        long tick = (nanoClock.getAsLong() - origin) / tickNanos;
+        List<StockHold> due = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                stripe.wheel.advanceTo(tick, hold -> {
+                    hold.timer = null;
+                    hold.active = false;
+                    due.add(hold);
+                });
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        // Stock is returned outside the locks so checkouts are not held up behind a large batch
+        for (StockHold hold : due) {
+            hold.product.addStock(hold.quantity);
+        }
+        expired.add(due.size());
+        return due.size();
+    }
+
+    public int getActiveHoldCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                count += stripe.wheel.size();
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return count;
+    }
+
+    public long getExpiredCount() {
+        return expired.sum();
+    }
+
+    /**
+     * Stops the sweeper thread, if any. Holds still active keep their units.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (sweeper == null) {
+            return;
+        }
+        LockSupport.unpark(sweeper);
+        try {
+            sweeper.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int take(StockHold hold) {
+        if (hold == null) {
+            return 0;
+        }
+        Stripe stripe = stripes[hold.stripe];
+        stripe.lock.lock();
+        try {
+            if (hold.timer == null) {
+                return 0;
+            }
+            stripe.wheel.cancel(hold.timer);
+            hold.timer = null;
+            hold.active = false;
+            return hold.quantity;
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // Rounded up, so a hold never expires early
+    private long deadline() {
+        long expiresAt = nanoClock.getAsLong() - origin + ttlNanos;
+        return (expiresAt + tickNanos - 1) / tickNanos;
+    }
+
+    private void runSweeper() {
+        while (!closed) {
+            expireDue();
+            LockSupport.parkNanos(this, tickNanos);
+        }
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final TimingWheel<StockHold> wheel = new TimingWheel<>(0);
+    }
+}
@@ -0,0 +1,38 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.model.Product;
+
+/**
+ * Units of one product set aside for a cart until a deadline; see {@link CartHolds}.
+ *
+ * <p>The units are taken out of the product's stock while the hold is active. A hold stops being
+ * active when it expires or is released, which puts the units back, or when checkout claims it,
+ * which hands them to the order.</p>
+ */
+public final class StockHold {
+    final Product product;
+    final int stripe;
+    // Written under the owning stripe's lock
+    volatile int quantity;
+    // Null once expired, released or claimed
+    TimingWheel.Timer<StockHold> timer;
+    volatile boolean active = true;
+
+    StockHold(Product product, int quantity, int stripe) {
+        this.product = product;
+        this.quantity = quantity;
+        this.stripe = stripe;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
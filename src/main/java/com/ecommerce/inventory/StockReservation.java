@@ -0,0 +1,139 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * All-or-nothing stock reservation across several products.
+ *
+ * <p>Each product's stock is taken with a compare-and-set, so there are no locks and
+ * therefore no deadlocks. Lines are always reserved in product ID order: two checkouts
+ * competing for the same SKUs then contend on the same first SKU instead of each
+ * grabbing one and both failing on the other.</p>
+ */
+public final class StockReservation {
+    private final Product[] products;
+    private final int[] quantities;
+    private boolean released;
+
+    private StockReservation(Product[] products, int[] quantities) {
+        this.products = products;
+        this.quantities = quantities;
+    }
+
+    /**
+     * Reserves the stock for every line, or nothing at all.
+     *
+     * @param items         the lines to reserve; several lines for the same product are merged
+     * @param productLookup resolves a product ID to the catalog instance holding its stock
+     * @throws IllegalStateException if any product does not have enough stock
+     */
+    public static StockReservation reserve(Collection<CartItem> items, Function<String, Product> productLookup) {
+        return reserve(items, Collections.emptyMap(), productLookup);
+    }
+
+    /**
+     * Reserves the stock for every line, or nothing at all, counting units already taken out of
+     * stock for the lines, such as claimed {@link CartHolds}, towards the demand. Only the
+     * shortfall is taken from stock; the reservation then owns the held units as well, and
+     * {@link #release()} puts them back with the rest. If the reservation fails for any reason,
+     * including a product that can no longer be looked up, the held units go back to stock too.
+     *
+     * @param items         the lines to reserve; several lines for the same product are merged
+     * @param held          units already out of stock for the lines, by product ID
+     * @param productLookup resolves a product ID to the catalog instance holding its stock
+     * @throws IllegalStateException if any product does not have enough stock
+     */
+    public static StockReservation reserve(Collection<CartItem> items, Map<String, Integer> held,
+                                           Function<String, Product> productLookup) {
+        Map<String, Integer> demand = new TreeMap<>();
+        for (CartItem item : items) {
+            demand.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+
+        Product[] products = new Product[demand.size()];
+        int[] quantities = new int[demand.size()];
+        int i = 0;
+        try {
+            for (Map.Entry<String, Integer> entry : demand.entrySet()) {
+                products[i] = productLookup.apply(entry.getKey());
+                quantities[i] = entry.getValue();
+                i++;
+            }
+        } catch (RuntimeException e) {
+            returnHeld(held, productLookup);
+            throw e;
+        }
+
+        if (held.isEmpty()) {
+            for (int reserved = 0; reserved < products.length; reserved++) {
+                if (!products[reserved].tryReserveStock(quantities[reserved])) {
+                    rollback(products, quantities, reserved);
+                    throw new IllegalStateException("Insufficient stock for product: " + products[reserved].getName());
+                }
+            }
+            return new StockReservation(products, quantities);
+        }
+
+        // Held units for products no longer in the cart are not needed
+        Map<String, Integer> unneeded = new TreeMap<>(held);
+        unneeded.keySet().removeAll(demand.keySet());
+        returnHeld(unneeded, productLookup);
+        int[] shortfalls = new int[products.length];
+        i = 0;
+        for (Map.Entry<String, Integer> entry : demand.entrySet()) {
+            int units = held.getOrDefault(entry.getKey(), 0);
+            if (units > quantities[i]) {
+                products[i].addStock(units - quantities[i]);
+                units = quantities[i];
+            }
+            shortfalls[i] = quantities[i] - units;
+            i++;
+        }
+        for (int reserved = 0; reserved < products.length; reserved++) {
+            if (!products[reserved].tryReserveStock(shortfalls[reserved])) {
+                rollback(products, shortfalls, reserved);
+                int[] claimed = new int[products.length];
+                for (int j = 0; j < products.length; j++) {
+                    claimed[j] = quantities[j] - shortfalls[j];
+                }
+                rollback(products, claimed, products.length);
+                throw new IllegalStateException("Insufficient stock for product: " + products[reserved].getName());
+            }
+        }
+        return new StockReservation(products, quantities);
+    }
+
+    /**
+     * Puts the reserved stock back. Calling it more than once has no further effect.
+     */
+    public synchronized void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        rollback(products, quantities, products.length);
+    }
+
+    private static void returnHeld(Map<String, Integer> held, Function<String, Product> productLookup) {
+        held.forEach((productId, units) -> {
+            try {
+                productLookup.apply(productId).addStock(units);
+            } catch (RuntimeException e) {
+                // The product is gone; its units went with it
+            }
+        });
+    }
+
+    private static void rollback(Product[] products, int[] quantities, int count) {
+        for (int i = 0; i < count; i++) {
+            products[i].addStock(quantities[i]);
+        }
+    }
+}
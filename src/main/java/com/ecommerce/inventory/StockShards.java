@@ -0,0 +1,420 @@
+package com.ecommerce.inventory;
+
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous stock reservation with a single writer per product.
+ *
+ * <p>Products are spread over shards by ID, and each shard's stock is only changed by the shard's
+ * own thread, so checkouts of a hot SKU queue up behind each other instead of spinning on its
+ * compare-and-set. Each shard accepts at most its queue capacity of pending reservations; a
+ * reservation that finds the queue full fails with a {@link RejectedExecutionException} straight
+ * away, so callers see overload instead of piling up unbounded work. A reservation takes a queue
+ * slot on every shard it needs before it touches any stock, so a rejected reservation has not
+ * claimed anything and can simply be retried.</p>
+ *
+ * <p>A reservation spanning several shards is prepared on each of them in parallel, each part
+ * all-or-nothing. Once every part has answered, the reservation either holds all of them or, if
+ * any part failed, the parts that succeeded are put back. Put-backs go through a separate,
+ * unbounded lane that each shard drains before taking new reservations, so they are never
+ * refused and never wait behind a full queue.</p>
+ *
+ * <p>Stock changed outside the shards, such as by synchronous checkouts or cancellations, stays
+ * consistent because every stock update is atomic; it only gives up the single-writer benefit
+ * for those updates.</p>
+ */
+public final class StockShards implements AutoCloseable {
+    public static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    private final Shard[] shards;
+
+    /**
+     * Starts one shard per available CPU, each with a queue of {@value #DEFAULT_QUEUE_CAPACITY}.
+     */
+    public StockShards() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Starts {@code shardCount} shard threads, each accepting up to {@code queueCapacity} pending
+     * reservations.
+     */
+    public StockShards(int shardCount, int queueCapacity) {
+        if (shardCount <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("Shard count and queue capacity must be positive");
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard("stock-shard-" + i, queueCapacity);
+        }
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the shard that owns the stock of {@code productId}.
+     */
+    public int shardOf(String productId) {
+        int hash = productId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), shards.length);
+    }
+
+    /**
+     * Returns how many reservations are waiting in {@code shard}'s queue.
+     */
+    public int getQueuedCount(int shard) {
+        return shards[shard].requests.size();
+    }
+
+    /**
+     * Reserves the stock for every line, or nothing at all, counting units already taken out of
+     * stock for the lines, such as claimed {@link CartHolds}, towards the demand; see
+     * {@link StockReservation#reserve(Collection, Map, Function)}. Products are looked up on the
+     * calling thread.
+     *
+     * <p>The future fails with {@link IllegalStateException} if a product does not have enough
+     * stock, and with {@link RejectedExecutionException} if a shard's queue is full or the shards
+     * are closed. Either way no stock stays reserved, held units included.</p>
+     *
+     * @param items         the lines to reserve; several lines for the same product are merged
+     * @param held          units already out of stock for the lines, by product ID
+     * @param productLookup resolves a product ID to the catalog instance holding its stock
+     */
+    public CompletableFuture<ShardedReservation> reserve(Collection<CartItem> items, Map<String, Integer> held,
+                                                         Function<String, Product> productLookup) {
+        boolean[] claimed = new boolean[1];
+        CompletableFuture<ShardedReservation> reservation = reserve(items, () -> {
+            claimed[0] = true;
+            return held;
+        }, productLookup);
+        if (!claimed[0]) {
+            // Rejected before the reservation took over the held units
+            returnHeld(held, productLookup);
+        }
+        return reservation;
+    }
+
+    /**
+     * Like {@link #reserve(Collection, Map, Function)}, but only calls {@code claimHeld}, such as
+     * {@link com.ecommerce.model.ShoppingCart#claimHeldStock()}, once every shard the lines need
+     * has accepted the work. A reservation rejected because a queue is full therefore fails before
+     * anything is claimed, and the caller keeps its holds while it backs off.
+     *
+     * @param claimHeld claims the units already out of stock for the lines, by product ID
+     */
+    public CompletableFuture<ShardedReservation> reserve(Collection<CartItem> items,
+                                                         Supplier<Map<String, Integer>> claimHeld,
+                                                         Function<String, Product> productLookup) {
+        Map<String, Integer> demand = new TreeMap<>();
+        for (CartItem item : items) {
+            demand.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+
+        List<List<Map.Entry<String, Integer>>> linesByShard = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            linesByShard.add(new ArrayList<>());
+        }
+        for (Map.Entry<String, Integer> line : demand.entrySet()) {
+            linesByShard.get(shardOf(line.getKey())).add(line);
+        }
+
+        // Take a queue slot on every shard first, so a full queue rejects before anything is claimed
+        List<Shard> accepted = new ArrayList<>();
+        for (int shard = 0; shard < shards.length; shard++) {
+            if (linesByShard.get(shard).isEmpty()) {
+                continue;
+            }
+            if (!shards[shard].tryAcquireSlot()) {
+                accepted.forEach(Shard::releaseSlot);
+                return CompletableFuture.failedFuture(new RejectedExecutionException(
+                        "Stock shard " + shards[shard].name + " is " + (shards[shard].closed ? "closed" : "saturated")));
+            }
+            accepted.add(shards[shard]);
+        }
+
+        Map<String, Integer> held;
+        List<Part> parts = new ArrayList<>();
+        try {
+            held = claimHeld.get();
+        } catch (RuntimeException e) {
+            accepted.forEach(Shard::releaseSlot);
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            for (int shard = 0; shard < shards.length; shard++) {
+                List<Map.Entry<String, Integer>> lines = linesByShard.get(shard);
+                if (!lines.isEmpty()) {
+                    parts.add(new Part(shards[shard], lines, held, productLookup));
+                }
+            }
+        } catch (RuntimeException e) {
+            accepted.forEach(Shard::releaseSlot);
+            returnHeld(held, productLookup);
+            return CompletableFuture.failedFuture(e);
+        }
+        // Held units for products no longer in the cart are not needed
+        Map<String, Integer> unneeded = new TreeMap<>(held);
+        unneeded.keySet().removeAll(demand.keySet());
+        returnHeld(unneeded, productLookup);
+
+        CompletableFuture<?>[] prepared = new CompletableFuture<?>[parts.size()];
+        for (int i = 0; i < prepared.length; i++) {
+            Part part = parts.get(i);
+            if (!part.shard.submitAcquired(part::prepare)) {
+                // Closed since the slot was taken; the held units are already claimed
+                part.reject();
+            }
+            prepared[i] = part.outcome;
+        }
+
+        ShardedReservation reservation = new ShardedReservation(parts);
+        return CompletableFuture.allOf(prepared).handle((ignored, failure) -> {
+            if (failure == null) {
+                return reservation;
+            }
+            for (Part part : parts) {
+                if (!part.outcome.isCompletedExceptionally()) {
+                    part.shard.control(part::release);
+                }
+            }
+            throw failure instanceof CompletionException ? (CompletionException) failure
+                    : new CompletionException(failure);
+        });
+    }
+
+    /**
+     * Stops the shard threads once they have worked through their queues. Reservations made
+     * afterwards fail; put-backs still happen, on the calling thread.
+     */
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.close();
+        }
+    }
+
+    private void returnHeld(Map<String, Integer> held, Function<String, Product> productLookup) {
+        held.forEach((productId, units) -> {
+            try {
+                productLookup.apply(productId).addStock(units);
+            } catch (RuntimeException e) {
+                // The product is gone; its units went with it
+            }
+        });
+    }
+
+    /**
+     * Stock reserved on every shard an order touches; see {@link StockShards#reserve}.
+     */
+    public static final class ShardedReservation {
+        private final List<Part> parts;
+        private boolean released;
+
+        private ShardedReservation(List<Part> parts) {
+            this.parts = parts;
+        }
+
+        /**
+         * Puts the reserved stock back, on each shard's thread. Calling it more than once has no
+         * further effect.
+         */
+        public synchronized void release() {
+            if (released) {
+                return;
+            }
+            released = true;
+            for (Part part : parts) {
+                part.shard.control(part::release);
+            }
+        }
+    }
+
+    /**
+     * The lines of one reservation that belong to one shard. Only touched by that shard's thread
+     * once submitted.
+     */
+    private static final class Part {
+        final Shard shard;
+        final Product[] products;
+        final int[] quantities;
+        final int[] held;
+        final CompletableFuture<Void> outcome = new CompletableFuture<>();
+
+        Part(Shard shard, List<Map.Entry<String, Integer>> lines, Map<String, Integer> heldUnits,
+             Function<String, Product> productLookup) {
+            this.shard = shard;
+            this.products = new Product[lines.size()];
+            this.quantities = new int[lines.size()];
+            this.held = new int[lines.size()];
+            for (int i = 0; i < products.length; i++) {
+                Map.Entry<String, Integer> line = lines.get(i);
+                products[i] = productLookup.apply(line.getKey());
+                quantities[i] = line.getValue();
+                held[i] = heldUnits.getOrDefault(line.getKey(), 0);
+            }
+        }
+
+        void prepare() {
+            for (int i = 0; i < products.length; i++) {
+                if (held[i] > quantities[i]) {
+                    products[i].addStock(held[i] - quantities[i]);
+                    held[i] = quantities[i];
+                }
+            }
+            for (int reserved = 0; reserved < products.length; reserved++) {
+                if (!products[reserved].tryReserveStock(quantities[reserved] - held[reserved])) {
+                    for (int i = 0; i < reserved; i++) {
+                        products[i].addStock(quantities[i] - held[i]);
+                    }
+                    returnHeld();
+                    outcome.completeExceptionally(new IllegalStateException(
+                            "Insufficient stock for product: " + products[reserved].getName()));
+                    return;
+                }
+            }
+            outcome.complete(null);
+        }
+
+        void reject() {
+            shard.control(this::returnHeld);
+            outcome.completeExceptionally(new RejectedExecutionException(
+                    "Stock shard " + shard.name + " is " + (shard.closed ? "closed" : "saturated")));
+        }
+
+        void release() {
+            for (int i = 0; i < products.length; i++) {
+                products[i].addStock(quantities[i]);
+            }
+        }
+
+        private void returnHeld() {
+            for (int i = 0; i < products.length; i++) {
+                if (held[i] > 0) {
+                    products[i].addStock(held[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * One writer thread with a bounded queue of reservations and an unbounded lane of put-backs,
+     * which it always drains first. A reservation takes a slot before it is queued, and gives it
+     * back once the thread picks it up, so the queue never holds more than its capacity.
+     */
+    private static final class Shard implements Runnable {
+        final String name;
+        final ArrayBlockingQueue<Runnable> requests;
+        final Semaphore slots;
+        final ConcurrentLinkedQueue<Runnable> control = new ConcurrentLinkedQueue<>();
+        final Thread thread;
+        volatile boolean closed;
+        // Set once the thread has stopped; put-backs then run on the caller
+        volatile boolean terminated;
+
+        Shard(String name, int queueCapacity) {
+            this.name = name;
+            this.requests = new ArrayBlockingQueue<>(queueCapacity);
+            this.slots = new Semaphore(queueCapacity);
+            this.thread = new Thread(this, name);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        boolean tryAcquireSlot() {
+            return !closed && slots.tryAcquire();
+        }
+
+        void releaseSlot() {
+            slots.release();
+        }
+
+        /**
+         * Queues a task for which a slot has been acquired. Returns false, and gives the slot back,
+         * if the shard has closed in the meantime.
+         */
+        boolean submitAcquired(Runnable task) {
+            if (closed) {
+                releaseSlot();
+                return false;
+            }
+            requests.add(task);
+            // Closed while adding: take the task back unless the final drain already has it
+            if (closed && requests.remove(task)) {
+                releaseSlot();
+                return false;
+            }
+            LockSupport.unpark(thread);
+            return true;
+        }
+
+        void control(Runnable task) {
+            control.add(task);
+            if (terminated) {
+                drainControl();
+            } else {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                drainControl();
+                Runnable task = requests.poll();
+                if (task != null) {
+                    releaseSlot();
+                    task.run();
+                } else if (closed) {
+                    break;
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            terminated = true;
+            drainControl();
+            Runnable task;
+            while ((task = requests.poll()) != null) {
+                releaseSlot();
+                task.run();
+            }
+        }
+
+        private void drainControl() {
+            Runnable task;
+            while ((task = control.poll()) != null) {
+                task.run();
+            }
+        }
+    }
+}
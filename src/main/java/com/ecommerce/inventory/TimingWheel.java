@@ -0,0 +1,156 @@
+package com.ecommerce.inventory;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: timers that fire once the wheel's clock reaches a deadline tick.
+ *
+ * <p>Each level has {@value #SLOTS} slots, and each level up spans {@value #SLOTS} times the range
+ * of the one below, so eleven levels cover every {@code long} tick. A timer is filed on the
+ * lowest level whose slot width still separates its deadline from the current tick; when the
+ * clock reaches that slot, its timers are refiled one or more levels down, and level 0 timers
+ * fire when the clock reaches their tick. Scheduling and cancelling are O(1), and each timer is
+ * refiled at most once per level on its way down, however many timers are pending. Slots are
+ * intrusive doubly linked lists, so cancelling unlinks in place.</p>
+ *
+ * <p>Not thread-safe; callers synchronize.</p>
+ */
+final class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = (Long.SIZE + SLOT_BITS - 1) / SLOT_BITS;
+
+    private final Timer<T>[][] slots;
+    private long now;
+    private int size;
+
+    TimingWheel(long startTick) {
+        this.slots = newSlots();
+        this.now = startTick;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Timer<T>[][] newSlots() {
+        // Every slot only ever holds Timer<T>, so the wildcard array is safe to view as one
+        return (Timer<T>[][]) new Timer<?>[LEVELS][SLOTS];
+    }
+
+    long currentTick() {
+        return now;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Schedules {@code item} to fire at {@code deadline}. A deadline that is not after the current
+     * tick fires on the next advance.
+     */
+    Timer<T> schedule(T item, long deadline) {
+        // Overdue timers go in the next tick's slot
+        Timer<T> timer = new Timer<>(item, Math.max(deadline, now + 1));
+        file(timer);
+        size++;
+        return timer;
+    }
+
+    /**
+     * Removes a timer that has not fired yet. Returns whether it was still pending.
+     */
+    boolean cancel(Timer<T> timer) {
+        if (timer.level < 0) {
+            return false;
+        }
+        unlink(timer);
+        size--;
+        return true;
+    }
+
+    /**
+     * Moves the clock forward to {@code tick}, handing every timer whose deadline has been reached
+     * to {@code expired} in deadline order. Returns how many fired.
+     */
+    int advanceTo(long tick, Consumer<? super T> expired) {
+        int fired = 0;
+        while (now < tick) {
+            if (size == 0) {
+                now = tick;
+                break;
+            }
+            now++;
+            // A carry into a level's slot index means that slot's timers are now close enough to refile
+            for (int level = 1; level < LEVELS && (now & ((1L << (SLOT_BITS * level)) - 1)) == 0; level++) {
+                int slot = (int) (now >>> (SLOT_BITS * level)) & SLOT_MASK;
+                Timer<T> timer = slots[level][slot];
+                slots[level][slot] = null;
+                while (timer != null) {
+                    Timer<T> next = timer.next;
+                    timer.level = -1;
+                    file(timer);
+                    timer = next;
+                }
+            }
+            int slot = (int) now & SLOT_MASK;
+            Timer<T> timer = slots[0][slot];
+            slots[0][slot] = null;
+            while (timer != null) {
+                Timer<T> next = timer.next;
+                timer.level = -1;
+                timer.prev = null;
+                timer.next = null;
+                size--;
+                fired++;
+                expired.accept(timer.item);
+                timer = next;
+            }
+        }
+        return fired;
+    }
+
+    private void file(Timer<T> timer) {
+        // Zero when refiling a timer due at the current tick; it lands in the level 0 slot about to fire
+        long differing = timer.deadline ^ now;
+        int level = (Long.SIZE - 1 - Long.numberOfLeadingZeros(differing)) / SLOT_BITS;
+        int slot = (int) (timer.deadline >>> (SLOT_BITS * level)) & SLOT_MASK;
+        Timer<T> head = slots[level][slot];
+        timer.level = level;
+        timer.slot = slot;
+        timer.prev = null;
+        timer.next = head;
+        if (head != null) {
+            head.prev = timer;
+        }
+        slots[level][slot] = timer;
+    }
+
+    private void unlink(Timer<T> timer) {
+        if (timer.prev != null) {
+            timer.prev.next = timer.next;
+        } else {
+            slots[timer.level][timer.slot] = timer.next;
+        }
+        if (timer.next != null) {
+            timer.next.prev = timer.prev;
+        }
+        timer.level = -1;
+        timer.prev = null;
+        timer.next = null;
+    }
+
+    static final class Timer<T> {
+        final T item;
+        final long deadline;
+        // -1 once fired or cancelled
+        int level = -1;
+        int slot;
+        Timer<T> prev;
+        Timer<T> next;
+
+        Timer(T item, long deadline) {
+            this.item = item;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.ecommerce.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic event counter. Increments go to per-thread-striped cells, so threads counting the
+ * same event do not fight over one cache line; reading sums the cells.
+ */
+public final class Counter {
+    private final LongAdder count = new LongAdder();
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Counter can only go up: " + amount);
+        }
+        count.add(amount);
+    }
+
+    public long get() {
+        return count.sum();
+    }
+}
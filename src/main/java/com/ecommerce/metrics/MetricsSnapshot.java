@@ -0,0 +1,46 @@
+package com.ecommerce.metrics;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Point-in-time copy of every counter and latency histogram in a {@link ServiceMetrics},
+ * keyed by name in sorted order.
+ */
+public final class MetricsSnapshot {
+    private final Map<String, Long> counters;
+    private final Map<String, LatencySnapshot> latencies;
+
+    MetricsSnapshot(Map<String, Long> counters, Map<String, LatencySnapshot> latencies) {
+        this.counters = counters;
+        this.latencies = latencies;
+    }
+
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    public Map<String, LatencySnapshot> getLatencies() {
+        return latencies;
+    }
+
+    /**
+     * Returns a counter's value, or 0 if nothing has been counted under {@code name} yet.
+     */
+    public long getCounter(String name) {
+        return counters.getOrDefault(name, 0L);
+    }
+
+    public LatencySnapshot getLatency(String name) {
+        LatencySnapshot latency = latencies.get(name);
+        if (latency == null) {
+            throw new NoSuchElementException("No latency recorded under: " + name);
+        }
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return "MetricsSnapshot{counters=" + counters + ", latencies=" + latencies + "}";
+    }
+}
@@ -0,0 +1,89 @@
+package com.ecommerce.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named counters and latency histograms for one service.
+ *
+ * <p>Metrics are created on first use and live as long as the registry. Callers on a hot path
+ * should look a metric up once and keep the reference; recording into it is then lock-free.
+ * Nothing is exported until {@link #registerMBean(String)} is called.</p>
+ */
+public class ServiceMetrics implements ServiceMetricsMXBean {
+    public static final String JMX_DOMAIN = "com.ecommerce";
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+    private volatile ObjectName registeredName;
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    public LatencyHistogram latency(String name) {
+        return latencies.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(getCounters(), getLatencies());
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.get()));
+        return Collections.unmodifiableMap(values);
+    }
+
+    @Override
+    public Map<String, LatencySnapshot> getLatencies() {
+        Map<String, LatencySnapshot> values = new TreeMap<>();
+        latencies.forEach((name, histogram) -> values.put(name, histogram.snapshot()));
+        return Collections.unmodifiableMap(values);
+    }
+
+    /**
+     * Exports these metrics on the platform MBean server as
+     * {@code com.ecommerce:type=ServiceMetrics,name=<name>}.
+     *
+     * @throws IllegalStateException if this registry or another one is already registered under
+     *                               that name
+     */
+    public synchronized ObjectName registerMBean(String name) {
+        if (registeredName != null) {
+            throw new IllegalStateException("Metrics are already registered as " + registeredName);
+        }
+        try {
+            ObjectName objectName = new ObjectName(JMX_DOMAIN + ":type=ServiceMetrics,name=" + ObjectName.quote(name));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            registeredName = objectName;
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics MBean " + name, e);
+        }
+    }
+
+    /**
+     * Removes the JMX export, if any.
+     */
+    public synchronized void unregisterMBean() {
+        if (registeredName == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(registeredName);
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not unregister metrics MBean " + registeredName, e);
+        } finally {
+            registeredName = null;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.ecommerce.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of a {@link ServiceMetrics}. Latencies show up in JConsole and similar tools as
+ * composite values with count, mean, percentiles and maximum in nanoseconds.
+ */
+public interface ServiceMetricsMXBean {
+
+    Map<String, Long> getCounters();
+
+    Map<String, LatencySnapshot> getLatencies();
+}
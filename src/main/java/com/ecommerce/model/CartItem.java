@@ -36,8 +36,12 @@ public class CartItem {
         this.quantity = quantity;
     }
 
+    public Money getLineTotal() {
+        return product.getUnitPrice().times(quantity);
+    }
+
     public BigDecimal getSubtotal() {
-        return product.getPrice().multiply(BigDecimal.valueOf(quantity));
+        return getLineTotal().toBigDecimal();
     }
 
     @Override
@@ -0,0 +1,127 @@
+package com.ecommerce.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * An immutable amount of money held as a {@code long} count of the currency's minor units
+ * (cents for USD, yen for JPY).
+ *
+ * <p>Arithmetic stays in {@code long} and throws {@link ArithmeticException} on overflow instead
+ * of wrapping. Converting from a {@link BigDecimal} takes an explicit {@link RoundingMode};
+ * {@link RoundingMode#UNNECESSARY} rejects amounts finer than the currency's minor unit. Results
+ * convert back to {@link BigDecimal} at the currency's scale, so they equal the {@code BigDecimal}
+ * arithmetic they replace whenever the inputs already had that scale.</p>
+ */
+public final class Money implements Comparable<Money> {
+    public static final Currency DEFAULT_CURRENCY = Currency.getInstance("USD");
+
+    private final long minorUnits;
+    private final Currency currency;
+
+    private Money(long minorUnits, Currency currency) {
+        this.minorUnits = minorUnits;
+        this.currency = currency;
+    }
+
+    public static Money ofMinor(long minorUnits, Currency currency) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+        return new Money(minorUnits, currency);
+    }
+
+    public static Money zero(Currency currency) {
+        return ofMinor(0, currency);
+    }
+
+    public static Money of(BigDecimal amount, Currency currency, RoundingMode roundingMode) {
+        if (amount == null || currency == null || roundingMode == null) {
+            throw new IllegalArgumentException("Amount, currency and rounding mode cannot be null");
+        }
+        BigDecimal scaled = amount.setScale(fractionDigits(currency), roundingMode);
+        return new Money(scaled.unscaledValue().longValueExact(), currency);
+    }
+
+    public static Money of(BigDecimal amount) {
+        return of(amount, DEFAULT_CURRENCY, RoundingMode.UNNECESSARY);
+    }
+
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currency);
+    }
+
+    public Money times(long quantity) {
+        return new Money(Math.multiplyExact(minorUnits, quantity), currency);
+    }
+
+    /**
+     * Multiplies by a fractional factor such as a tax or discount rate, rounding the result to
+     * the currency's minor unit with {@code roundingMode}.
+     */
+    public Money times(BigDecimal factor, RoundingMode roundingMode) {
+        return of(toBigDecimal().multiply(factor), currency, roundingMode);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, fractionDigits(currency));
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minorUnits, currency);
+    }
+
+    @Override
+    public String toString() {
+        return currency.getCurrencyCode() + " " + toBigDecimal().toPlainString();
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Currency mismatch: " + currency + " and " + other.currency);
+        }
+    }
+
+    private static int fractionDigits(Currency currency) {
+        return Math.max(0, currency.getDefaultFractionDigits());
+    }
+}
@@ -2,15 +2,15 @@ package com.ecommerce.model;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 public class Order {
     private String orderId;
     private String userId;
-    private List<CartItem> items;
+    private OrderLines lines = OrderLines.empty();
     private BigDecimal totalAmount;
-    private OrderStatus status;
+    private volatile OrderStatus status;
     private LocalDateTime createdAt;
     private String shippingAddress;
 
@@ -25,20 +25,39 @@ public class Order {
     public Order() {
     }
 
-    public Order(String orderId, String userId, List<CartItem> items, String shippingAddress) {
+    public Order(String orderId, String userId, Collection<CartItem> items, String shippingAddress) {
         this.orderId = orderId;
         this.userId = userId;
-        this.items = new ArrayList<>(items);
+        this.lines = OrderLines.of(items);
         this.shippingAddress = shippingAddress;
         this.status = OrderStatus.PENDING;
         this.createdAt = LocalDateTime.now();
-        this.totalAmount = calculateTotal();
+        this.totalAmount = lines.totalAmount();
     }
 
-    private BigDecimal calculateTotal() {
-        return items.stream()
-                .map(CartItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Recreates an order exactly as it was recorded, for example when replaying a journal.
+     */
+    public Order(String orderId, String userId, Collection<CartItem> items, String shippingAddress,
+                 OrderStatus status, LocalDateTime createdAt, BigDecimal totalAmount) {
+        this(orderId, userId, OrderLines.of(items), shippingAddress, status, createdAt, totalAmount);
+    }
+
+    /**
+     * Recreates an order from lines that were already captured.
+     */
+    public Order(String orderId, String userId, OrderLines lines, String shippingAddress,
+                 OrderStatus status, LocalDateTime createdAt, BigDecimal totalAmount) {
+        if (lines == null) {
+            throw new IllegalArgumentException("Order lines cannot be null");
+        }
+        this.orderId = orderId;
+        this.userId = userId;
+        this.lines = lines;
+        this.shippingAddress = shippingAddress;
+        this.status = status;
+        this.createdAt = createdAt;
+        this.totalAmount = totalAmount;
     }
 
     // Getters and Setters
@@ -58,13 +77,24 @@ public class Order {
         this.userId = userId;
     }
 
+    /**
+     * Returns the order's lines, as captured when it was placed. Reading them does not allocate.
+     */
+    public OrderLines getLines() {
+        return lines;
+    }
+
+    /**
+     * Returns the lines as new cart items over detached products; see
+     * {@link OrderLines#toCartItems()}. Prefer {@link #getLines()}, which does not copy.
+     */
     public List<CartItem> getItems() {
-        return new ArrayList<>(items);
+        return lines.toCartItems();
     }
 
     public void setItems(List<CartItem> items) {
-        this.items = new ArrayList<>(items);
-        this.totalAmount = calculateTotal();
+        this.lines = OrderLines.of(items);
+        this.totalAmount = lines.totalAmount();
     }
 
     public BigDecimal getTotalAmount() {
@@ -95,32 +125,44 @@ public class Order {
         this.shippingAddress = shippingAddress;
     }
 
-    public void confirm() {
+    /**
+     * Moves a pending order to {@link OrderStatus#CONFIRMED}. This and the other transitions
+     * return the status they set, which a concurrent transition may already have replaced by
+     * the time {@link #getStatus()} is read.
+     */
+    public synchronized OrderStatus confirm() {
         if (status != OrderStatus.PENDING) {
             throw new IllegalStateException("Only pending orders can be confirmed");
         }
         this.status = OrderStatus.CONFIRMED;
+        return status;
     }
 
-    public void ship() {
+    public synchronized OrderStatus ship() {
         if (status != OrderStatus.CONFIRMED) {
             throw new IllegalStateException("Only confirmed orders can be shipped");
         }
         this.status = OrderStatus.SHIPPED;
+        return status;
     }
 
-    public void deliver() {
+    public synchronized OrderStatus deliver() {
         if (status != OrderStatus.SHIPPED) {
             throw new IllegalStateException("Only shipped orders can be delivered");
         }
         this.status = OrderStatus.DELIVERED;
+        return status;
     }
 
-    public void cancel() {
+    public synchronized OrderStatus cancel() {
         if (status == OrderStatus.DELIVERED) {
             throw new IllegalStateException("Delivered orders cannot be cancelled");
         }
+        if (status == OrderStatus.CANCELLED) {
+            throw new IllegalStateException("Order is already cancelled");
+        }
         this.status = OrderStatus.CANCELLED;
+        return status;
     }
 
     @Override
@@ -0,0 +1,199 @@
+package com.ecommerce.model;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.List;
+
+/**
+ * The lines of an order as captured when it was placed: for each line the product's ID, name and
+ * category, the quantity and the unit price in minor units, all in one currency.
+ *
+ * <p>Lines are kept in flat primitive and string arrays rather than as {@code CartItem}s, so an
+ * order holds no reference to the live catalog {@link Product}: later price, name or stock changes
+ * do not show up in it. Instances are immutable. Read lines by index to iterate without
+ * allocating.</p>
+ */
+public final class OrderLines {
+    private static final OrderLines EMPTY =
+            new OrderLines(Money.DEFAULT_CURRENCY, new String[0], new int[0], new long[0]);
+
+    private final Currency currency;
+    // Three entries per line: product ID, name, category
+    private final String[] text;
+    private final int[] quantities;
+    private final long[] unitPrices;
+
+    private OrderLines(Currency currency, String[] text, int[] quantities, long[] unitPrices) {
+        this.currency = currency;
+        this.text = text;
+        this.quantities = quantities;
+        this.unitPrices = unitPrices;
+    }
+
+    public static OrderLines empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Captures the products, quantities and current unit prices of {@code items}.
+     *
+     * @throws IllegalArgumentException if a product has no price, or the items are priced in
+     *                                  more than one currency
+     */
+    public static OrderLines of(Collection<CartItem> items) {
+        if (items.isEmpty()) {
+            return EMPTY;
+        }
+        Builder builder = null;
+        for (CartItem item : items) {
+            Product product = item.getProduct();
+            Money unitPrice = product.getUnitPrice();
+            if (unitPrice == null) {
+                throw new IllegalArgumentException("Product has no price: " + product.getId());
+            }
+            if (builder == null) {
+                builder = builder(unitPrice.getCurrency(), items.size());
+            } else if (!builder.currency.equals(unitPrice.getCurrency())) {
+                throw new IllegalArgumentException("Currency mismatch: " + builder.currency + " and " + unitPrice.getCurrency());
+            }
+            builder.add(product.getId(), product.getName(), product.getCategory(), item.getQuantity(),
+                    unitPrice.getMinorUnits());
+        }
+        return builder.build();
+    }
+
+    public static Builder builder(Currency currency, int expectedLines) {
+        return new Builder(currency, expectedLines);
+    }
+
+    public int size() {
+        return quantities.length;
+    }
+
+    public boolean isEmpty() {
+        return quantities.length == 0;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    public String getProductId(int line) {
+        return text[3 * checkLine(line)];
+    }
+
+    public String getProductName(int line) {
+        return text[3 * checkLine(line) + 1];
+    }
+
+    public String getCategory(int line) {
+        return text[3 * checkLine(line) + 2];
+    }
+
+    public int getQuantity(int line) {
+        return quantities[line];
+    }
+
+    public long getUnitPriceMinorUnits(int line) {
+        return unitPrices[line];
+    }
+
+    public Money getUnitPrice(int line) {
+        return Money.ofMinor(unitPrices[line], currency);
+    }
+
+    public Money getLineTotal(int line) {
+        return Money.ofMinor(Math.multiplyExact(unitPrices[line], (long) quantities[line]), currency);
+    }
+
+    public Money getTotal() {
+        long total = 0;
+        for (int line = 0; line < quantities.length; line++) {
+            total = Math.addExact(total, Math.multiplyExact(unitPrices[line], (long) quantities[line]));
+        }
+        return Money.ofMinor(total, currency);
+    }
+
+    /**
+     * Returns the lines as cart items over new, detached products carrying the captured ID, name,
+     * category and unit price, with no stock.
+     */
+    public List<CartItem> toCartItems() {
+        List<CartItem> items = new ArrayList<>(quantities.length);
+        for (int line = 0; line < quantities.length; line++) {
+            Product product = new Product(getProductId(line), getProductName(line), null, null, 0, getCategory(line));
+            // Currency first, so the price is checked against the right number of minor digits
+            product.setCurrency(currency);
+            product.setPrice(getUnitPrice(line).toBigDecimal());
+            items.add(new CartItem(product, quantities[line]));
+        }
+        return items;
+    }
+
+    /**
+     * The total as a {@code BigDecimal}, zero for an order with no lines.
+     */
+    BigDecimal totalAmount() {
+        return isEmpty() ? BigDecimal.ZERO : getTotal().toBigDecimal();
+    }
+
+    private int checkLine(int line) {
+        if (line < 0 || line >= quantities.length) {
+            throw new IndexOutOfBoundsException("Line: " + line + ", size: " + quantities.length);
+        }
+        return line;
+    }
+
+    public static final class Builder {
+        private final Currency currency;
+        private String[] text;
+        private int[] quantities;
+        private long[] unitPrices;
+        private int size;
+
+        private Builder(Currency currency, int expectedLines) {
+            if (currency == null) {
+                throw new IllegalArgumentException("Currency cannot be null");
+            }
+            int capacity = Math.max(expectedLines, 1);
+            this.currency = currency;
+            this.text = new String[3 * capacity];
+            this.quantities = new int[capacity];
+            this.unitPrices = new long[capacity];
+        }
+
+        public Builder add(String productId, String name, String category, int quantity, long unitPriceMinorUnits) {
+            if (productId == null) {
+                throw new IllegalArgumentException("Product ID cannot be null");
+            }
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than 0");
+            }
+            if (size == quantities.length) {
+                text = Arrays.copyOf(text, 6 * size);
+                quantities = Arrays.copyOf(quantities, 2 * size);
+                unitPrices = Arrays.copyOf(unitPrices, 2 * size);
+            }
+            text[3 * size] = productId;
+            text[3 * size + 1] = name;
+            text[3 * size + 2] = category;
+            quantities[size] = quantity;
+            unitPrices[size] = unitPriceMinorUnits;
+            size++;
+            return this;
+        }
+
+        public OrderLines build() {
+            if (size == 0) {
+                return currency.equals(EMPTY.currency) ? EMPTY : new OrderLines(currency, new String[0], new int[0], new long[0]);
+            }
+            return new OrderLines(currency,
+                    text.length == 3 * size ? text : Arrays.copyOf(text, 3 * size),
+                    quantities.length == size ? quantities : Arrays.copyOf(quantities, size),
+                    unitPrices.length == size ? unitPrices : Arrays.copyOf(unitPrices, size));
+        }
+    }
+}
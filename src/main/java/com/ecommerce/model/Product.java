@@ -1,13 +1,25 @@
 package com.ecommerce.model;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 public class Product {
+    /** How prices finer than the currency's minor unit are rounded. */
+    public static final RoundingMode PRICE_ROUNDING = RoundingMode.HALF_EVEN;
+
+    private static final AtomicIntegerFieldUpdater<Product> STOCK =
+            AtomicIntegerFieldUpdater.newUpdater(Product.class, "stockQuantity");
+
     private String id;
     private String name;
     private String description;
     private BigDecimal price;
-    private int stockQuantity;
+    private Currency currency = Money.DEFAULT_CURRENCY;
+    // Price in minor units of the currency, used by the cart and order arithmetic
+    private Money unitPrice;
+    private volatile int stockQuantity;
     private String category;
 
     public Product() {
@@ -17,7 +29,7 @@ public class Product {
         this.id = id;
         this.name = name;
         this.description = description;
-        this.price = price;
+        setPrice(price);
         this.stockQuantity = stockQuantity;
         this.category = category;
     }
@@ -51,8 +63,36 @@ public class Product {
         return price;
     }
 
+    /**
+     * Sets the price. A price finer than the currency's minor unit, such as {@code 9.999} for
+     * USD, is rounded to it with {@link #PRICE_ROUNDING}; any other price is kept as given.
+     */
     public void setPrice(BigDecimal price) {
-        this.price = price;
+        BigDecimal rounded = roundToCurrency(price, currency);
+        this.unitPrice = rounded == null ? null : Money.of(rounded, currency, RoundingMode.UNNECESSARY);
+        this.price = rounded;
+    }
+
+    public Money getUnitPrice() {
+        return unitPrice;
+    }
+
+    public Currency getCurrency() {
+        return currency;
+    }
+
+    /**
+     * Sets the currency the price is in. The amount is kept, rounded with {@link #PRICE_ROUNDING}
+     * if the new currency has fewer minor digits, so USD 9.99 becomes JPY 10.
+     */
+    public void setCurrency(Currency currency) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+        BigDecimal rounded = roundToCurrency(price, currency);
+        this.unitPrice = rounded == null ? null : Money.of(rounded, currency, RoundingMode.UNNECESSARY);
+        this.price = rounded;
+        this.currency = currency;
     }
 
     public int getStockQuantity() {
@@ -63,6 +103,14 @@ public class Product {
         this.stockQuantity = stockQuantity;
     }
 
+    /**
+     * Sets the stock and returns what it was, so the change can be accounted for exactly even
+     * while reservations race with it.
+     */
+    public int getAndSetStockQuantity(int stockQuantity) {
+        return STOCK.getAndSet(this, stockQuantity);
+    }
+
     public String getCategory() {
         return category;
     }
@@ -75,18 +123,40 @@ public class Product {
         return stockQuantity > 0;
     }
 
+    /**
+     * Atomically takes {@code quantity} units from stock if that many are available.
+     * Never leaves the stock negative, no matter how many threads race on it.
+     */
+    public boolean tryReserveStock(int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        int current;
+        do {
+            current = stockQuantity;
+            if (current < quantity) {
+                return false;
+            }
+        } while (!STOCK.compareAndSet(this, current, current - quantity));
+        return true;
+    }
+
     public void reduceStock(int quantity) {
-        if (quantity > stockQuantity) {
+        if (!tryReserveStock(quantity)) {
             throw new IllegalArgumentException("Insufficient stock. Available: " + stockQuantity);
         }
-        this.stockQuantity -= quantity;
     }
 
     public void addStock(int quantity) {
         if (quantity < 0) {
             throw new IllegalArgumentException("Quantity cannot be negative");
         }
-        this.stockQuantity += quantity;
+        STOCK.addAndGet(this, quantity);
+    }
+
+    private static BigDecimal roundToCurrency(BigDecimal price, Currency currency) {
+        int digits = Math.max(0, currency.getDefaultFractionDigits());
+        return price == null || price.scale() <= digits ? price : price.setScale(digits, PRICE_ROUNDING);
     }
 
     @Override
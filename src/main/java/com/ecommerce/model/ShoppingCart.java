@@ -1,31 +1,76 @@
 package com.ecommerce.model;
 
-import java.math.BigDecimal;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import com.ecommerce.inventory.CartHolds;
+import com.ecommerce.inventory.StockHold;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A user's cart, with one line per product in the order the products were first added.
+ *
+ * <p>Lines are keyed by product ID, and the total and item count are kept up to date on every
+ * change instead of being recomputed on each read. The total is kept as {@link Money}; all
+ * products in a cart must share one currency. The running total prices each line at the
+ * moment the line changes, and a change takes back exactly what the line last added; call
+ * {@link #reprice()} after changing the price of a product that is already in the cart to bring
+ * every line up to date. Change quantities through the cart rather than on the {@link CartItem}s
+ * themselves, or the item count goes stale.</p>
+ *
+ * <p>A cart created with {@link CartHolds} holds stock for each line while the shopper shops: the
+ * line's units are taken out of stock when it is added and renewed whenever it changes, and a
+ * line that cannot be held is rejected with an {@link IllegalStateException}. Checkout claims the
+ * holds that are still active; expired ones are reserved again from stock.</p>
+ */
 public class ShoppingCart {
     private String userId;
-    private List<CartItem> items;
+    private final Map<String, CartItem> items;
+    private final Collection<CartItem> itemsView;
+    // Null while the cart is empty, so an empty cart has no currency yet
+    private Money total;
+    // What each line last added to the total, so a later price change cannot skew the total
+    private final Map<String, Money> pricedLines;
+    private int itemCount;
+    // Null unless stock is held for the lines
+    private final CartHolds holds;
+    private final Map<String, StockHold> heldStock;
 
     public ShoppingCart(String userId) {
+        this(userId, null);
+    }
+
+    public ShoppingCart(String userId, CartHolds holds) {
         this.userId = userId;
-        this.items = new ArrayList<>();
+        this.items = new LinkedHashMap<>();
+        this.itemsView = Collections.unmodifiableCollection(items.values());
+        this.pricedLines = new HashMap<>();
+        this.holds = holds;
+        this.heldStock = holds == null ? null : new HashMap<>();
     }
 
     public String getUserId() {
         return userId;
     }
 
-    public List<CartItem> getItems() {
-        return new ArrayList<>(items);
+    /**
+     * Returns a read-only, live view of the cart lines in insertion order.
+     */
+    public Collection<CartItem> getItems() {
+        return itemsView;
     }
 
     public void addItem(Product product, int quantity) {
         if (product == null) {
             throw new IllegalArgumentException("Product cannot be null");
         }
+        if (holds != null) {
+            addHeldItem(product, quantity);
+            return;
+        }
         if (!product.isInStock()) {
             throw new IllegalStateException("Product is out of stock");
         }
@@ -33,56 +78,156 @@ public class ShoppingCart {
             throw new IllegalArgumentException("Requested quantity exceeds available stock");
         }
 
-        Optional<CartItem> existingItem = items.stream()
-                .filter(item -> item.getProduct().getId().equals(product.getId()))
-                .findFirst();
-
-        if (existingItem.isPresent()) {
-            CartItem item = existingItem.get();
-            int newQuantity = item.getQuantity() + quantity;
+        CartItem existingItem = items.get(product.getId());
+        if (existingItem != null) {
+            int newQuantity = existingItem.getQuantity() + quantity;
             if (newQuantity > product.getStockQuantity()) {
                 throw new IllegalArgumentException("Total quantity exceeds available stock");
             }
-            item.setQuantity(newQuantity);
+            changeQuantity(existingItem, newQuantity);
         } else {
-            items.add(new CartItem(product, quantity));
+            addLine(product, quantity);
         }
     }
 
+    /**
+     * Ends the holds on this cart's lines without returning their units to stock, and returns the
+     * units each product had held, for checkout to turn into an order. Returns an empty map for a
+     * cart without holds.
+     */
+    public Map<String, Integer> claimHeldStock() {
+        if (holds == null || heldStock.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> claimed = new HashMap<>();
+        heldStock.forEach((productId, hold) -> {
+            int units = holds.claim(hold);
+            if (units > 0) {
+                claimed.put(productId, units);
+            }
+        });
+        heldStock.clear();
+        return claimed;
+    }
+
     public void removeItem(String productId) {
-        items.removeIf(item -> item.getProduct().getId().equals(productId));
+        CartItem item = items.remove(productId);
+        if (item == null) {
+            return;
+        }
+        if (holds != null) {
+            holds.release(heldStock.remove(productId));
+        }
+        Money lineTotal = pricedLines.remove(productId);
+        if (items.isEmpty()) {
+            total = null;
+            itemCount = 0;
+        } else {
+            total = total.minus(lineTotal);
+            itemCount -= item.getQuantity();
+        }
     }
 
     public void updateItemQuantity(String productId, int quantity) {
-        CartItem item = items.stream()
-                .filter(i -> i.getProduct().getId().equals(productId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Product not found in cart"));
+        CartItem item = items.get(productId);
+        if (item == null) {
+            throw new IllegalArgumentException("Product not found in cart");
+        }
 
-        if (quantity > item.getProduct().getStockQuantity()) {
+        if (holds == null && quantity > item.getProduct().getStockQuantity()) {
             throw new IllegalArgumentException("Requested quantity exceeds available stock");
         }
-        item.setQuantity(quantity);
+        changeQuantity(item, quantity);
     }
 
     public void clear() {
+        if (holds != null) {
+            heldStock.values().forEach(holds::release);
+            heldStock.clear();
+        }
         items.clear();
+        pricedLines.clear();
+        total = null;
+        itemCount = 0;
+    }
+
+    /**
+     * Recomputes the total and item count from the current lines and product prices.
+     */
+    public void reprice() {
+        Money newTotal = null;
+        int newCount = 0;
+        for (CartItem item : items.values()) {
+            Money lineTotal = item.getLineTotal();
+            pricedLines.put(item.getProduct().getId(), lineTotal);
+            newTotal = newTotal == null ? lineTotal : newTotal.plus(lineTotal);
+            newCount += item.getQuantity();
+        }
+        total = newTotal;
+        itemCount = newCount;
     }
 
     public BigDecimal getTotal() {
-        return items.stream()
-                .map(CartItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return total == null ? BigDecimal.ZERO : total.toBigDecimal();
+    }
+
+    public Money getTotalMoney() {
+        return total == null ? Money.zero(Money.DEFAULT_CURRENCY) : total;
     }
 
     public int getItemCount() {
-        return items.stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
+        return itemCount;
     }
 
     public boolean isEmpty() {
         return items.isEmpty();
     }
-}
 
+    private void addHeldItem(Product product, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+        CartItem existingItem = items.get(product.getId());
+        if (existingItem != null) {
+            changeQuantity(existingItem, Math.addExact(existingItem.getQuantity(), quantity));
+        } else {
+            addLine(product, quantity);
+        }
+    }
+
+    private void addLine(Product product, int quantity) {
+        CartItem item = new CartItem(product, quantity);
+        Money lineTotal = item.getLineTotal();
+        Money newTotal = total == null ? lineTotal : total.plus(lineTotal);
+        // Held last, once nothing else can fail, so no units are held for a line the cart rejects
+        if (holds != null) {
+            hold(product, quantity);
+        }
+        total = newTotal;
+        items.put(product.getId(), item);
+        pricedLines.put(product.getId(), lineTotal);
+        itemCount += quantity;
+    }
+
+    private void hold(Product product, int quantity) {
+        heldStock.put(product.getId(), holds.resize(heldStock.get(product.getId()), product, quantity));
+    }
+
+    private void changeQuantity(CartItem item, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than 0");
+        }
+        String productId = item.getProduct().getId();
+        // Price the change before touching the line, so an overflow leaves the cart as it was
+        Money lineTotal = item.getProduct().getUnitPrice().times(quantity);
+        Money newTotal = total.minus(pricedLines.get(productId)).plus(lineTotal);
+        if (holds != null) {
+            hold(item.getProduct(), quantity);
+        }
+        int oldQuantity = item.getQuantity();
+        item.setQuantity(quantity);
+        pricedLines.put(productId, lineTotal);
+        total = newTotal;
+        itemCount += quantity - oldQuantity;
+    }
+}
@@ -0,0 +1,308 @@
+package com.ecommerce.persistence;
+
+import com.ecommerce.model.Product;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary snapshot of a product catalog.
+ *
+ * <p>Layout, all big-endian:</p>
+ * <pre>
+ * int magic, int version, int productCount
+ * int categoryCount, categoryCount x string      (category dictionary)
+ * int currencyCount, currencyCount x string      (currency code dictionary)
+ * productCount x record
+ *
+ * record: int recordLength, string id, string name, string description,
+ *         int priceScale, long priceUnscaled, int stockQuantity,
+ *         int categoryIndex, int currencyIndex
+ * string: int byteLength (-1 for null), UTF-8 bytes
+ * </pre>
+ *
+ * <p>Categories and currencies repeat across millions of products, so records refer to them by
+ * dictionary index and the loader shares one {@code String} per category. Prices are stored as
+ * unscaled value and scale, so they load back {@code equals} to what was saved; a null price has
+ * scale {@link Integer#MIN_VALUE}. Files are read through memory-mapped windows of up to 1 GB.</p>
+ */
+public final class CatalogSnapshot {
+    private static final int MAGIC = 0x50434154;
+    private static final int VERSION = 1;
+    private static final int NULL_PRICE_SCALE = Integer.MIN_VALUE;
+    private static final long MAX_WINDOW = 1L << 30;
+
+    private CatalogSnapshot() {
+    }
+
+    /**
+     * Writes {@code products} to {@code path}, replacing it atomically. The new file is forced to
+     * disk before it takes the place of the old one, and nothing is left behind on failure.
+     *
+     * @throws ArithmeticException if a price's unscaled value does not fit in a {@code long}
+     */
+    public static void write(Path path, Collection<Product> products) {
+        Map<String, Integer> categories = new LinkedHashMap<>();
+        Map<String, Integer> currencies = new LinkedHashMap<>();
+        for (Product product : products) {
+            if (product.getCategory() != null) {
+                categories.putIfAbsent(product.getCategory(), categories.size());
+            }
+            currencies.putIfAbsent(product.getCurrency().getCurrencyCode(), currencies.size());
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+                writeContents(out, products, categories, currencies);
+                out.flush();
+                // On disk before the rename, so a crash never leaves a short file under the real name
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Could not write catalog snapshot " + path, e);
+        } catch (RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    private static void writeContents(DataOutputStream out, Collection<Product> products,
+                                      Map<String, Integer> categories, Map<String, Integer> currencies)
+            throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(products.size());
+        writeDictionary(out, categories);
+        writeDictionary(out, currencies);
+
+        RecordBuffer record = new RecordBuffer();
+        for (Product product : products) {
+            record.clear();
+            record.putString(product.getId());
+            record.putString(product.getName());
+            record.putString(product.getDescription());
+            BigDecimal price = product.getPrice();
+            if (price == null) {
+                record.putInt(NULL_PRICE_SCALE);
+                record.putLong(0);
+            } else {
+                record.putInt(price.scale());
+                record.putLong(price.unscaledValue().longValueExact());
+            }
+            record.putInt(product.getStockQuantity());
+            record.putInt(product.getCategory() == null ? -1 : categories.get(product.getCategory()));
+            record.putInt(currencies.get(product.getCurrency().getCurrencyCode()));
+            out.writeInt(record.size());
+            out.write(record.bytes, 0, record.size());
+        }
+    }
+
+    private static void deleteQuietly(Path temp) {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            // Left for the next write to truncate
+        }
+    }
+
+    /**
+     * Loads every product from a snapshot, in the order they were written.
+     */
+    public static List<Product> read(Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            Reader reader = new Reader(channel);
+            reader.ensure(3 * Integer.BYTES);
+            if (reader.buffer.getInt() != MAGIC) {
+                throw new IOException("Not a catalog snapshot: " + path);
+            }
+            int version = reader.buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported catalog snapshot version: " + version);
+            }
+            int productCount = reader.buffer.getInt();
+            String[] categories = reader.readDictionary();
+            String[] currencyCodes = reader.readDictionary();
+            Currency[] currencies = new Currency[currencyCodes.length];
+            for (int i = 0; i < currencies.length; i++) {
+                currencies[i] = Currency.getInstance(currencyCodes[i]);
+            }
+
+            List<Product> products = new ArrayList<>(productCount);
+            for (int i = 0; i < productCount; i++) {
+                int recordLength = reader.nextRecord();
+                int start = reader.buffer.position();
+                ByteBuffer buffer = reader.buffer;
+                String id = reader.readString();
+                String name = reader.readString();
+                String description = reader.readString();
+                int scale = buffer.getInt();
+                long unscaled = buffer.getLong();
+                int stock = buffer.getInt();
+                int category = buffer.getInt();
+                int currency = buffer.getInt();
+
+                Product product = new Product(id, name, description, null, stock, category < 0 ? null : categories[category]);
+                product.setCurrency(currencies[currency]);
+                if (scale != NULL_PRICE_SCALE) {
+                    product.setPrice(BigDecimal.valueOf(unscaled, scale));
+                }
+                products.add(product);
+                buffer.position(start + recordLength);
+            }
+            return products;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read catalog snapshot " + path, e);
+        }
+    }
+
+    private static void writeDictionary(DataOutputStream out, Map<String, Integer> dictionary) throws IOException {
+        out.writeInt(dictionary.size());
+        for (String value : dictionary.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Walks the file through memory-mapped windows, remapping whenever the next record would
+     * cross the end of the current window.
+     */
+    private static final class Reader {
+        private final FileChannel channel;
+        private final long fileSize;
+        private MappedByteBuffer buffer;
+        private long windowStart;
+        private byte[] scratch = new byte[256];
+
+        Reader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.fileSize = channel.size();
+            map(0);
+        }
+
+        String[] readDictionary() throws IOException {
+            ensure(Integer.BYTES);
+            String[] values = new String[buffer.getInt()];
+            for (int i = 0; i < values.length; i++) {
+                ensure(Integer.BYTES);
+                int length = buffer.getInt(buffer.position());
+                ensure(Integer.BYTES + Math.max(length, 0));
+                values[i] = readString();
+            }
+            return values;
+        }
+
+        /**
+         * Makes sure the next record is fully inside the window and returns its length.
+         */
+        int nextRecord() throws IOException {
+            ensure(Integer.BYTES);
+            int length = buffer.getInt(buffer.position());
+            ensure(Integer.BYTES + (long) length);
+            return buffer.getInt();
+        }
+
+        String readString() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > scratch.length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+            buffer.get(scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void ensure(long bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            long position = windowStart + buffer.position();
+            if (position + bytes > fileSize) {
+                throw new IOException("Catalog snapshot is truncated");
+            }
+            map(position);
+        }
+
+        private void map(long position) throws IOException {
+            long length = Math.min(MAX_WINDOW, fileSize - position);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            windowStart = position;
+        }
+    }
+
+    /**
+     * Growable big-endian buffer for one record, reused across records.
+     */
+    private static final class RecordBuffer {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        void clear() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        void putString(String value) {
+            if (value == null) {
+                putInt(-1);
+                return;
+            }
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            putInt(encoded.length);
+            ensure(encoded.length);
+            System.arraycopy(encoded, 0, bytes, size, encoded.length);
+            size += encoded.length;
+        }
+
+        void putInt(int value) {
+            ensure(Integer.BYTES);
+            bytes[size++] = (byte) (value >>> 24);
+            bytes[size++] = (byte) (value >>> 16);
+            bytes[size++] = (byte) (value >>> 8);
+            bytes[size++] = (byte) value;
+        }
+
+        void putLong(long value) {
+            putInt((int) (value >>> 32));
+            putInt((int) value);
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                byte[] grown = new byte[Math.max(bytes.length * 2, size + extra)];
+                System.arraycopy(bytes, 0, grown, 0, size);
+                bytes = grown;
+            }
+        }
+    }
+}
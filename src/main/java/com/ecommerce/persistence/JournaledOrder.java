@@ -0,0 +1,73 @@
+package com.ecommerce.persistence;
+
+import java.time.LocalDateTime;
+
+/**
+ * An order as read back from the {@link OrderJournal}: the values captured when it was created,
+ * with its lines as parallel arrays.
+ */
+public class JournaledOrder {
+    private final String orderId;
+    private final String userId;
+    private final String shippingAddress;
+    private final LocalDateTime createdAt;
+    private final String currencyCode;
+    private final long totalMinorUnits;
+    private final String[] productIds;
+    private final int[] quantities;
+    private final long[] unitPriceMinorUnits;
+
+    public JournaledOrder(String orderId, String userId, String shippingAddress, LocalDateTime createdAt,
+                          String currencyCode, long totalMinorUnits,
+                          String[] productIds, int[] quantities, long[] unitPriceMinorUnits) {
+        this.orderId = orderId;
+        this.userId = userId;
+        this.shippingAddress = shippingAddress;
+        this.createdAt = createdAt;
+        this.currencyCode = currencyCode;
+        this.totalMinorUnits = totalMinorUnits;
+        this.productIds = productIds;
+        this.quantities = quantities;
+        this.unitPriceMinorUnits = unitPriceMinorUnits;
+    }
+
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getShippingAddress() {
+        return shippingAddress;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getCurrencyCode() {
+        return currencyCode;
+    }
+
+    public long getTotalMinorUnits() {
+        return totalMinorUnits;
+    }
+
+    public int getLineCount() {
+        return productIds.length;
+    }
+
+    public String getProductId(int line) {
+        return productIds[line];
+    }
+
+    public int getQuantity(int line) {
+        return quantities[line];
+    }
+
+    public long getUnitPriceMinorUnits(int line) {
+        return unitPriceMinorUnits[line];
+    }
+}
@@ -0,0 +1,706 @@
+package com.ecommerce.persistence;
+
+import com.ecommerce.model.Money;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderLines;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped journal of order creations, status changes and stock adjustments.
+ *
+ * <p>The file starts with a 12-byte header (magic, version, segment size) and is mapped in
+ * fixed-size segments. Each record is {@code [int bodyLength][int crc32(body)][body]}, where the
+ * body starts with a record type byte; records never straddle a segment, and a length of
+ * {@code -1} marks the unused tail of a segment. A zero length or a checksum mismatch marks the
+ * end of the log, so a record torn by a crash is dropped on the next open.</p>
+ *
+ * <p>Appends copy the record into the mapped segment under a short lock and return at once. A
+ * background committer forces dirty segments to disk every commit interval, so many appends
+ * share one {@code force}. Callers that need durability can wait with {@link #awaitCommit(long)}
+ * or force immediately with {@link #commit()}. Once a {@code force} has failed, the journal
+ * cannot tell which records reached the disk, so every later commit and wait fails with the
+ * same cause.</p>
+ *
+ * <p>{@link #compact(Supplier)} rewrites the journal as one stock adjustment per product, the
+ * sum of its earlier ones, followed by one creation record per order plus its latest status.
+ * It can run automatically from the committer thread. Records appended
+ * while a compaction runs are copied after the rewritten ones, and may repeat a creation or an
+ * older status the rewritten records already reflect. Replay handlers must therefore ignore a
+ * creation for an order they already have, and a status that does not move the order past the
+ * one it has; every legal transition moves to a later {@link Order.OrderStatus}.</p>
+ */
+public class OrderJournal implements AutoCloseable {
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final long DEFAULT_COMMIT_INTERVAL_MILLIS = 2;
+
+    private static final int MAGIC = 0x4F4A524E;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int END_OF_SEGMENT = -1;
+    private static final byte ORDER_CREATED = 1;
+    private static final byte STATUS_CHANGED = 2;
+    private static final byte STOCK_ADJUSTED = 3;
+    private static final Order.OrderStatus[] STATUSES = Order.OrderStatus.values();
+    private static final Logger log = LoggerFactory.getLogger(OrderJournal.class);
+
+    /**
+     * Receives the journal's records in order while it is opened.
+     */
+    public interface Handler {
+
+        void orderCreated(JournaledOrder order);
+
+        void statusChanged(String orderId, Order.OrderStatus status);
+
+        /**
+         * A signed change to a product's stock that no order or cancellation accounts for, such
+         * as a restock. Adjustments commute, so their position among other records carries no
+         * meaning.
+         */
+        default void stockAdjusted(String productId, long units) {
+        }
+    }
+
+    private final Path path;
+    private final int segmentSize;
+    private final long commitIntervalNanos;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    // Serializes compactions, which take the append lock only at their start and end
+    private final ReentrantLock compactLock = new ReentrantLock();
+    private final Object commitMonitor = new Object();
+    private final Thread committer;
+    private SegmentWriter writer;
+    private long recordCount;
+    private long appendedSequence;
+    private volatile long committedSequence;
+    // Set once a force fails; commits and waits rethrow it from then on
+    private volatile RuntimeException commitFailure;
+    private volatile boolean closed;
+    private volatile Supplier<? extends Collection<Order>> compactionSource;
+    private volatile long compactionMinRecords;
+
+    private OrderJournal(Path path, int segmentSize, long commitIntervalMillis, Handler handler) throws IOException {
+        this.path = path;
+        this.commitIntervalNanos = TimeUnit.MILLISECONDS.toNanos(commitIntervalMillis);
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                writeHeader(channel, segmentSize);
+                this.segmentSize = segmentSize;
+            } else {
+                this.segmentSize = readHeader(channel);
+            }
+            this.writer = recover(channel, handler);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        this.committer = new Thread(this::runCommitter, "order-journal-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    public static OrderJournal open(Path path, Handler handler) {
+        return open(path, DEFAULT_SEGMENT_SIZE, DEFAULT_COMMIT_INTERVAL_MILLIS, handler);
+    }
+
+    /**
+     * Opens or creates a journal, replaying its records into {@code handler} if it is not null.
+     * The segment size only applies to a new file; an existing file keeps its own.
+     */
+    public static OrderJournal open(Path path, int segmentSize, long commitIntervalMillis, Handler handler) {
+        if (path == null) {
+            throw new IllegalArgumentException("Journal path cannot be null");
+        }
+        if (segmentSize < 4096 || commitIntervalMillis <= 0) {
+            throw new IllegalArgumentException("Segment size must be at least 4096 and the commit interval positive");
+        }
+        try {
+            return new OrderJournal(path, segmentSize, commitIntervalMillis, handler);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open order journal " + path, e);
+        }
+    }
+
+    /**
+     * Appends a creation record and returns its sequence number for {@link #awaitCommit(long)}.
+     */
+    public long appendOrderCreated(Order order) {
+        return append(encodeOrderCreated(order));
+    }
+
+    public long appendStatusChanged(String orderId, Order.OrderStatus status) {
+        return append(encodeStatusChanged(orderId, status));
+    }
+
+    public long appendStockAdjusted(String productId, long units) {
+        return append(encodeStockAdjusted(productId, units));
+    }
+
+    public long getRecordCount() {
+        appendLock.lock();
+        try {
+            return recordCount;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Blocks until the record with the given sequence number has been forced to disk.
+     *
+     * @throws IllegalStateException if forcing the journal to disk failed before the record was
+     *                               committed
+     */
+    public void awaitCommit(long sequence) throws InterruptedException {
+        synchronized (commitMonitor) {
+            while (committedSequence < sequence && !closed && commitFailure == null) {
+                commitMonitor.wait();
+            }
+        }
+        if (committedSequence < sequence) {
+            throwIfCommitFailed();
+        }
+    }
+
+    /**
+     * Forces every appended record to disk now.
+     *
+     * @throws IllegalStateException if this or an earlier commit failed to force the journal
+     */
+    public void commit() {
+        throwIfCommitFailed();
+        List<MappedByteBuffer> segments;
+        long target;
+        appendLock.lock();
+        try {
+            target = appendedSequence;
+            if (target == committedSequence) {
+                return;
+            }
+            segments = writer.drainDirtySegments();
+        } finally {
+            appendLock.unlock();
+        }
+        try {
+            force(segments);
+        } catch (RuntimeException e) {
+            synchronized (commitMonitor) {
+                if (commitFailure == null) {
+                    commitFailure = e;
+                }
+                commitMonitor.notifyAll();
+            }
+            throwIfCommitFailed();
+        }
+        markCommitted(target);
+    }
+
+    /**
+     * Compacts automatically from the committer thread once the journal holds at least
+     * {@code minRecords} records and more than three per live order.
+     */
+    public void enableAutoCompaction(Supplier<? extends Collection<Order>> liveOrders, long minRecords) {
+        this.compactionMinRecords = minRecords;
+        this.compactionSource = liveOrders;
+    }
+
+    /**
+     * Rewrites the journal so it holds one stock adjustment per product adjusted so far, then
+     * one creation record per order plus a status record for orders that have left
+     * {@code PENDING}. Appends go on while the orders are written out: only
+     * the current end of the journal is noted under the append lock, and appends wait again only
+     * while the records written after that point are copied over and the new file is swapped in.
+     * {@code liveOrders} is read after that point is taken, so every order appended before it is
+     * in the collection; orders appended later reach the new file through the copied records,
+     * and possibly through the collection too, which replay tolerates.
+     */
+    public void compact(Supplier<? extends Collection<Order>> liveOrders) {
+        compactLock.lock();
+        try {
+            long cutOff;
+            appendLock.lock();
+            try {
+                throwIfClosed();
+                cutOff = writer.position();
+            } finally {
+                appendLock.unlock();
+            }
+
+            Path temp = path.resolveSibling(path.getFileName() + ".compact");
+            FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            SegmentWriter compacted;
+            long count = 0;
+            try {
+                writeHeader(channel, segmentSize);
+                compacted = new SegmentWriter(channel, segmentSize, FILE_HEADER_SIZE);
+                for (Map.Entry<String, Long> adjustment : stockAdjustments(cutOff).entrySet()) {
+                    compacted.write(encodeStockAdjusted(adjustment.getKey(), adjustment.getValue()));
+                    count++;
+                }
+                for (Order order : liveOrders.get()) {
+                    Order.OrderStatus status = order.getStatus();
+                    compacted.write(encodeOrderCreated(order));
+                    count++;
+                    if (status != Order.OrderStatus.PENDING) {
+                        compacted.write(encodeStatusChanged(order.getOrderId(), status));
+                        count++;
+                    }
+                }
+                force(compacted.drainDirtySegments());
+            } catch (IOException | RuntimeException e) {
+                discard(channel, temp);
+                throw e;
+            }
+
+            appendLock.lock();
+            try {
+                try {
+                    throwIfClosed();
+                count += forEachRecord(writer, cutOff, writer.position(), compacted::write);
+                    force(compacted.drainDirtySegments());
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (IOException | RuntimeException e) {
+                    discard(channel, temp);
+                    throw e;
+                }
+                SegmentWriter previous = writer;
+                writer = compacted;
+                recordCount = count;
+                previous.channel.close();
+                markCommitted(appendedSequence);
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compact order journal " + path, e);
+        } finally {
+            compactLock.unlock();
+        }
+    }
+
+    /**
+     * Commits what was appended, stops the committer and closes the file.
+     *
+     * @throws IllegalStateException if the final commit failed; the journal is closed anyway
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        try {
+            commit();
+        } finally {
+            shutDown();
+        }
+    }
+
+    private void shutDown() {
+        closed = true;
+        LockSupport.unpark(committer);
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appendLock.lock();
+        try {
+            writer.channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not close order journal " + path, e);
+        } finally {
+            appendLock.unlock();
+        }
+        synchronized (commitMonitor) {
+            commitMonitor.notifyAll();
+        }
+    }
+
+    private long append(byte[] body) {
+        appendLock.lock();
+        try {
+            throwIfClosed();
+            writer.write(body);
+            recordCount++;
+            return ++appendedSequence;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not append to order journal " + path, e);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void throwIfClosed() {
+        if (closed) {
+            throw new IllegalStateException("Order journal is closed");
+        }
+    }
+
+    /**
+     * Sums the stock adjustments recorded before {@code end} per product. Every product that has
+     * one keeps one, even if it sums to zero, so replay still knows the journal accounts for it.
+     * Records before {@code end} no longer change, so this runs without the append lock; only
+     * compactions replace the file, and they run one at a time.
+     */
+    private Map<String, Long> stockAdjustments(long end) throws IOException {
+        Map<String, Long> adjustments = new LinkedHashMap<>();
+        forEachRecord(writer, FILE_HEADER_SIZE, end, body -> {
+            ByteBuffer record = ByteBuffer.wrap(body);
+            if (record.get() == STOCK_ADJUSTED) {
+                adjustments.merge(readString(record), record.getLong(), Long::sum);
+            }
+        });
+        return adjustments;
+    }
+
+    /**
+     * Passes {@code consumer} the body of every record {@code source} holds from {@code from} to
+     * {@code end}, and returns how many there were.
+     */
+    private long forEachRecord(SegmentWriter source, long from, long end, RecordConsumer consumer) throws IOException {
+        long count = 0;
+        long segmentStart = from / segmentSize * segmentSize;
+        int position = (int) (from - segmentStart);
+        while (segmentStart + position < end) {
+            MappedByteBuffer segment = source.channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, segmentSize);
+            while (segmentStart + position < end && segmentSize - position >= RECORD_HEADER_SIZE) {
+                int bodyLength = segment.getInt(position);
+                if (bodyLength == END_OF_SEGMENT) {
+                    break;
+                }
+                byte[] body = new byte[bodyLength];
+                segment.get(position + RECORD_HEADER_SIZE, body);
+                consumer.accept(body);
+                count++;
+                position += RECORD_HEADER_SIZE + bodyLength;
+            }
+            segmentStart += segmentSize;
+            position = 0;
+        }
+        return count;
+    }
+
+    private static void force(List<MappedByteBuffer> segments) {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    private static void discard(FileChannel channel, Path file) throws IOException {
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    private void throwIfCommitFailed() {
+        RuntimeException failure = commitFailure;
+        if (failure != null) {
+            throw new IllegalStateException("Order journal " + path + " failed to commit", failure);
+        }
+    }
+
+    private void markCommitted(long sequence) {
+        synchronized (commitMonitor) {
+            if (sequence > committedSequence) {
+                committedSequence = sequence;
+            }
+            commitMonitor.notifyAll();
+        }
+    }
+
+    private void runCommitter() {
+        // Stops at the first failed commit; commit() has recorded it for callers
+        while (!closed && commitFailure == null) {
+            LockSupport.parkNanos(commitIntervalNanos);
+            try {
+                commit();
+            } catch (RuntimeException e) {
+                if (!closed) {
+                    log.error("Order journal {} failed to commit; further commits will fail", path, e);
+                }
+                return;
+            }
+            Supplier<? extends Collection<Order>> source = compactionSource;
+            if (source != null && !closed) {
+                try {
+                    long records = getRecordCount();
+                    if (records >= compactionMinRecords && records > 3L * source.get().size()) {
+                        compact(source);
+                    }
+                } catch (RuntimeException e) {
+                    // The uncompacted journal is still intact; stop retrying every interval
+                    compactionSource = null;
+                    log.error("Order journal {} failed to compact; automatic compaction is disabled", path, e);
+                }
+            }
+        }
+    }
+
+    private static void writeHeader(FileChannel channel, int segmentSize) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(segmentSize).flip();
+        channel.write(header, 0);
+    }
+
+    private static int readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+        if (channel.read(header, 0) != FILE_HEADER_SIZE || header.getInt(0) != MAGIC) {
+            throw new IOException("Not an order journal");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IOException("Unsupported order journal version: " + header.getInt(4));
+        }
+        return header.getInt(8);
+    }
+
+    /**
+     * Replays every intact record and returns a writer positioned after the last one.
+     */
+    private SegmentWriter recover(FileChannel channel, Handler handler) throws IOException {
+        long fileSize = channel.size();
+        long end = FILE_HEADER_SIZE;
+        boolean torn = false;
+        CRC32 crc = new CRC32();
+        scan:
+        for (long segmentStart = 0; segmentStart < fileSize; segmentStart += segmentSize) {
+            long length = Math.min(segmentSize, fileSize - segmentStart);
+            MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, length);
+            int position = segmentStart == 0 ? FILE_HEADER_SIZE : 0;
+            while (true) {
+                end = segmentStart + position;
+                if (length - position < RECORD_HEADER_SIZE) {
+                    if (length < segmentSize) {
+                        break scan;
+                    }
+                    end = segmentStart + segmentSize;
+                    break;
+                }
+                int bodyLength = segment.getInt(position);
+                if (bodyLength == 0) {
+                    break scan;
+                }
+                if (bodyLength == END_OF_SEGMENT) {
+                    end = segmentStart + segmentSize;
+                    break;
+                }
+                if (bodyLength < 0 || bodyLength > length - position - RECORD_HEADER_SIZE) {
+                    torn = true;
+                    break scan;
+                }
+                ByteBuffer body = segment.slice(position + RECORD_HEADER_SIZE, bodyLength);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != segment.getInt(position + 4)) {
+                    torn = true;
+                    break scan;
+                }
+                if (handler != null) {
+                    dispatch(body, handler);
+                }
+                recordCount++;
+                position += RECORD_HEADER_SIZE + bodyLength;
+            }
+        }
+
+        // Drop anything after the last intact record so it cannot be mistaken for a record later
+        long segmentEnd = (end / segmentSize + 1) * segmentSize;
+        if (channel.size() > segmentEnd) {
+            channel.truncate(segmentEnd);
+        }
+        SegmentWriter segmentWriter = new SegmentWriter(channel, segmentSize, end);
+        if (torn) {
+            segmentWriter.zeroRemaining();
+        }
+        return segmentWriter;
+    }
+
+    private static void dispatch(ByteBuffer body, Handler handler) throws IOException {
+        byte type = body.get();
+        if (type == ORDER_CREATED) {
+            String orderId = readString(body);
+            String userId = readString(body);
+            String shippingAddress = readString(body);
+            LocalDateTime createdAt = LocalDateTime.ofEpochSecond(body.getLong(), body.getInt(), ZoneOffset.UTC);
+            String currencyCode = readString(body);
+            long total = body.getLong();
+            int lines = body.getInt();
+            String[] productIds = new String[lines];
+            int[] quantities = new int[lines];
+            long[] unitPrices = new long[lines];
+            for (int i = 0; i < lines; i++) {
+                productIds[i] = readString(body);
+                quantities[i] = body.getInt();
+                unitPrices[i] = body.getLong();
+            }
+            handler.orderCreated(new JournaledOrder(orderId, userId, shippingAddress, createdAt,
+                    currencyCode, total, productIds, quantities, unitPrices));
+        } else if (type == STATUS_CHANGED) {
+            String orderId = readString(body);
+            handler.statusChanged(orderId, STATUSES[body.get()]);
+        } else if (type == STOCK_ADJUSTED) {
+            String productId = readString(body);
+            handler.stockAdjusted(productId, body.getLong());
+        } else {
+            throw new IOException("Unknown order journal record type: " + type);
+        }
+    }
+
+    private static byte[] encodeOrderCreated(Order order) {
+        OrderLines lines = order.getLines();
+        Currency currency = lines.getCurrency();
+        byte[] orderId = utf8(order.getOrderId());
+        byte[] userId = utf8(order.getUserId());
+        byte[] address = utf8(order.getShippingAddress());
+        byte[] currencyCode = utf8(currency.getCurrencyCode());
+        byte[][] productIds = new byte[lines.size()][];
+        int size = 1 + 4 + orderId.length + 4 + userId.length + 4 + address.length
+                + 8 + 4 + 4 + currencyCode.length + 8 + 4;
+        for (int i = 0; i < productIds.length; i++) {
+            productIds[i] = utf8(lines.getProductId(i));
+            size += 4 + productIds[i].length + 4 + 8;
+        }
+
+        LocalDateTime createdAt = order.getCreatedAt();
+        ByteBuffer body = ByteBuffer.allocate(size);
+        body.put(ORDER_CREATED);
+        putBytes(body, orderId);
+        putBytes(body, userId);
+        putBytes(body, address);
+        body.putLong(createdAt.toEpochSecond(ZoneOffset.UTC)).putInt(createdAt.getNano());
+        putBytes(body, currencyCode);
+        body.putLong(Money.of(order.getTotalAmount(), currency, RoundingMode.UNNECESSARY).getMinorUnits());
+        body.putInt(productIds.length);
+        for (int i = 0; i < productIds.length; i++) {
+            putBytes(body, productIds[i]);
+            body.putInt(lines.getQuantity(i));
+            body.putLong(lines.getUnitPriceMinorUnits(i));
+        }
+        return body.array();
+    }
+
+    private static byte[] encodeStatusChanged(String orderId, Order.OrderStatus status) {
+        byte[] id = utf8(orderId);
+        ByteBuffer body = ByteBuffer.allocate(1 + 4 + id.length + 1);
+        body.put(STATUS_CHANGED);
+        putBytes(body, id);
+        body.put((byte) status.ordinal());
+        return body.array();
+    }
+
+    private static byte[] encodeStockAdjusted(String productId, long units) {
+        byte[] id = utf8(productId);
+        ByteBuffer body = ByteBuffer.allocate(1 + 4 + id.length + 8);
+        body.put(STOCK_ADJUSTED);
+        putBytes(body, id);
+        body.putLong(units);
+        return body.array();
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(ByteBuffer buffer, byte[] bytes) {
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private interface RecordConsumer {
+
+        void accept(byte[] body) throws IOException;
+    }
+
+    /**
+     * Writes records into consecutive mapped segments of one file. Callers hold the append lock.
+     */
+    private static final class SegmentWriter {
+        private final FileChannel channel;
+        private final int segmentSize;
+        private final List<MappedByteBuffer> dirtySegments = new ArrayList<>();
+        private MappedByteBuffer segment;
+        private long segmentStart;
+
+        SegmentWriter(FileChannel channel, int segmentSize, long position) throws IOException {
+            this.channel = channel;
+            this.segmentSize = segmentSize;
+            mapSegment(position / segmentSize * segmentSize);
+            segment.position((int) (position - segmentStart));
+        }
+
+        void write(byte[] body) throws IOException {
+            int size = RECORD_HEADER_SIZE + body.length;
+            if (size > segmentSize - FILE_HEADER_SIZE) {
+                throw new IllegalArgumentException("Journal record of " + size + " bytes exceeds the segment size");
+            }
+            if (segment.remaining() < size) {
+                if (segment.remaining() >= Integer.BYTES) {
+                    segment.putInt(END_OF_SEGMENT);
+                }
+                dirtySegments.add(segment);
+                mapSegment(segmentStart + segmentSize);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            segment.putInt(body.length).putInt((int) crc.getValue()).put(body);
+        }
+
+        long position() {
+            return segmentStart + segment.position();
+        }
+
+        void zeroRemaining() {
+            for (int i = segment.position(); i < segment.limit(); i++) {
+                segment.put(i, (byte) 0);
+            }
+        }
+
+        /**
+         * Returns the segments written since the last call, including the current one.
+         */
+        List<MappedByteBuffer> drainDirtySegments() {
+            List<MappedByteBuffer> segments = new ArrayList<>(dirtySegments);
+            segments.add(segment);
+            dirtySegments.clear();
+            return segments;
+        }
+
+        private void mapSegment(long start) throws IOException {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, start, segmentSize);
+            segmentStart = start;
+        }
+    }
+}
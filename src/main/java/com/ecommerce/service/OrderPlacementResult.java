@@ -0,0 +1,59 @@
+package com.ecommerce.service;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.ShoppingCart;
+
+/**
+ * Outcome of placing one cart in {@link OrderService#createOrders}: either the created order or
+ * the exception {@link OrderService#createOrder} would have thrown for that cart.
+ */
+public class OrderPlacementResult {
+    private final ShoppingCart cart;
+    private final Order order;
+    private final RuntimeException failure;
+
+    private OrderPlacementResult(ShoppingCart cart, Order order, RuntimeException failure) {
+        this.cart = cart;
+        this.order = order;
+        this.failure = failure;
+    }
+
+    static OrderPlacementResult success(ShoppingCart cart, Order order) {
+        return new OrderPlacementResult(cart, order, null);
+    }
+
+    static OrderPlacementResult failure(ShoppingCart cart, RuntimeException failure) {
+        return new OrderPlacementResult(cart, null, failure);
+    }
+
+    public ShoppingCart getCart() {
+        return cart;
+    }
+
+    /**
+     * Returns the created order, or {@code null} if the cart failed.
+     */
+    public Order getOrder() {
+        return order;
+    }
+
+    /**
+     * Returns why the cart failed, or {@code null} if it succeeded.
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderPlacementResult{" +
+                "userId='" + (cart == null ? null : cart.getUserId()) + '\'' +
+                ", orderId='" + (order == null ? null : order.getOrderId()) + '\'' +
+                ", failure=" + (failure == null ? null : failure.getMessage()) +
+                '}';
+    }
+}
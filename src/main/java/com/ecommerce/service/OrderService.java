@@ -1,106 +1,990 @@
 package com.ecommerce.service;
 
+import com.ecommerce.analytics.SalesAnalytics;
+import com.ecommerce.archive.OrderArchive;
+import com.ecommerce.catalog.ProductVersion;
+import com.ecommerce.events.OrderEventBus;
+import com.ecommerce.events.OrderEventType;
+import com.ecommerce.export.OrderExportFilter;
+import com.ecommerce.export.OrderExporter;
+import com.ecommerce.id.OrderIdGenerator;
+import com.ecommerce.id.SequentialOrderIdGenerator;
+import com.ecommerce.index.OrderSequence;
+import com.ecommerce.index.OrderTimeIndex;
+import com.ecommerce.index.UserOrderIndex;
+import com.ecommerce.inventory.BatchStockReservation;
+import com.ecommerce.inventory.StockReservation;
+import com.ecommerce.inventory.StockShards;
+import com.ecommerce.metrics.Counter;
+import com.ecommerce.metrics.LatencyHistogram;
+import com.ecommerce.metrics.ServiceMetrics;
 import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Money;
 import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderLines;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.ShoppingCart;
+import com.ecommerce.persistence.JournaledOrder;
+import com.ecommerce.persistence.OrderJournal;
 
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class OrderService implements AutoCloseable {
+    public static final long DEFAULT_COMPACTION_MIN_RECORDS = 1_000_000;
+
+    /** Counter of carts turned down because a product did not have enough stock. */
+    public static final String STOCK_REJECTIONS = "stockRejections";
+    /** Counter of orders placed, one by one or in batches. */
+    public static final String ORDERS_CREATED = "ordersCreated";
+    /** Counter prefix for status transitions, e.g. {@code transitions.CANCELLED}. */
+    public static final String TRANSITIONS_PREFIX = "transitions.";
+    /** Counter of delivered and cancelled orders moved to the archive. */
+    public static final String ORDERS_ARCHIVED = "ordersArchived";
+    /** Counter of asynchronous checkouts turned away because a stock shard's queue was full. */
+    public static final String SHARD_REJECTIONS = "shardRejections";
+
+    private static final int ARCHIVE_BATCH_SIZE = 1024;
 
-public class OrderService {
     private final Map<String, Order> orders;
+    private final OrderArchive archive = new OrderArchive();
+    // Written around each archive batch, so readers never see an order in both tiers or in neither
+    private final StampedLock archiveLock = new StampedLock();
+    // Every position below this one has been archived; guarded by archiveCompletedOrders
+    private int archivedBelow;
+    private final UserOrderIndex ordersByUser;
+    private final OrderSequence orderSequence;
+    private final OrderTimeIndex ordersByTime = new OrderTimeIndex();
     private final ProductService productService;
-    private int orderCounter = 1;
+    private final OrderIdGenerator idGenerator;
+    private final ServiceMetrics metrics = new ServiceMetrics();
+    private final LatencyHistogram createOrderLatency = metrics.latency("createOrder");
+    private final LatencyHistogram createOrderDurablyLatency = metrics.latency("createOrderDurably");
+    private final LatencyHistogram createOrdersLatency = metrics.latency("createOrders");
+    private final LatencyHistogram createOrderAsyncLatency = metrics.latency("createOrderAsync");
+    private final LatencyHistogram confirmOrderLatency = metrics.latency("confirmOrder");
+    private final LatencyHistogram shipOrderLatency = metrics.latency("shipOrder");
+    private final LatencyHistogram deliverOrderLatency = metrics.latency("deliverOrder");
+    private final LatencyHistogram cancelOrderLatency = metrics.latency("cancelOrder");
+    private final LatencyHistogram getOrderLatency = metrics.latency("getOrderById");
+    private final LatencyHistogram userOrdersLatency = metrics.latency("getOrdersByUserId");
+    private final LatencyHistogram recentOrdersLatency = metrics.latency("getRecentOrdersByUserId");
+    private final LatencyHistogram userOrderCountLatency = metrics.latency("getOrderCountByUserId");
+    private final LatencyHistogram allOrdersLatency = metrics.latency("getAllOrders");
+    private final LatencyHistogram ordersPageLatency = metrics.latency("getOrdersPage");
+    private final LatencyHistogram ordersBetweenLatency = metrics.latency("getOrdersCreatedBetween");
+    private final LatencyHistogram exportLatency = metrics.latency("exportOrders");
+    private final LatencyHistogram archiveLatency = metrics.latency("archiveCompletedOrders");
+    private final LatencyHistogram compactLatency = metrics.latency("compactJournal");
+    private final LatencyHistogram rebuildAnalyticsLatency = metrics.latency("rebuildAnalytics");
+    private final Counter ordersCreated = metrics.counter(ORDERS_CREATED);
+    private final Counter stockRejections = metrics.counter(STOCK_REJECTIONS);
+    private final Counter ordersArchived = metrics.counter(ORDERS_ARCHIVED);
+    private final Counter shardRejections = metrics.counter(SHARD_REJECTIONS);
+    private final Map<Order.OrderStatus, Counter> transitions = new EnumMap<>(Order.OrderStatus.class);
+    private final OrderEventBus events = new OrderEventBus();
+    private final SalesAnalytics analytics = new SalesAnalytics();
+    // Null unless the service was created through recover()
+    private OrderJournal journal;
+    // Journals the catalog's stock changes; null without a journal
+    private ObjLongConsumer<String> stockJournal;
+    // Null until the first asynchronous checkout or startStockShards()
+    private volatile StockShards stockShards;
 
     public OrderService(ProductService productService) {
-        this.orders = new HashMap<>();
+        this(productService, new SequentialOrderIdGenerator());
+    }
+
+    public OrderService(ProductService productService, OrderIdGenerator idGenerator) {
+        if (idGenerator == null) {
+            throw new IllegalArgumentException("Order ID generator cannot be null");
+        }
+        this.orders = new ConcurrentHashMap<>();
+        this.ordersByUser = new UserOrderIndex();
+        this.orderSequence = new OrderSequence(archive::findByPosition);
         this.productService = productService;
+        this.idGenerator = idGenerator;
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            if (status != Order.OrderStatus.PENDING) {
+                transitions.put(status, metrics.counter(TRANSITIONS_PREFIX + status));
+            }
+        }
+    }
+
+    /**
+     * Creates a service whose orders survive restarts. Orders are replayed from the journal at
+     * {@code journalPath}, which is created if missing; every later order, status change and
+     * change {@code productService} makes to stock is appended to it.
+     *
+     * <p>The journal records each product's stock the first time it sees the product, and every
+     * change after that, so replay sets stock from the journal alone: a catalog loaded from an
+     * older snapshot or with stale stock ends up the same. A product the journal has not seen
+     * yet keeps its loaded stock, less any orders journaled for it, and is recorded from then
+     * on. Stock changed directly on a {@link Product} rather than through the service, other than
+     * by checkouts and cancellations, is not journaled.</p>
+     *
+     * @throws IllegalStateException if replay would leave a product with negative stock, which
+     *                               means the journal does not belong to this catalog
+     */
+    public static OrderService recover(ProductService productService, OrderIdGenerator idGenerator, Path journalPath) {
+        OrderService service = new OrderService(productService, idGenerator);
+        JournalReplay replay = service.new JournalReplay();
+        service.journal = OrderJournal.open(journalPath, replay);
+        try {
+            replay.applyStock();
+        } catch (RuntimeException e) {
+            service.journal.close();
+            throw e;
+        }
+        service.stockJournal = service.journal::appendStockAdjusted;
+        productService.addStockListener(service.stockJournal);
+        service.journal.enableAutoCompaction(service.orderSequence::all, DEFAULT_COMPACTION_MIN_RECORDS);
+        return service;
+    }
+
+    /**
+     * Latency histograms for every order operation, keyed by method name, and counters for
+     * {@link #ORDERS_CREATED}, {@link #STOCK_REJECTIONS}, {@link #ORDERS_ARCHIVED},
+     * {@link #SHARD_REJECTIONS} and each status transition. {@link #getLatestOrdersByUserId}
+     * counts as {@code getRecentOrdersByUserId}. Not timed: the {@code stream...} methods, which
+     * return before the stream does any work, {@link #getOrderCount()}, a single size read, and
+     * the lifecycle methods {@link #startStockShards} and {@link #close()}.
+     */
+    public ServiceMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the bus that order creation and every status change are published on. Orders
+     * rebuilt from the journal at startup are not published.
+     */
+    public OrderEventBus getEventBus() {
+        return events;
+    }
+
+    /**
+     * Returns sales figures for every order placed through, or recovered by, this service, net of
+     * cancellations.
+     */
+    public SalesAnalytics getAnalytics() {
+        return analytics;
+    }
+
+    /**
+     * Recomputes {@link #getAnalytics()} from every order, archived ones included. Figures updated
+     * while this runs may be lost, so call it while no orders are placed or cancelled.
+     */
+    public void rebuildAnalytics() {
+        long start = System.nanoTime();
+        try {
+            analytics.recompute(orderSequence.all());
+        } finally {
+            rebuildAnalyticsLatency.recordSince(start);
+        }
     }
 
     public Order createOrder(ShoppingCart cart, String shippingAddress) {
-        if (cart == null || cart.isEmpty()) {
-            throw new IllegalArgumentException("Cannot create order from empty cart");
+        long start = System.nanoTime();
+        try {
+            Order order = placeOrder(cart, shippingAddress, false);
+            ordersCreated.increment();
+            return order;
+        } finally {
+            createOrderLatency.recordSince(start);
         }
-        if (shippingAddress == null || shippingAddress.trim().isEmpty()) {
-            throw new IllegalArgumentException("Shipping address is required");
+    }
+
+    /**
+     * Same as {@link #createOrder}, but returns only once the order's creation record is on disk,
+     * so a crash after this returns cannot lose the order. The wait shares the journal's next
+     * group commit with other checkouts rather than forcing the file itself; if the thread is
+     * interrupted meanwhile, it forces the journal at once and keeps its interrupt status. Same
+     * as {@code createOrder} when the service has no journal.
+     *
+     * @throws IllegalStateException if stock ran out, as for {@code createOrder}, or if the journal
+     *                               failed to reach the disk; in that case the order is placed but
+     *                               may not survive a restart
+     */
+    public Order createOrderDurably(ShoppingCart cart, String shippingAddress) {
+        long start = System.nanoTime();
+        try {
+            Order order = placeOrder(cart, shippingAddress, true);
+            ordersCreated.increment();
+            return order;
+        } finally {
+            createOrderDurablyLatency.recordSince(start);
         }
+    }
 
-        // Validate stock availability
-        for (CartItem item : cart.getItems()) {
-            Product product = item.getProduct();
-            if (!productService.isProductAvailable(product.getId(), item.getQuantity())) {
-                throw new IllegalStateException("Insufficient stock for product: " + product.getName());
-            }
+    private Order placeOrder(ShoppingCart cart, String shippingAddress, boolean durable) {
+        validateCheckout(cart, shippingAddress);
+
+        // Reserve stock for every line at once, so concurrent checkouts cannot oversell; units the
+        // cart still holds count towards it
+        Collection<CartItem> items = cart.getItems();
+        StockReservation reservation;
+        try {
+            reservation = StockReservation.reserve(items, cart.claimHeldStock(), productService::getProductById);
+        } catch (IllegalStateException e) {
+            stockRejections.increment();
+            throw e;
         }
 
         // Create order
-        String orderId = generateOrderId();
-        Order order = new Order(orderId, cart.getUserId(), cart.getItems(), shippingAddress);
-        orders.put(orderId, order);
+        Order order;
+        try {
+            String orderId = idGenerator.nextId();
+            order = new Order(orderId, cart.getUserId(), items, shippingAddress);
+        } catch (RuntimeException e) {
+            reservation.release();
+            throw e;
+        }
+        long sequence = recordPlaced(order);
+        if (durable && journal != null) {
+            awaitCommit(sequence);
+        }
+        return order;
+    }
 
-        // Reduce stock
+    private void awaitCommit(long sequence) {
+        try {
+            journal.awaitCommit(sequence);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            journal.commit();
+        }
+    }
+
+    /**
+     * Starts the stock shards asynchronous checkouts reserve through: {@code shardCount} writer
+     * threads, each accepting up to {@code queueCapacity} pending checkouts. Without this call,
+     * the first asynchronous checkout starts one shard per CPU with
+     * {@value StockShards#DEFAULT_QUEUE_CAPACITY} slots each.
+     *
+     * @throws IllegalStateException if the shards are already running
+     */
+    public synchronized void startStockShards(int shardCount, int queueCapacity) {
+        if (stockShards != null) {
+            throw new IllegalStateException("Stock shards are already running");
+        }
+        stockShards = new StockShards(shardCount, queueCapacity);
+    }
+
+    /**
+     * Places {@code cart} without waiting for stock. The cart's lines are copied and its holds
+     * claimed before this returns, so the cart can be changed or reused straight away. Stock is
+     * reserved through {@link StockShards}: each product's stock is changed by one shard thread
+     * only, and an order spanning several shards either gets all of its stock or none.
+     *
+     * <p>The future completes with the order, or fails with the exception {@link #createOrder}
+     * would have thrown, or with {@link RejectedExecutionException} when a shard has more
+     * checkouts queued than it accepts; the caller should back off and retry. A rejected checkout
+     * fails before the cart's holds are claimed, so the shopper keeps them meanwhile. The order is
+     * registered, journaled and published off the shard threads.</p>
+     */
+    public CompletableFuture<Order> createOrderAsync(ShoppingCart cart, String shippingAddress) {
+        long start = System.nanoTime();
+        try {
+            validateCheckout(cart, shippingAddress);
+        } catch (RuntimeException e) {
+            createOrderAsyncLatency.recordSince(start);
+            return CompletableFuture.failedFuture(e);
+        }
+        String userId = cart.getUserId();
+        List<CartItem> items = new ArrayList<>(cart.getItems().size());
         for (CartItem item : cart.getItems()) {
-            Product product = item.getProduct();
-            product.reduceStock(item.getQuantity());
+            items.add(new CartItem(item.getProduct(), item.getQuantity()));
         }
+        return stockShards().reserve(items, cart::claimHeldStock, productService::getProductById)
+                .thenApplyAsync(reservation -> {
+                    Order order;
+                    try {
+                        order = new Order(idGenerator.nextId(), userId, items, shippingAddress);
+                    } catch (RuntimeException e) {
+                        reservation.release();
+                        throw e;
+                    }
+                    recordPlaced(order);
+                    ordersCreated.increment();
+                    return order;
+                })
+                .whenComplete((order, failure) -> {
+                    Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                    if (cause instanceof IllegalStateException) {
+                        stockRejections.increment();
+                    } else if (cause instanceof RejectedExecutionException) {
+                        shardRejections.increment();
+                    }
+                    createOrderAsyncLatency.recordSince(start);
+                });
+    }
 
-        return order;
+    private StockShards stockShards() {
+        StockShards shards = stockShards;
+        if (shards == null) {
+            synchronized (this) {
+                shards = stockShards;
+                if (shards == null) {
+                    shards = new StockShards();
+                    stockShards = shards;
+                }
+            }
+        }
+        return shards;
     }
 
+    /**
+     * Registers, journals and publishes a new order, and returns the sequence number of its
+     * creation record, or 0 when there is no journal.
+     */
+    private long recordPlaced(Order order) {
+        // Under the order's lock, so no transition is journaled or published before its creation
+        synchronized (order) {
+            register(order);
+            long sequence = journal == null ? 0 : journal.appendOrderCreated(order);
+            analytics.recordOrder(order.getLines());
+            events.publish(OrderEventType.CREATED, order);
+            return sequence;
+        }
+    }
+
+    /**
+     * Places many carts at once, all shipping to {@code shippingAddress}.
+     *
+     * @see #createOrders(Collection, Function)
+     */
+    public List<OrderPlacementResult> createOrders(Collection<ShoppingCart> carts, String shippingAddress) {
+        return createOrders(carts, cart -> shippingAddress);
+    }
+
+    /**
+     * Places many carts at once. Stock demand is summed per product and reserved in one pass,
+     * and order IDs are allocated as a block. Each cart succeeds or fails on its own, with the
+     * same checks as {@link #createOrder}; carts are served stock in iteration order. Units held
+     * by carts with {@link com.ecommerce.inventory.CartHolds} go back to stock first and are
+     * reserved with the rest of the batch, so a held cart can still be outbid by an earlier cart
+     * in the same batch.
+     *
+     * @return one result per cart, in iteration order
+     */
+    public List<OrderPlacementResult> createOrders(Collection<ShoppingCart> carts,
+                                                   Function<ShoppingCart, String> shippingAddresses) {
+        long start = System.nanoTime();
+        try {
+            return placeOrders(carts, shippingAddresses);
+        } finally {
+            createOrdersLatency.recordSince(start);
+        }
+    }
+
+    private List<OrderPlacementResult> placeOrders(Collection<ShoppingCart> carts,
+                                                   Function<ShoppingCart, String> shippingAddresses) {
+        if (carts == null || shippingAddresses == null) {
+            throw new IllegalArgumentException("Carts and shipping addresses cannot be null");
+        }
+        List<ShoppingCart> cartList = new ArrayList<>(carts);
+        int cartCount = cartList.size();
+        String[] addresses = new String[cartCount];
+        OrderPlacementResult[] results = new OrderPlacementResult[cartCount];
+        List<Collection<CartItem>> demand = new ArrayList<>(cartCount);
+        for (int i = 0; i < cartCount; i++) {
+            ShoppingCart cart = cartList.get(i);
+            try {
+                addresses[i] = cart == null ? null : shippingAddresses.apply(cart);
+                validateCheckout(cart, addresses[i]);
+                cart.claimHeldStock().forEach((productId, units) ->
+                        productService.getProductById(productId).addStock(units));
+                demand.add(cart.getItems());
+            } catch (RuntimeException e) {
+                results[i] = OrderPlacementResult.failure(cart, e);
+                demand.add(null);
+            }
+        }
+
+        BatchStockReservation reservation = BatchStockReservation.reserve(demand, productService::getProductById);
+        int reservedCount = 0;
+        for (int i = 0; i < cartCount; i++) {
+            if (reservation.isReserved(i)) {
+                reservedCount++;
+            } else if (results[i] == null) {
+                RuntimeException failure = reservation.getFailure(i);
+                if (failure instanceof IllegalStateException) {
+                    stockRejections.increment();
+                }
+                results[i] = OrderPlacementResult.failure(cartList.get(i), failure);
+            }
+        }
+
+        String[] orderIds = idGenerator.nextIds(reservedCount);
+        int nextId = 0;
+        for (int i = 0; i < cartCount; i++) {
+            if (!reservation.isReserved(i)) {
+                continue;
+            }
+            ShoppingCart cart = cartList.get(i);
+            try {
+                Order order = new Order(orderIds[nextId++], cart.getUserId(), cart.getItems(), addresses[i]);
+                recordPlaced(order);
+                results[i] = OrderPlacementResult.success(cart, order);
+                ordersCreated.increment();
+            } catch (RuntimeException e) {
+                for (CartItem item : cart.getItems()) {
+                    productService.getProductById(item.getProduct().getId()).addStock(item.getQuantity());
+                }
+                results[i] = OrderPlacementResult.failure(cart, e);
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private static void validateCheckout(ShoppingCart cart, String shippingAddress) {
+        if (cart == null || cart.isEmpty()) {
+            throw new IllegalArgumentException("Cannot create order from empty cart");
+        }
+        if (shippingAddress == null || shippingAddress.trim().isEmpty()) {
+            throw new IllegalArgumentException("Shipping address is required");
+        }
+    }
+
+    private void register(Order order) {
+        orders.put(order.getOrderId(), order);
+        ordersByUser.add(order);
+        int position = orderSequence.add(order);
+        ordersByTime.add(order.getCreatedAt(), position);
+    }
+
+    /**
+     * Returns the order with {@code orderId}. Archived orders come back as read-only copies; see
+     * {@link #archiveCompletedOrders()}.
+     */
     public Order getOrderById(String orderId) {
+        long start = System.nanoTime();
+        try {
+            return findOrder(orderId);
+        } finally {
+            getOrderLatency.recordSince(start);
+        }
+    }
+
+    private Order findOrder(String orderId) {
         Order order = orders.get(orderId);
+        if (order == null) {
+            // Archived orders are added to the archive before they leave the map
+            order = archive.find(orderId);
+        }
         if (order == null) {
             throw new NoSuchElementException("Order not found: " + orderId);
         }
         return order;
     }
 
+    /**
+     * Returns every order of the user, oldest first, as a read-only list.
+     */
     public List<Order> getOrdersByUserId(String userId) {
-        List<Order> userOrders = new ArrayList<>();
-        for (Order order : orders.values()) {
-            if (order.getUserId().equals(userId)) {
-                userOrders.add(order);
+        long start = System.nanoTime();
+        try {
+            return ordersOf(userId);
+        } finally {
+            userOrdersLatency.recordSince(start);
+        }
+    }
+
+    private List<Order> ordersOf(String userId) {
+        long stamp = archiveLock.tryOptimisticRead();
+        List<Order> history = userHistory(userId);
+        if (!archiveLock.validate(stamp)) {
+            stamp = archiveLock.readLock();
+            try {
+                history = userHistory(userId);
+            } finally {
+                archiveLock.unlockRead(stamp);
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Returns up to {@code limit} of the user's orders, newest first, after skipping the
+     * {@code offset} newest ones. Only the requested page is touched.
+     */
+    public List<Order> getRecentOrdersByUserId(String userId, int offset, int limit) {
+        long start = System.nanoTime();
+        try {
+            return recentOrdersOf(userId, offset, limit);
+        } finally {
+            recentOrdersLatency.recordSince(start);
+        }
+    }
+
+    private List<Order> recentOrdersOf(String userId, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative");
+        }
+        long stamp = archiveLock.tryOptimisticRead();
+        if (archive.countByUser(userId) == 0) {
+            List<Order> recent = ordersByUser.recent(userId, offset, limit);
+            if (archiveLock.validate(stamp)) {
+                return recent;
+            }
+        }
+        List<Order> history = ordersOf(userId);
+        int end = history.size() - Math.min(offset, history.size());
+        int start = Math.max(0, end - limit);
+        List<Order> page = new ArrayList<>(history.subList(start, end));
+        Collections.reverse(page);
+        return Collections.unmodifiableList(page);
+    }
+
+    public List<Order> getLatestOrdersByUserId(String userId, int limit) {
+        return getRecentOrdersByUserId(userId, 0, limit);
+    }
+
+    public int getOrderCountByUserId(String userId) {
+        long start = System.nanoTime();
+        try {
+            return orderCountOf(userId);
+        } finally {
+            userOrderCountLatency.recordSince(start);
+        }
+    }
+
+    private int orderCountOf(String userId) {
+        long stamp = archiveLock.tryOptimisticRead();
+        int count = ordersByUser.count(userId) + archive.countByUser(userId);
+        if (!archiveLock.validate(stamp)) {
+            stamp = archiveLock.readLock();
+            try {
+                count = ordersByUser.count(userId) + archive.countByUser(userId);
+            } finally {
+                archiveLock.unlockRead(stamp);
             }
         }
-        return userOrders;
+        return count;
+    }
+
+    private List<Order> userHistory(String userId) {
+        List<Order> live = ordersByUser.all(userId);
+        return archive.history(userId, live);
     }
 
+    /**
+     * Moves every delivered or cancelled order into a compact columnar archive and drops the
+     * service's references to the original objects, so they can be collected. Archived orders
+     * stay visible everywhere orders are read: by ID, per user, in listings, pages, streams,
+     * exports and journal compaction. They come back as copies, so status changes on them are
+     * rejected or lost.
+     *
+     * @return the number of orders archived
+     */
+    public int archiveCompletedOrders() {
+        long start = System.nanoTime();
+        try {
+            return archiveCompleted();
+        } finally {
+            archiveLatency.recordSince(start);
+        }
+    }
+
+    private synchronized int archiveCompleted() {
+        int end = orderSequence.size();
+        List<Order> batch = new ArrayList<>(ARCHIVE_BATCH_SIZE);
+        int[] positions = new int[ARCHIVE_BATCH_SIZE];
+        int archived = 0;
+        boolean contiguous = true;
+        for (int position = archivedBelow; position < end; position++) {
+            Order order = orderSequence.getIfPresent(position);
+            if (order != null && isFinal(order.getStatus())) {
+                positions[batch.size()] = position;
+                batch.add(order);
+                if (batch.size() == ARCHIVE_BATCH_SIZE) {
+                    archived += archiveBatch(batch, positions);
+                    batch.clear();
+                }
+            } else if (order != null && contiguous) {
+                contiguous = false;
+                archivedBelow = position;
+            }
+        }
+        archived += archiveBatch(batch, positions);
+        if (contiguous) {
+            archivedBelow = end;
+        }
+        return archived;
+    }
+
+    private int archiveBatch(List<Order> batch, int[] positions) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        int[] batchPositions = Arrays.copyOf(positions, batch.size());
+        long stamp = archiveLock.writeLock();
+        try {
+            archive.addAll(batch, batchPositions);
+            ordersByUser.removeAll(batch);
+            for (int i = 0; i < batchPositions.length; i++) {
+                orderSequence.evict(batchPositions[i]);
+                orders.remove(batch.get(i).getOrderId());
+            }
+        } finally {
+            archiveLock.unlockWrite(stamp);
+        }
+        ordersArchived.add(batch.size());
+        return batch.size();
+    }
+
+    private static boolean isFinal(Order.OrderStatus status) {
+        return status == Order.OrderStatus.DELIVERED || status == Order.OrderStatus.CANCELLED;
+    }
+
+    /**
+     * Returns every order placed so far, oldest first, as a read-only list. The list is a view,
+     * not a copy; orders placed after the call do not show up in it.
+     */
     public List<Order> getAllOrders() {
-        return new ArrayList<>(orders.values());
+        long start = System.nanoTime();
+        try {
+            return orderSequence.all();
+        } finally {
+            allOrdersLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Streams every order placed so far, oldest first, without copying them. The stream splits
+     * evenly, so it can be consumed in parallel.
+     */
+    public Stream<Order> streamOrders() {
+        return orderSequence.all().stream();
+    }
+
+    /**
+     * Returns up to {@code limit} orders following {@code cursor}, oldest first. Pass
+     * {@code null} to start from the first order.
+     *
+     * @throws IllegalArgumentException if the cursor was not returned by this method
+     */
+    public Page<Order> getOrdersPage(String cursor, int limit) {
+        long start = System.nanoTime();
+        try {
+            if (limit < 0) {
+                throw new IllegalArgumentException("Limit cannot be negative");
+            }
+            int position = cursor == null ? 0 : parseOrderCursor(cursor);
+            List<Order> items = orderSequence.range(position, limit);
+            int next = position + items.size();
+            return new Page<>(items, Integer.toString(next), next < orderSequence.size());
+        } finally {
+            ordersPageLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Returns the orders created in {@code [from, before)}, oldest first.
+     *
+     * @see #streamOrdersCreatedBetween(LocalDateTime, LocalDateTime, Set, boolean)
+     */
+    public List<Order> getOrdersCreatedBetween(LocalDateTime from, LocalDateTime before) {
+        long start = System.nanoTime();
+        try {
+            return streamOrdersCreatedBetween(from, before, null, false).collect(Collectors.toList());
+        } finally {
+            ordersBetweenLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Streams the orders created in {@code [from, before)}, oldest first or, with
+     * {@code newestFirst}, newest first, keeping those whose status is in {@code statuses}
+     * ({@code null} keeps every status). Only orders inside the window are visited, so the cost
+     * follows the size of the window, not the number of orders. Creation times are those the
+     * orders had when they were placed.
+     */
+    public Stream<Order> streamOrdersCreatedBetween(LocalDateTime from, LocalDateTime before,
+                                                    Set<Order.OrderStatus> statuses, boolean newestFirst) {
+        Set<Order.OrderStatus> wanted = statuses == null ? null
+                : statuses.isEmpty() ? EnumSet.noneOf(Order.OrderStatus.class) : EnumSet.copyOf(statuses);
+        Spliterator.OfInt positions = Spliterators.spliteratorUnknownSize(
+                ordersByTime.positions(from, before, newestFirst),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        Stream<Order> orders = StreamSupport.intStream(positions, false).mapToObj(orderSequence::get);
+        return wanted == null ? orders : orders.filter(order -> wanted.contains(order.getStatus()));
+    }
+
+    /**
+     * Writes the orders {@code filter} accepts to {@code channel} as newline-delimited JSON,
+     * oldest first, and returns how many were written. Orders are streamed one at a time; see
+     * {@link OrderExporter} for the format.
+     */
+    public long exportOrders(WritableByteChannel channel, OrderExportFilter filter) {
+        long start = System.nanoTime();
+        try {
+            return OrderExporter.export(orderSequence.all().iterator(), filter, channel);
+        } finally {
+            exportLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Same as {@link #exportOrders(WritableByteChannel, OrderExportFilter)}, writing to a stream.
+     */
+    public long exportOrders(OutputStream out, OrderExportFilter filter) {
+        long start = System.nanoTime();
+        try {
+            return OrderExporter.export(orderSequence.all().iterator(), filter, out);
+        } finally {
+            exportLatency.recordSince(start);
+        }
+    }
+
+    private static int parseOrderCursor(String cursor) {
+        try {
+            int position = Integer.parseInt(cursor);
+            if (position >= 0) {
+                return position;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Invalid order cursor: " + cursor);
     }
 
     public void confirmOrder(String orderId) {
-        Order order = getOrderById(orderId);
-        order.confirm();
+        long start = System.nanoTime();
+        try {
+            Order order = findOrder(orderId);
+            synchronized (order) {
+                statusChanged(order, order.confirm());
+            }
+        } finally {
+            confirmOrderLatency.recordSince(start);
+        }
     }
 
     public void shipOrder(String orderId) {
-        Order order = getOrderById(orderId);
-        order.ship();
+        long start = System.nanoTime();
+        try {
+            Order order = findOrder(orderId);
+            synchronized (order) {
+                statusChanged(order, order.ship());
+            }
+        } finally {
+            shipOrderLatency.recordSince(start);
+        }
     }
 
     public void deliverOrder(String orderId) {
-        Order order = getOrderById(orderId);
-        order.deliver();
+        long start = System.nanoTime();
+        try {
+            Order order = findOrder(orderId);
+            synchronized (order) {
+                statusChanged(order, order.deliver());
+            }
+        } finally {
+            deliverOrderLatency.recordSince(start);
+        }
     }
 
     public void cancelOrder(String orderId) {
-        Order order = getOrderById(orderId);
-        order.cancel();
+        long start = System.nanoTime();
+        try {
+            Order order = findOrder(orderId);
+            synchronized (order) {
+                statusChanged(order, order.cancel());
+            }
 
-        // Restore stock
-        for (CartItem item : order.getItems()) {
-            Product product = item.getProduct();
-            product.addStock(item.getQuantity());
+            restoreStock(order.getLines());
+            analytics.recordCancellation(order.getLines());
+        } finally {
+            cancelOrderLatency.recordSince(start);
         }
     }
 
-    private String generateOrderId() {
-        return "ORD" + String.format("%06d", orderCounter++);
+    /**
+     * Rewrites the journal down to one record per order plus its latest status. Does nothing
+     * when the service has no journal.
+     */
+    public void compactJournal() {
+        long start = System.nanoTime();
+        try {
+            if (journal != null) {
+                journal.compact(orderSequence::all);
+            }
+        } finally {
+            compactLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Lets the stock shards, if started, finish the checkouts they have queued, delivers buffered
+     * events to subscribers and closes their subscriptions, then flushes and closes the journal,
+     * if any. Checkouts still completing may miss the journal.
+     */
+    @Override
+    public void close() {
+        StockShards shards = stockShards;
+        if (shards != null) {
+            shards.close();
+        }
+        events.close();
+        if (journal != null) {
+            productService.removeStockListener(stockJournal);
+            journal.close();
+        }
+    }
+
+    /**
+     * Counts, journals and publishes the transition of {@code order} to {@code status}. Callers
+     * hold the order's lock from the transition until this returns, so the journal and
+     * subscribers see each order's changes in the order they happened.
+     */
+    private void statusChanged(Order order, Order.OrderStatus status) {
+        transitions.get(status).increment();
+        if (journal != null) {
+            journal.appendStatusChanged(order.getOrderId(), status);
+        }
+        events.publish(OrderEventType.forStatus(status), order);
+    }
+
+    /**
+     * Returns the units of every line to the catalog products they were reserved from, skipping
+     * products deleted since.
+     */
+    private void restoreStock(OrderLines lines) {
+        for (int line = 0; line < lines.size(); line++) {
+            Product product = findProduct(lines.getProductId(line));
+            if (product != null) {
+                product.addStock(lines.getQuantity(line));
+            }
+        }
+    }
+
+    private Product findProduct(String productId) {
+        try {
+            return productService.getProductById(productId);
+        } catch (NoSuchElementException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Rebuilds orders and stock levels from journal records. Records an earlier compaction
+     * already covers are skipped, so replay is idempotent. Stock changes are added up per product
+     * and applied once the whole journal has been read, since adjustments may be journaled out of
+     * order with the checkouts they made room for.
+     */
+    private final class JournalReplay implements OrderJournal.Handler {
+        private final Map<String, Long> stock = new HashMap<>();
+        // Products the journal recorded the stock of
+        private final Set<String> recorded = new HashSet<>();
+
+        @Override
+        public void orderCreated(JournaledOrder record) {
+            if (orders.containsKey(record.getOrderId())) {
+                return;
+            }
+            Currency currency = Currency.getInstance(record.getCurrencyCode());
+            OrderLines.Builder lines = OrderLines.builder(currency, record.getLineCount());
+            for (int i = 0; i < record.getLineCount(); i++) {
+                String productId = record.getProductId(i);
+                int quantity = record.getQuantity(i);
+                stock.merge(productId, (long) -quantity, Long::sum);
+                Product product = findProduct(productId);
+                if (product == null) {
+                    // The product was deleted since; keep the line under its ID
+                    lines.add(productId, productId, null, quantity, record.getUnitPriceMinorUnits(i));
+                } else {
+                    lines.add(productId, product.getName(), product.getCategory(), quantity,
+                            record.getUnitPriceMinorUnits(i));
+                }
+            }
+            BigDecimal total = Money.ofMinor(record.getTotalMinorUnits(), currency).toBigDecimal();
+            Order order = new Order(record.getOrderId(), record.getUserId(), lines.build(), record.getShippingAddress(),
+                    Order.OrderStatus.PENDING, record.getCreatedAt(), total);
+            register(order);
+            analytics.recordOrder(order.getLines());
+            idGenerator.observe(order.getOrderId());
+        }
+
+        @Override
+        public void statusChanged(String orderId, Order.OrderStatus status) {
+            Order order = orders.get(orderId);
+            // A compaction can leave a status behind the one already replayed for the order
+            if (order == null || order.getStatus().compareTo(status) >= 0) {
+                return;
+            }
+            if (status == Order.OrderStatus.CANCELLED) {
+                OrderLines lines = order.getLines();
+                for (int line = 0; line < lines.size(); line++) {
+                    stock.merge(lines.getProductId(line), (long) lines.getQuantity(line), Long::sum);
+                }
+                analytics.recordCancellation(lines);
+            }
+            order.setStatus(status);
+        }
+
+        @Override
+        public void stockAdjusted(String productId, long units) {
+            stock.merge(productId, units, Long::sum);
+            recorded.add(productId);
+        }
+
+        /**
+         * Sets every catalog product's stock from the replayed records, and journals the loaded
+         * stock of products the journal had not recorded yet.
+         *
+         * @throws IllegalStateException if a product would end up with negative stock; no stock
+         *                               is changed then
+         */
+        void applyStock() {
+            Collection<ProductVersion> products = productService.getCatalog().products();
+            Map<ProductVersion, Long> levels = new HashMap<>();
+            for (ProductVersion product : products) {
+                long units = stock.getOrDefault(product.getId(), 0L);
+                if (!recorded.contains(product.getId())) {
+                    units += product.getStockQuantity();
+                }
+                if (units < 0 || units > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Order journal leaves product " + product.getId()
+                            + " with " + units + " units of stock");
+                }
+                levels.put(product, units);
+            }
+            for (ProductVersion product : products) {
+                if (!recorded.contains(product.getId())) {
+                    journal.appendStockAdjusted(product.getId(), product.getStockQuantity());
+                }
+            }
+            levels.forEach((product, units) -> product.getProduct().setStockQuantity(units.intValue()));
+        }
     }
 
     public int getOrderCount() {
-        return orders.size();
+        long stamp = archiveLock.tryOptimisticRead();
+        int count = orders.size() + archive.size();
+        if (!archiveLock.validate(stamp)) {
+            stamp = archiveLock.readLock();
+            try {
+                count = orders.size() + archive.size();
+            } finally {
+                archiveLock.unlockRead(stamp);
+            }
+        }
+        return count;
     }
 }
 
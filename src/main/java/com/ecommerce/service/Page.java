@@ -0,0 +1,49 @@
+package com.ecommerce.service;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paged listing. Pass {@link #getNextCursor()} back to get the page after
+ * it; cursors stay valid while the underlying data changes, so items are neither skipped nor
+ * repeated when others are added between calls.
+ *
+ * @param <T> the item type
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+    private final boolean hasMore;
+
+    Page(List<T> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    /**
+     * Returns the items on this page as a read-only list.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the cursor for the following page. It is never {@code null}: past the last page it
+     * points just after the last item, so polling it later picks up items added since.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Returns whether more items existed past this page when it was read.
+     */
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    @Override
+    public String toString() {
+        return "Page{size=" + items.size() + ", nextCursor='" + nextCursor + "', hasMore=" + hasMore + "}";
+    }
+}
@@ -1,85 +1,594 @@
 package com.ecommerce.service;
 
+import com.ecommerce.catalog.CatalogVersion;
+import com.ecommerce.catalog.ProductVersion;
+import com.ecommerce.importer.CatalogFormat;
+import com.ecommerce.importer.CatalogImporter;
+import com.ecommerce.importer.ImportResult;
+import com.ecommerce.index.AutocompleteIndex;
+import com.ecommerce.index.CategoryIndex;
+import com.ecommerce.index.LeftRight;
+import com.ecommerce.index.ProductSearchIndex;
+import com.ecommerce.metrics.Counter;
+import com.ecommerce.metrics.LatencyHistogram;
+import com.ecommerce.metrics.ServiceMetrics;
 import com.ecommerce.model.Product;
+import com.ecommerce.persistence.CatalogSnapshot;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.ObjLongConsumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
+/**
+ * The product catalog.
+ *
+ * <p>The catalog is a {@link CatalogVersion}: an immutable, structurally shared map published
+ * through a volatile field. Lookups, listings and {@link #getCatalog()} read the current version
+ * without locking, and always see a consistent catalog. Writes are serialized on the service and
+ * publish a new version that shares everything but the changed path with the old one. The
+ * category index is copy-on-write and the search and autocomplete indexes are kept as
+ * {@link LeftRight} pairs, so searches, completions and category lookups never wait for writes
+ * either.</p>
+ *
+ * <p>Every read comes in two forms. The {@code Product} form returns the live, mutable instances,
+ * which carts and orders need for stock; their other fields can change under the reader when a
+ * caller edits a product in place before {@link #updateProduct}. The {@link ProductVersion} form,
+ * such as {@link #getProductVersion} and {@link #searchProductVersions}, returns the frozen
+ * fields each product was published with, and is what display and reporting code should use.</p>
+ *
+ * <p>Stock lives on the live {@link Product} instances and changes through their own lock-free
+ * reservations, outside catalog versions.</p>
+ */
 public class ProductService {
-    private final Map<String, Product> productCatalog;
+    private volatile CatalogVersion catalog = CatalogVersion.empty();
+    // Sorted product IDs, for cursor paging
+    private final NavigableSet<String> productIds;
+    private final LeftRight<ProductSearchIndex> searchIndex;
+    private final LeftRight<AutocompleteIndex> autocompleteIndex;
+    private final CategoryIndex categoryIndex;
+    private final List<ObjLongConsumer<String>> stockListeners = new CopyOnWriteArrayList<>();
+    private final ServiceMetrics metrics = new ServiceMetrics();
+    private final LatencyHistogram getProductLatency = metrics.latency("getProductById");
+    private final LatencyHistogram availabilityLatency = metrics.latency("isProductAvailable");
+    private final LatencyHistogram allProductsLatency = metrics.latency("getAllProducts");
+    private final LatencyHistogram pageLatency = metrics.latency("getProductsPage");
+    private final LatencyHistogram searchLatency = metrics.latency("searchProducts");
+    private final LatencyHistogram categoryLatency = metrics.latency("getProductsByCategory");
+    private final LatencyHistogram autocompleteLatency = metrics.latency("autocomplete");
+    private final LatencyHistogram addLatency = metrics.latency("addProduct");
+    private final LatencyHistogram updateLatency = metrics.latency("updateProduct");
+    private final LatencyHistogram deleteLatency = metrics.latency("deleteProduct");
+    private final LatencyHistogram stockLatency = metrics.latency("updateStock");
+    private final LatencyHistogram importLatency = metrics.latency("importCatalog");
+    private final LatencyHistogram saveSnapshotLatency = metrics.latency("saveSnapshot");
+    private final LatencyHistogram loadSnapshotLatency = metrics.latency("loadSnapshot");
+    private final LatencyHistogram scoreLatency = metrics.latency("refreshAutocompleteScores");
+    private final Counter emptySearches = metrics.counter("emptySearchResults");
 
     public ProductService() {
-        this.productCatalog = new HashMap<>();
-        initializeCatalog();
+        this(true);
+    }
+
+    private ProductService(boolean withSampleCatalog) {
+        this.productIds = new ConcurrentSkipListSet<>();
+        this.searchIndex = new LeftRight<>(new ProductSearchIndex(), new ProductSearchIndex());
+        this.autocompleteIndex = new LeftRight<>(new AutocompleteIndex(), new AutocompleteIndex());
+        this.categoryIndex = new CategoryIndex();
+        if (withSampleCatalog) {
+            initializeCatalog();
+        }
+    }
+
+    /**
+     * Creates a service holding exactly the products in a snapshot written by
+     * {@link #saveSnapshot(Path)}.
+     */
+    public static ProductService fromSnapshot(Path snapshot) {
+        ProductService service = new ProductService(false);
+        service.loadSnapshot(snapshot);
+        return service;
+    }
+
+    /**
+     * Writes the whole catalog to {@code snapshot}. See {@link CatalogSnapshot} for the format.
+     */
+    public void saveSnapshot(Path snapshot) {
+        long start = System.nanoTime();
+        try {
+            CatalogSnapshot.write(snapshot, products());
+        } finally {
+            saveSnapshotLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Replaces the catalog with the products in {@code snapshot}. The search and category
+     * indexes are rebuilt in bulk, in parallel with each other, rather than product by product.
+     */
+    public void loadSnapshot(Path snapshot) {
+        long start = System.nanoTime();
+        try {
+            List<Product> products = CatalogSnapshot.read(snapshot);
+            List<ProductVersion> versions = new ArrayList<>(products.size());
+            for (Product product : products) {
+                versions.add(new ProductVersion(product));
+            }
+            synchronized (this) {
+                Set<String> loaded = new HashSet<>();
+                for (Product product : products) {
+                    loaded.add(product.getId());
+                    stockReplaced(catalog.get(product.getId()), product);
+                }
+                for (ProductVersion previous : catalog.products()) {
+                    if (!loaded.contains(previous.getId())) {
+                        stockReplaced(previous, null);
+                    }
+                }
+                catalog = catalog.withAll(versions, true);
+                productIds.clear();
+                for (Product product : products) {
+                    productIds.add(product.getId());
+                }
+                rebuildIndexes();
+            }
+        } finally {
+            loadSnapshotLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Adds or replaces every product in a supplier feed. Records are parsed and validated in
+     * parallel and applied in batches; the search and category indexes are rebuilt once at the
+     * end. Invalid records are skipped and reported in the result.
+     *
+     * @throws UncheckedIOException if the file cannot be read or is malformed; products before
+     *                              the bad spot stay imported
+     */
+    public ImportResult importCatalog(Path file, CatalogFormat format) {
+        long start = System.nanoTime();
+        try (InputStream in = Files.newInputStream(file)) {
+            return importFrom(in, format);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read catalog feed " + file, e);
+        } finally {
+            importLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Same as {@link #importCatalog(Path, CatalogFormat)}, reading from a stream it does not close.
+     */
+    public ImportResult importCatalog(InputStream in, CatalogFormat format) {
+        long start = System.nanoTime();
+        try {
+            return importFrom(in, format);
+        } finally {
+            importLatency.recordSince(start);
+        }
+    }
+
+    private synchronized ImportResult importFrom(InputStream in, CatalogFormat format) {
+        try {
+            return CatalogImporter.read(in, format, this::upsertWithoutIndexing);
+        } finally {
+            rebuildIndexes();
+        }
+    }
+
+    private void upsertWithoutIndexing(List<Product> products) {
+        List<ProductVersion> versions = new ArrayList<>(products.size());
+        for (Product product : products) {
+            versions.add(new ProductVersion(product));
+            stockReplaced(catalog.get(product.getId()), product);
+        }
+        catalog = catalog.withAll(versions, false);
+        for (Product product : products) {
+            productIds.add(product.getId());
+        }
+    }
+
+    private void rebuildIndexes() {
+        Collection<ProductVersion> versions = catalog.products();
+        List<Product> products = products();
+        CompletableFuture<Void> categories = CompletableFuture.runAsync(() -> categoryIndex.rebuild(versions));
+        searchIndex.write(index -> index.rebuild(products));
+        autocompleteIndex.write(index -> index.rebuild(products));
+        categories.join();
     }
 
     private void initializeCatalog() {
         // Initialize with sample products
-        addProduct(new Product("P001", "Laptop", "High-performance laptop", new BigDecimal("999.99"), 10, "Electronics"));
-        addProduct(new Product("P002", "Smartphone", "Latest smartphone", new BigDecimal("699.99"), 25, "Electronics"));
-        addProduct(new Product("P003", "Headphones", "Wireless headphones", new BigDecimal("149.99"), 50, "Electronics"));
-        addProduct(new Product("P004", "Book", "Programming guide", new BigDecimal("39.99"), 100, "Books"));
-        addProduct(new Product("P005", "Mouse", "Wireless mouse", new BigDecimal("29.99"), 75, "Electronics"));
+        add(new Product("P001", "Laptop", "High-performance laptop", new BigDecimal("999.99"), 10, "Electronics"));
+        add(new Product("P002", "Smartphone", "Latest smartphone", new BigDecimal("699.99"), 25, "Electronics"));
+        add(new Product("P003", "Headphones", "Wireless headphones", new BigDecimal("149.99"), 50, "Electronics"));
+        add(new Product("P004", "Book", "Programming guide", new BigDecimal("39.99"), 100, "Books"));
+        add(new Product("P005", "Mouse", "Wireless mouse", new BigDecimal("29.99"), 75, "Electronics"));
     }
 
     public void addProduct(Product product) {
+        long start = System.nanoTime();
+        try {
+            add(product);
+        } finally {
+            addLatency.recordSince(start);
+        }
+    }
+
+    private synchronized void add(Product product) {
         if (product == null || product.getId() == null) {
             throw new IllegalArgumentException("Product and product ID cannot be null");
         }
-        productCatalog.put(product.getId(), product);
+        publish(product);
+        productIds.add(product.getId());
     }
 
     public Product getProductById(String productId) {
-        Product product = productCatalog.get(productId);
+        long start = System.nanoTime();
+        try {
+            return find(productId);
+        } finally {
+            getProductLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Same as {@link #getProductById}, but returns the product as it was last published.
+     */
+    public ProductVersion getProductVersion(String productId) {
+        long start = System.nanoTime();
+        try {
+            return findVersion(productId);
+        } finally {
+            getProductLatency.recordSince(start);
+        }
+    }
+
+    private Product find(String productId) {
+        return findVersion(productId).getProduct();
+    }
+
+    private ProductVersion findVersion(String productId) {
+        ProductVersion product = productId == null ? null : catalog.get(productId);
         if (product == null) {
             throw new NoSuchElementException("Product not found: " + productId);
         }
         return product;
     }
 
+    /**
+     * Returns the current catalog version: an immutable snapshot that later changes do not
+     * affect. Reading it takes no lock.
+     */
+    public CatalogVersion getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Returns a copy of the whole catalog. Prefer {@link #streamProducts()} or
+     * {@link #getProductsPage(String, int)} for large catalogs.
+     */
     public List<Product> getAllProducts() {
-        return new ArrayList<>(productCatalog.values());
+        long start = System.nanoTime();
+        try {
+            return products();
+        } finally {
+            allProductsLatency.recordSince(start);
+        }
+    }
+
+    private List<Product> products() {
+        CatalogVersion current = catalog;
+        List<Product> products = new ArrayList<>(current.size());
+        for (ProductVersion product : current.products()) {
+            products.add(product.getProduct());
+        }
+        return products;
+    }
+
+    /**
+     * Streams the current catalog version without copying it, in no particular order. Changes
+     * made while the stream is consumed do not show up in it.
+     */
+    public Stream<Product> streamProducts() {
+        return catalog.stream().map(ProductVersion::getProduct);
+    }
+
+    /**
+     * Returns up to {@code limit} products in product ID order, starting after the product ID in
+     * {@code cursor}. Pass {@code null} to start from the first product. Products added or
+     * deleted between calls are picked up or skipped according to where their ID sorts.
+     */
+    public Page<Product> getProductsPage(String cursor, int limit) {
+        long start = System.nanoTime();
+        try {
+            return page(cursor, limit);
+        } finally {
+            pageLatency.recordSince(start);
+        }
+    }
+
+    private Page<Product> page(String cursor, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit cannot be negative");
+        }
+        CatalogVersion current = catalog;
+        Iterator<String> ids = (cursor == null ? productIds : productIds.tailSet(cursor, false)).iterator();
+        List<Product> items = new ArrayList<>(Math.min(limit, current.size()));
+        String last = cursor;
+        while (items.size() < limit && ids.hasNext()) {
+            String id = ids.next();
+            ProductVersion product = current.get(id);
+            // Skip IDs added after or deleted before the version this page reads
+            if (product != null) {
+                items.add(product.getProduct());
+                last = id;
+            }
+        }
+        return new Page<>(Collections.unmodifiableList(items), last == null ? "" : last, ids.hasNext());
     }
 
+    /**
+     * Returns the products in {@code category}, ignoring case, as a read-only list.
+     */
     public List<Product> getProductsByCategory(String category) {
-        return productCatalog.values().stream()
-                .filter(p -> p.getCategory().equalsIgnoreCase(category))
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            return categoryIndex.getProducts(category);
+        } finally {
+            categoryLatency.recordSince(start);
+        }
     }
 
+    /**
+     * Same as {@link #getProductsByCategory}, but returns the products as they were last published.
+     */
+    public List<ProductVersion> getProductVersionsByCategory(String category) {
+        long start = System.nanoTime();
+        try {
+            return categoryIndex.get(category);
+        } finally {
+            categoryLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Finds products whose name or description contains every whitespace-separated term of
+     * {@code keyword}, ignoring case. See {@link ProductSearchIndex} for the exact semantics.
+     */
     public List<Product> searchProducts(String keyword) {
-        return productCatalog.values().stream()
-                .filter(p -> p.getName().toLowerCase().contains(keyword.toLowerCase()) ||
-                        p.getDescription().toLowerCase().contains(keyword.toLowerCase()))
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            return search(keyword);
+        } finally {
+            searchLatency.recordSince(start);
+        }
     }
 
-    public void updateProduct(Product product) {
-        if (product == null || product.getId() == null) {
-            throw new IllegalArgumentException("Product and product ID cannot be null");
+    /**
+     * Same as {@link #searchProducts}, but returns the products as they were last published.
+     */
+    public List<ProductVersion> searchProductVersions(String keyword) {
+        long start = System.nanoTime();
+        try {
+            return versionsOf(search(keyword));
+        } finally {
+            searchLatency.recordSince(start);
+        }
+    }
+
+    private List<Product> search(String keyword) {
+        List<Product> results = searchIndex.read(index -> index.search(keyword));
+        if (results.isEmpty()) {
+            emptySearches.increment();
+        }
+        return results;
+    }
+
+    /**
+     * Looks up the current version of each product, skipping any deleted since it was found.
+     */
+    private List<ProductVersion> versionsOf(List<Product> products) {
+        CatalogVersion current = catalog;
+        List<ProductVersion> versions = new ArrayList<>(products.size());
+        for (Product product : products) {
+            ProductVersion version = current.get(product.getId());
+            if (version != null) {
+                versions.add(version);
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Returns up to {@code limit} products with a name word starting with the last word of
+     * {@code prefix}, and with every earlier word prefixing some other word of the name, ranked
+     * best first. Meant for search-as-you-type; see {@link AutocompleteIndex} for the matching
+     * and ranking rules. By default products rank by stock on hand, as of their last update or
+     * {@link #refreshAutocompleteScores()}. At most {@value AutocompleteIndex#DEFAULT_MAX_SUGGESTIONS}
+     * products are returned.
+     */
+    public List<Product> autocomplete(String prefix, int limit) {
+        long start = System.nanoTime();
+        try {
+            return autocompleteIndex.read(index -> index.complete(prefix, limit));
+        } finally {
+            autocompleteLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Same as {@link #autocomplete}, but returns the products as they were last published.
+     */
+    public List<ProductVersion> autocompleteProductVersions(String prefix, int limit) {
+        long start = System.nanoTime();
+        try {
+            return versionsOf(autocompleteIndex.read(index -> index.complete(prefix, limit)));
+        } finally {
+            autocompleteLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Ranks {@link #autocomplete} results by {@code score}, highest first, for example units sold
+     * from {@code OrderService.getAnalytics()}. Every product is scored again straight away.
+     */
+    public void setAutocompleteScore(ToLongFunction<Product> score) {
+        long start = System.nanoTime();
+        try {
+            synchronized (this) {
+                autocompleteIndex.write(index -> index.setScore(score));
+            }
+        } finally {
+            scoreLatency.recordSince(start);
         }
-        if (!productCatalog.containsKey(product.getId())) {
-            throw new NoSuchElementException("Product not found: " + product.getId());
+    }
+
+    /**
+     * Scores every product again for {@link #autocomplete}, picking up stock or sales that changed
+     * since the products were last updated. Costs a rebuild of the autocomplete index.
+     */
+    public void refreshAutocompleteScores() {
+        long start = System.nanoTime();
+        try {
+            synchronized (this) {
+                autocompleteIndex.write(AutocompleteIndex::refreshScores);
+            }
+        } finally {
+            scoreLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Latency histograms for every catalog operation, keyed by method name, and a counter of
+     * searches that found nothing. Rescoring through {@link #setAutocompleteScore} counts as
+     * {@code refreshAutocompleteScores}, and each {@link ProductVersion} read counts as the
+     * {@code Product} read it mirrors. {@link #getCatalog()} and {@link #streamProducts()}
+     * are not timed: the first is a single field read, and the second returns before the
+     * stream does any work.
+     */
+    public ServiceMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Replaces a product, publishing a new catalog version. Changes made to a {@code Product}
+     * through its setters become visible in {@link #getCatalog()} and the indexes only once it
+     * is passed here.
+     */
+    public void updateProduct(Product product) {
+        long start = System.nanoTime();
+        try {
+            synchronized (this) {
+                if (product == null || product.getId() == null) {
+                    throw new IllegalArgumentException("Product and product ID cannot be null");
+                }
+                if (!catalog.contains(product.getId())) {
+                    throw new NoSuchElementException("Product not found: " + product.getId());
+                }
+                publish(product);
+            }
+        } finally {
+            updateLatency.recordSince(start);
         }
-        productCatalog.put(product.getId(), product);
     }
 
     public void deleteProduct(String productId) {
-        if (!productCatalog.containsKey(productId)) {
-            throw new NoSuchElementException("Product not found: " + productId);
+        long start = System.nanoTime();
+        try {
+            synchronized (this) {
+                if (productId == null || !catalog.contains(productId)) {
+                    throw new NoSuchElementException("Product not found: " + productId);
+                }
+                stockReplaced(catalog.get(productId), null);
+                catalog = catalog.without(productId);
+                productIds.remove(productId);
+                searchIndex.write(index -> index.remove(productId));
+                autocompleteIndex.write(index -> index.remove(productId));
+                categoryIndex.remove(productId);
+            }
+        } finally {
+            deleteLatency.recordSince(start);
         }
-        productCatalog.remove(productId);
+    }
+
+    private void publish(Product product) {
+        stockReplaced(catalog.get(product.getId()), product);
+        ProductVersion version = new ProductVersion(product);
+        catalog = catalog.with(version);
+        searchIndex.write(index -> index.put(product));
+        autocompleteIndex.write(index -> index.put(product));
+        categoryIndex.put(version);
     }
 
     public boolean isProductAvailable(String productId, int quantity) {
-        Product product = getProductById(productId);
-        return product.getStockQuantity() >= quantity;
+        long start = System.nanoTime();
+        try {
+            return find(productId).getStockQuantity() >= quantity;
+        } finally {
+            availabilityLatency.recordSince(start);
+        }
     }
 
     public void updateStock(String productId, int quantity) {
-        Product product = getProductById(productId);
-        product.setStockQuantity(quantity);
+        long start = System.nanoTime();
+        try {
+            int previous = find(productId).getAndSetStockQuantity(quantity);
+            if (previous != quantity) {
+                stockChanged(productId, (long) quantity - previous);
+            }
+        } finally {
+            stockLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Registers {@code listener} for every change this service makes to catalog stock, as a
+     * product ID and a signed number of units: adding, replacing or deleting a product, loading a
+     * snapshot, importing, and {@link #updateStock}. A product added for the first time is always
+     * reported, even with no stock. Checkouts and holds change stock through the products
+     * themselves and are not reported. Changes may be reported in a different order than they
+     * were made, so listeners should only add them up.
+     */
+    public void addStockListener(ObjLongConsumer<String> listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Stock listener cannot be null");
+        }
+        stockListeners.add(listener);
+    }
+
+    public void removeStockListener(ObjLongConsumer<String> listener) {
+        stockListeners.remove(listener);
+    }
+
+    /**
+     * Reports the stock change of {@code previous} being replaced by {@code next}; either may be
+     * null. Replacing a product with the same instance changes nothing.
+     */
+    private void stockReplaced(ProductVersion previous, Product next) {
+        if (stockListeners.isEmpty() || (previous != null && previous.getProduct() == next)) {
+            return;
+        }
+        long before = previous == null ? 0 : previous.getStockQuantity();
+        long after = next == null ? 0 : next.getStockQuantity();
+        if (previous == null || before != after) {
+            stockChanged(previous == null ? next.getId() : previous.getId(), after - before);
+        }
+    }
+
+    private void stockChanged(String productId, long units) {
+        for (ObjLongConsumer<String> listener : stockListeners) {
+            listener.accept(productId, units);
+        }
     }
 }
 
@@ -0,0 +1,274 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.metrics.LatencyHistogram;
+import com.ecommerce.metrics.LatencySnapshot;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ShoppingCart;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulates a crowd of shoppers checking out against a synthetic catalog, to find where the
+ * service layer stops scaling.
+ *
+ * <p>Every shopper runs on its own virtual thread when the JVM has them (Java 21+); on older JVMs
+ * the shoppers share a pool of {@code platformThreads} platform threads, which caps real
+ * concurrency at that number. Each shopper places {@code orders} orders of up to
+ * {@code cartSize} products, picked with a skew towards the start of the catalog so popular
+ * products run out. A placed order is then cancelled with probability {@code cancelRate}, or
+ * confirmed and shipped with probability {@code shipRate}, or left pending.</p>
+ *
+ * <p>The workload is fixed by {@code seed}: every shopper draws from its own split of one seeded
+ * random, so the same carts and follow-up actions are generated on every run. Which checkouts
+ * lose the race for the last units of a product still depends on scheduling. Products that sell
+ * out while a shopper fills a cart are left out of it, as a shopper would. At the end the
+ * remaining stock of every product is checked against the units held by orders that were not
+ * cancelled.</p>
+ *
+ * <pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes \
+ *     com.ecommerce.benchmarks.CheckoutLoadSimulator shoppers=10000 orders=20 catalog=1000 stock=500
+ * </pre>
+ */
+public class CheckoutLoadSimulator {
+    private final int shoppers;
+    private final int ordersPerShopper;
+    private final int catalogSize;
+    private final int stockPerProduct;
+    private final int cartSize;
+    private final double skew;
+    private final double cancelRate;
+    private final double shipRate;
+    private final long seed;
+    private final int platformThreads;
+
+    private final LatencyHistogram checkoutLatency = new LatencyHistogram();
+    private final LatencyHistogram cancelLatency = new LatencyHistogram();
+    private final LatencyHistogram shipLatency = new LatencyHistogram();
+    private final LongAdder checkouts = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder soldOutLines = new LongAdder();
+    private final LongAdder abandonedCarts = new LongAdder();
+
+    CheckoutLoadSimulator(Map<String, String> options) {
+        this.shoppers = Integer.parseInt(options.getOrDefault("shoppers", "10000"));
+        this.ordersPerShopper = Integer.parseInt(options.getOrDefault("orders", "20"));
+        this.catalogSize = Integer.parseInt(options.getOrDefault("catalog", "1000"));
+        this.stockPerProduct = Integer.parseInt(options.getOrDefault("stock", "500"));
+        this.cartSize = Integer.parseInt(options.getOrDefault("cartSize", "3"));
+        this.skew = Double.parseDouble(options.getOrDefault("skew", "2.0"));
+        this.cancelRate = Double.parseDouble(options.getOrDefault("cancelRate", "0.1"));
+        this.shipRate = Double.parseDouble(options.getOrDefault("shipRate", "0.5"));
+        this.seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        this.platformThreads = Integer.parseInt(options.getOrDefault("platformThreads", "256"));
+        if (shoppers <= 0 || ordersPerShopper <= 0 || catalogSize <= 0 || cartSize <= 0 || platformThreads <= 0) {
+            throw new IllegalArgumentException("Counts and sizes must be positive");
+        }
+        if (skew < 1.0 || cancelRate < 0 || shipRate < 0 || cancelRate + shipRate > 1.0) {
+            throw new IllegalArgumentException("skew must be at least 1 and cancelRate + shipRate at most 1");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0) {
+                throw new IllegalArgumentException("Expected name=value, got: " + arg);
+            }
+            options.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+        new CheckoutLoadSimulator(options).run();
+    }
+
+    void run() throws Exception {
+        ProductService productService = createCatalog();
+        SplittableRandom root = new SplittableRandom(seed);
+        List<SplittableRandom> randoms = new ArrayList<>(shoppers);
+        for (int i = 0; i < shoppers; i++) {
+            randoms.add(root.split());
+        }
+
+        long elapsedNanos;
+        try (OrderService orderService = new OrderService(productService)) {
+            String threads;
+            ExecutorService executor = newVirtualThreadExecutor();
+            if (executor != null) {
+                threads = "virtual";
+            } else {
+                executor = Executors.newFixedThreadPool(platformThreads);
+                threads = platformThreads + " platform";
+            }
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> tasks = new ArrayList<>(shoppers);
+            try {
+                for (int i = 0; i < shoppers; i++) {
+                    String userId = "shopper" + i;
+                    SplittableRandom random = randoms.get(i);
+                    tasks.add(executor.submit(() -> {
+                        start.await();
+                        shop(productService, orderService, userId, random);
+                        return null;
+                    }));
+                }
+                long startNanos = System.nanoTime();
+                start.countDown();
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+                elapsedNanos = System.nanoTime() - startNanos;
+            } finally {
+                executor.shutdown();
+            }
+
+            System.out.printf("%,d shoppers x %,d orders on %s threads, %,d products with %,d units each, seed %d%n",
+                    shoppers, ordersPerShopper, threads, catalogSize, stockPerProduct, seed);
+            report(elapsedNanos);
+            checkStock(productService, orderService);
+        }
+    }
+
+    private void shop(ProductService productService, OrderService orderService, String userId,
+                      SplittableRandom random) {
+        for (int n = 0; n < ordersPerShopper; n++) {
+            ShoppingCart cart = new ShoppingCart(userId);
+            for (int line = 0; line < cartSize; line++) {
+                Product product = productService.getProductById(productId(pick(random)));
+                int quantity = 1 + random.nextInt(3);
+                try {
+                    cart.addItem(product, quantity);
+                } catch (IllegalStateException | IllegalArgumentException e) {
+                    // Sold out, or too few units left, as the shopper browses
+                    soldOutLines.increment();
+                }
+            }
+            // Drawn before checkout so the workload does not depend on which checkouts succeed
+            double action = random.nextDouble();
+            if (cart.isEmpty()) {
+                abandonedCarts.increment();
+                continue;
+            }
+
+            Order order;
+            long start = System.nanoTime();
+            try {
+                order = orderService.createOrder(cart, "1 Load Test Way");
+            } catch (IllegalStateException e) {
+                rejections.increment();
+                continue;
+            } catch (RuntimeException e) {
+                failures.increment();
+                continue;
+            } finally {
+                checkoutLatency.recordSince(start);
+                checkouts.increment();
+            }
+
+            try {
+                if (action < cancelRate) {
+                    start = System.nanoTime();
+                    orderService.cancelOrder(order.getOrderId());
+                    cancelLatency.recordSince(start);
+                } else if (action < cancelRate + shipRate) {
+                    start = System.nanoTime();
+                    orderService.confirmOrder(order.getOrderId());
+                    orderService.shipOrder(order.getOrderId());
+                    shipLatency.recordSince(start);
+                }
+            } catch (RuntimeException e) {
+                failures.increment();
+            }
+        }
+    }
+
+    /**
+     * Picks a catalog index, favouring low indexes more the larger {@code skew} is.
+     */
+    private int pick(SplittableRandom random) {
+        return Math.min((int) (catalogSize * Math.pow(random.nextDouble(), skew)), catalogSize - 1);
+    }
+
+    private ProductService createCatalog() {
+        ProductService productService = new ProductService();
+        for (int i = 0; i < catalogSize; i++) {
+            BigDecimal price = BigDecimal.valueOf(100 + i % 10_000, 2);
+            productService.addProduct(new Product(productId(i), "Load test product " + i,
+                    "Synthetic product", price, stockPerProduct, "Category" + i % 50));
+        }
+        return productService;
+    }
+
+    private static String productId(int index) {
+        return "L" + String.format("%07d", index);
+    }
+
+    private void report(long elapsedNanos) {
+        long attempts = checkouts.sum();
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("Elapsed: %,.2f s, %,.0f checkouts/s%n", seconds, attempts / seconds);
+        System.out.printf("Checkouts: %,d, stock rejections: %,d (%.2f%%), other failures: %,d%n",
+                attempts, rejections.sum(), attempts == 0 ? 0.0 : 100.0 * rejections.sum() / attempts, failures.sum());
+        System.out.printf("Lines dropped as sold out while shopping: %,d, carts abandoned empty: %,d%n",
+                soldOutLines.sum(), abandonedCarts.sum());
+        print("createOrder", checkoutLatency.snapshot());
+        print("cancelOrder", cancelLatency.snapshot());
+        print("confirm+ship", shipLatency.snapshot());
+    }
+
+    private static void print(String operation, LatencySnapshot latency) {
+        System.out.printf("%-13s n=%,d p50=%,d us p99=%,d us p999=%,d us max=%,d us%n", operation,
+                latency.getCount(), latency.getP50Nanos() / 1_000, latency.getP99Nanos() / 1_000,
+                latency.getP999Nanos() / 1_000, latency.getMaxNanos() / 1_000);
+    }
+
+    /**
+     * Checks that every unit missing from stock is held by an order that was not cancelled.
+     */
+    private void checkStock(ProductService productService, OrderService orderService) {
+        long[] held = new long[catalogSize];
+        orderService.streamOrders()
+                .filter(order -> order.getStatus() != Order.OrderStatus.CANCELLED)
+                .forEach(order -> {
+                    for (int line = 0; line < order.getLines().size(); line++) {
+                        String productId = order.getLines().getProductId(line);
+                        held[Integer.parseInt(productId.substring(1))] += order.getLines().getQuantity(line);
+                    }
+                });
+        int mismatches = 0;
+        for (int i = 0; i < catalogSize; i++) {
+            long sold = stockPerProduct - productService.getProductById(productId(i)).getStockQuantity();
+            if (sold != held[i]) {
+                mismatches++;
+            }
+        }
+        System.out.println(mismatches == 0 ? "Stock check: ok"
+                : "Stock check: " + mismatches + " products do not match their orders");
+    }
+
+    /**
+     * Returns a virtual-thread-per-task executor, or null on JVMs without virtual threads. Looked
+     * up reflectively so the simulator still compiles for Java 17.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ShoppingCart;
+import com.ecommerce.service.OrderPlacementResult;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the heap retained per delivered order before and after
+ * {@link OrderService#archiveCompletedOrders()}.
+ *
+ * <p>Places the given number of three-line orders for 10,000 users, delivers all of them and
+ * compares the used heap after a full GC. The figures are approximate; run with a fixed heap so
+ * the collector does not resize it between measurements.</p>
+ *
+ * <pre>
+ * mvn test-compile
+ * java -Xms2g -Xmx2g -cp target/classes:target/test-classes \
+ *     com.ecommerce.benchmarks.OrderArchiveFootprintBenchmark 1000000
+ * </pre>
+ */
+public class OrderArchiveFootprintBenchmark {
+
+    public static void main(String[] args) {
+        int orderCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        ProductService productService = new ProductService();
+        List<Product> products = productService.getAllProducts();
+        for (Product product : products) {
+            product.setStockQuantity(Integer.MAX_VALUE);
+        }
+
+        long baseline = usedHeap();
+        try (OrderService orderService = new OrderService(productService)) {
+            List<ShoppingCart> carts = new ArrayList<>(1000);
+            for (int placed = 0; placed < orderCount; placed += carts.size()) {
+                carts.clear();
+                for (int i = placed; i < Math.min(orderCount, placed + 1000); i++) {
+                    ShoppingCart cart = new ShoppingCart("user" + (i % 10_000));
+                    for (int line = 0; line < 3; line++) {
+                        cart.addItem(products.get((i + line) % products.size()), 1 + line);
+                    }
+                    carts.add(cart);
+                }
+                for (OrderPlacementResult result : orderService.createOrders(carts, "123 Main St")) {
+                    String orderId = result.getOrder().getOrderId();
+                    orderService.confirmOrder(orderId);
+                    orderService.shipOrder(orderId);
+                    orderService.deliverOrder(orderId);
+                }
+            }
+
+            long hot = usedHeap() - baseline;
+            long start = System.nanoTime();
+            int archived = orderService.archiveCompletedOrders();
+            long elapsed = System.nanoTime() - start;
+            long cold = usedHeap() - baseline;
+
+            System.out.printf("Archived %,d orders in %,d ms%n", archived, elapsed / 1_000_000);
+            System.out.printf("Live:     %,d bytes retained, %,d per order%n", hot, hot / orderCount);
+            System.out.printf("Archived: %,d bytes retained, %,d per order%n", cold, cold / orderCount);
+            System.out.printf("Lookup check: %s%n", orderService.getOrderById("ORD000001").getStatus());
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,87 @@
+package com.ecommerce.benchmarks;
+
+import com.ecommerce.id.SequentialOrderIdGenerator;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.persistence.JournaledOrder;
+import com.ecommerce.persistence.OrderJournal;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Measures how long it takes to open an order journal holding a given number of entries.
+ *
+ * <p>Each order contributes four entries (created, confirmed, shipped, delivered). The raw
+ * replay only decodes records; the full recovery also rebuilds the {@link OrderService} state and
+ * needs a heap large enough for every order, e.g. {@code -Xmx4g} at 10M entries.</p>
+ *
+ * <pre>
+ * mvn test-compile
+ * java -Xmx4g -cp target/classes:target/test-classes \
+ *     com.ecommerce.benchmarks.OrderJournalRecoveryBenchmark 10000000 full
+ * </pre>
+ */
+public class OrderJournalRecoveryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        long entries = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        boolean full = args.length > 1 && args[1].equals("full");
+        long orderCount = entries / 4;
+        Path file = Files.createTempFile("orders-benchmark", ".journal");
+        Files.delete(file);
+        try {
+            long start = System.nanoTime();
+            writeJournal(file, orderCount);
+            System.out.printf("Wrote %,d entries (%,d MB) in %,d ms%n", orderCount * 4,
+                    Files.size(file) >> 20, (System.nanoTime() - start) / 1_000_000);
+
+            long[] counts = new long[2];
+            start = System.nanoTime();
+            OrderJournal.open(file, new OrderJournal.Handler() {
+                @Override
+                public void orderCreated(JournaledOrder order) {
+                    counts[0]++;
+                }
+
+                @Override
+                public void statusChanged(String orderId, Order.OrderStatus status) {
+                    counts[1]++;
+                }
+            }).close();
+            System.out.printf("Raw replay of %,d entries: %,d ms%n", counts[0] + counts[1],
+                    (System.nanoTime() - start) / 1_000_000);
+
+            if (full) {
+                ProductService productService = new ProductService();
+                productService.updateStock("P004", Integer.MAX_VALUE);
+                start = System.nanoTime();
+                try (OrderService recovered = OrderService.recover(productService, new SequentialOrderIdGenerator(), file)) {
+                    System.out.printf("Full recovery of %,d orders: %,d ms%n", recovered.getOrderCount(),
+                            (System.nanoTime() - start) / 1_000_000);
+                }
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void writeJournal(Path file, long orderCount) {
+        Product product = new ProductService().getProductById("P004");
+        List<CartItem> items = List.of(new CartItem(product, 1));
+        SequentialOrderIdGenerator ids = new SequentialOrderIdGenerator();
+        try (OrderJournal journal = OrderJournal.open(file, null)) {
+            for (long i = 0; i < orderCount; i++) {
+                Order order = new Order(ids.nextId(), "user" + (i % 100_000), items, "123 Main St");
+                journal.appendOrderCreated(order);
+                journal.appendStatusChanged(order.getOrderId(), Order.OrderStatus.CONFIRMED);
+                journal.appendStatusChanged(order.getOrderId(), Order.OrderStatus.SHIPPED);
+                journal.appendStatusChanged(order.getOrderId(), Order.OrderStatus.DELIVERED);
+            }
+        }
+    }
+}
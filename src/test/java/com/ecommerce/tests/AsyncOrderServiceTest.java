@@ -0,0 +1,262 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.inventory.CartHolds;
+import com.ecommerce.inventory.StockShards;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ShoppingCart;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class AsyncOrderServiceTest {
+    private ProductService productService;
+    private OrderService orderService;
+
+    @BeforeMethod
+    public void setUp() {
+        productService = new ProductService();
+        orderService = new OrderService(productService);
+        orderService.startStockShards(4, 64);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        orderService.close();
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrderAsync_Success() throws Exception {
+        Product laptop = productService.getProductById("P001");
+        Product mouse = productService.getProductById("P005");
+        int laptopStock = laptop.getStockQuantity();
+        int mouseStock = mouse.getStockQuantity();
+
+        ShoppingCart cart = new ShoppingCart("user123");
+        cart.addItem(laptop, 1);
+        cart.addItem(mouse, 2);
+        CompletableFuture<Order> future = orderService.createOrderAsync(cart, "123 Main St");
+        cart.clear();
+
+        Order order = future.get(5, TimeUnit.SECONDS);
+        assertEquals(order.getItems().size(), 2, "The cart should be copied when the order is submitted");
+        assertEquals(laptop.getStockQuantity(), laptopStock - 1);
+        assertEquals(mouse.getStockQuantity(), mouseStock - 2);
+        assertEquals(orderService.getOrderById(order.getOrderId()), order);
+        assertEquals(orderService.getMetrics().counter(OrderService.ORDERS_CREATED).get(), 1);
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrderAsync_AllOrNothingAcrossShards() throws Exception {
+        Product laptop = productService.getProductById("P001");
+        int laptopStock = laptop.getStockQuantity();
+        // Spread the cart over several shards, with the last product short of stock
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Product product = new Product("S" + i, "Sharded " + i, "Test", new BigDecimal("1.00"), 5, "Test");
+            productService.addProduct(product);
+            products.add(product);
+        }
+
+        ShoppingCart cart = new ShoppingCart("user123");
+        cart.addItem(laptop, 1);
+        for (Product product : products) {
+            cart.addItem(product, 2);
+        }
+        products.get(7).setStockQuantity(1);
+
+        ExecutionException failure = expectThrows(ExecutionException.class,
+                () -> orderService.createOrderAsync(cart, "123 Main St").get(5, TimeUnit.SECONDS));
+        assertTrue(failure.getCause() instanceof IllegalStateException);
+
+        // Put-backs run on the shard threads, after the future has failed
+        awaitStock(laptop, laptopStock);
+        for (Product product : products.subList(0, 7)) {
+            awaitStock(product, 5);
+        }
+        assertEquals(products.get(7).getStockQuantity(), 1);
+        assertEquals(orderService.getOrderCount(), 0);
+        assertEquals(orderService.getMetrics().counter(OrderService.STOCK_REJECTIONS).get(), 1);
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrderAsync_InvalidCartFailsFuture() {
+        CompletableFuture<Order> future = orderService.createOrderAsync(new ShoppingCart("user123"), "123 Main St");
+        assertTrue(future.isCompletedExceptionally());
+        ExecutionException failure = expectThrows(ExecutionException.class, future::get);
+        assertTrue(failure.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrderAsync_NeverOversells() throws Exception {
+        Product laptop = new Product("P901", "Flash sale laptop", "Test", new BigDecimal("500.00"), 100, "Test");
+        Product mouse = new Product("P902", "Flash sale mouse", "Test", new BigDecimal("10.00"), 1000, "Test");
+        productService.addProduct(laptop);
+        productService.addProduct(mouse);
+
+        OrderService service = new OrderService(productService);
+        service.startStockShards(2, 1000);
+        // Fill every cart first: adding to a cart checks stock that earlier orders are draining
+        List<ShoppingCart> carts = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            ShoppingCart cart = new ShoppingCart("user" + i);
+            cart.addItem(laptop, 1);
+            cart.addItem(mouse, 1);
+            carts.add(cart);
+        }
+        List<CompletableFuture<Order>> futures = new ArrayList<>();
+        for (ShoppingCart cart : carts) {
+            futures.add(service.createOrderAsync(cart, "123 Main St"));
+        }
+        int placed = 0;
+        for (CompletableFuture<Order> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                placed++;
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException, e.getCause().toString());
+            }
+        }
+        service.close();
+
+        assertEquals(placed, 100);
+        assertEquals(laptop.getStockQuantity(), 0);
+        assertEquals(mouse.getStockQuantity(), 900);
+        assertEquals(service.getOrderCount(), 100);
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrderAsync_RejectsWhenShardQueueIsFull() throws Exception {
+        StockShards shards = new StockShards(1, 1);
+        Product product = new Product("P999", "Test", "Test", new BigDecimal("1.00"), 10, "Test");
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Product blocking = new Product("P998", "Blocking", "Test", new BigDecimal("1.00"), 10, "Test") {
+            @Override
+            public boolean tryReserveStock(int quantity) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.tryReserveStock(quantity);
+            }
+        };
+        try {
+            CompletableFuture<?> first = shards.reserve(lines(blocking, 1), Collections.emptyMap(), id -> blocking);
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            CompletableFuture<?> queued = shards.reserve(lines(product, 1), Collections.emptyMap(), id -> product);
+            CompletableFuture<?> rejected = shards.reserve(lines(product, 2), Collections.emptyMap(), id -> product);
+
+            ExecutionException failure = expectThrows(ExecutionException.class,
+                    () -> rejected.get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof RejectedExecutionException);
+            assertFalse(queued.isDone());
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            queued.get(5, TimeUnit.SECONDS);
+            assertEquals(product.getStockQuantity(), 9);
+        } finally {
+            release.countDown();
+            shards.close();
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrderAsync_ClaimsCartHolds() throws Exception {
+        Product laptop = productService.getProductById("P001");
+        productService.updateStock("P001", 2);
+        try (CartHolds holds = new CartHolds(Duration.ofMinutes(15))) {
+            ShoppingCart cart = new ShoppingCart("user123", holds);
+            cart.addItem(laptop, 2);
+
+            Order order = orderService.createOrderAsync(cart, "123 Main St").get(5, TimeUnit.SECONDS);
+            assertEquals(order.getItems().get(0).getQuantity(), 2);
+            assertEquals(laptop.getStockQuantity(), 0, "Held units should not be reserved twice");
+            assertEquals(holds.getActiveHoldCount(), 0);
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrderAsync_RejectionKeepsCartHolds() throws Exception {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Product blocking = new Product("P998", "Blocking", "Test", new BigDecimal("1.00"), 10, "Test") {
+            @Override
+            public boolean tryReserveStock(int quantity) {
+                blocked.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.tryReserveStock(quantity);
+            }
+        };
+        productService.addProduct(blocking);
+        Product laptop = productService.getProductById("P001");
+        int laptopStock = laptop.getStockQuantity();
+        OrderService saturated = new OrderService(productService);
+        saturated.startStockShards(1, 1);
+
+        try (CartHolds holds = new CartHolds(Duration.ofMinutes(15))) {
+            ShoppingCart blocker = new ShoppingCart("blocker");
+            blocker.addItem(blocking, 1);
+            CompletableFuture<Order> first = saturated.createOrderAsync(blocker, "123 Main St");
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+            CompletableFuture<Order> queued = saturated.createOrderAsync(blocker, "123 Main St");
+
+            ShoppingCart held = new ShoppingCart("user123", holds);
+            held.addItem(laptop, 2);
+            ExecutionException failure = expectThrows(ExecutionException.class,
+                    () -> saturated.createOrderAsync(held, "123 Main St").get(5, TimeUnit.SECONDS));
+            assertTrue(failure.getCause() instanceof RejectedExecutionException);
+            assertEquals(holds.getActiveHoldCount(), 1, "A rejected checkout must leave the cart's holds in place");
+            assertEquals(laptop.getStockQuantity(), laptopStock - 2);
+
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            queued.get(5, TimeUnit.SECONDS);
+            Order retried = saturated.createOrderAsync(held, "123 Main St").get(5, TimeUnit.SECONDS);
+            assertEquals(retried.getItems().get(0).getQuantity(), 2);
+            assertEquals(laptop.getStockQuantity(), laptopStock - 2);
+            assertEquals(holds.getActiveHoldCount(), 0);
+        } finally {
+            release.countDown();
+            saturated.close();
+        }
+    }
+
+    private static void awaitStock(Product product, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (product.getStockQuantity() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(product.getStockQuantity(), expected, "Stock should be rolled back for " + product.getId());
+    }
+
+    private static List<CartItem> lines(Product product, int quantity) {
+        return Collections.singletonList(new CartItem(product, quantity));
+    }
+}
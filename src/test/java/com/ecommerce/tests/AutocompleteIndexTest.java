@@ -0,0 +1,136 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.index.AutocompleteIndex;
+import com.ecommerce.model.Product;
+import com.ecommerce.service.ProductService;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class AutocompleteIndexTest {
+
+    @Test(groups = {"smoke", "regression"}, priority = 1)
+    public void testAutocomplete_CompletesNameWordsRankedByStock() {
+        ProductService productService = new ProductService();
+        productService.addProduct(product("P010", "Wireless Keyboard", 5));
+        productService.addProduct(product("P011", "Laptop Stand", 40));
+
+        assertEquals(ids(productService.autocomplete("la", 10)), List.of("P011", "P001"));
+        assertEquals(ids(productService.autocomplete("  WIRE", 10)), List.of("P010"));
+        assertEquals(ids(productService.autocomplete("stand", 10)), List.of("P011"));
+        assertEquals(ids(productService.autocomplete("lap", 1)), List.of("P011"));
+        assertEquals(productService.autocomplete("zz", 10), List.of());
+        assertEquals(productService.autocomplete(" ", 10), List.of());
+    }
+
+    @Test(groups = {"regression"})
+    public void testAutocomplete_EarlierWordsFilterCompletions() {
+        ProductService productService = new ProductService();
+        productService.addProduct(product("P010", "Wireless Mouse Pad", 5));
+        productService.addProduct(product("P011", "Wired Mouse", 90));
+
+        assertEquals(ids(productService.autocomplete("wireless mo", 10)), List.of("P010"));
+        assertEquals(ids(productService.autocomplete("mouse wir", 10)), List.of("P011", "P010"));
+        assertEquals(productService.autocomplete("book mo", 10), List.of());
+    }
+
+    @Test(groups = {"regression"})
+    public void testAutocomplete_FollowsCatalogChanges() {
+        ProductService productService = new ProductService();
+        Product laptop = productService.getProductById("P001");
+        laptop.setName("Notebook Computer");
+        productService.updateProduct(laptop);
+        assertEquals(productService.autocomplete("lap", 10), List.of());
+        assertEquals(ids(productService.autocomplete("note", 10)), List.of("P001"));
+
+        productService.deleteProduct("P001");
+        assertEquals(productService.autocomplete("note", 10), List.of());
+    }
+
+    @Test(groups = {"regression"})
+    public void testAutocomplete_ScoreIsPluggableAndRefreshable() {
+        ProductService productService = new ProductService();
+        productService.addProduct(product("P010", "Headphone Stand", 500));
+        assertEquals(ids(productService.autocomplete("head", 10)), List.of("P010", "P003"));
+
+        productService.setAutocompleteScore(product -> product.getPrice().longValue());
+        assertEquals(ids(productService.autocomplete("head", 10)), List.of("P003", "P010"));
+
+        productService.setAutocompleteScore(Product::getStockQuantity);
+        productService.updateStock("P003", 1000);
+        assertEquals(ids(productService.autocomplete("head", 10)), List.of("P010", "P003"),
+                "Stock changes are picked up on refresh, not on every change");
+        productService.refreshAutocompleteScores();
+        assertEquals(ids(productService.autocomplete("head", 10)), List.of("P003", "P010"));
+    }
+
+    @Test(groups = {"regression"})
+    public void testComplete_MatchesBruteForceTopK() {
+        AutocompleteIndex index = new AutocompleteIndex(Product::getStockQuantity, 5);
+        String[] words = {"alpha", "alpine", "alps", "amber", "apple", "apricot", "banana", "band", "bandana", "cafe"};
+        Random random = new Random(7);
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)];
+            products.add(product(String.format("P%04d", i), name, random.nextInt(1000)));
+        }
+        index.rebuild(products.subList(0, 200));
+        for (Product product : products.subList(200, 400)) {
+            index.put(product);
+        }
+        for (int i = 0; i < 100; i++) {
+            Product removed = products.remove(random.nextInt(products.size()));
+            index.remove(removed.getId());
+        }
+
+        for (String prefix : new String[]{"a", "al", "alp", "b", "band", "c", "apple b", "z"}) {
+            assertEquals(ids(index.complete(prefix, 5)), bruteForce(products, prefix, 5), prefix);
+        }
+        assertEquals(index.complete("a", 50).size(), 5, "Completions are capped at the configured maximum");
+        assertThrows(IllegalArgumentException.class, () -> index.complete(null, 5));
+    }
+
+    private static List<String> bruteForce(List<Product> products, String prefix, int limit) {
+        String[] terms = prefix.trim().split("\\s+");
+        return products.stream()
+                .filter(product -> matches(product, terms))
+                .sorted(Comparator.comparingInt(Product::getStockQuantity).reversed()
+                        .thenComparing(product -> product.getName().toLowerCase())
+                        .thenComparing(Product::getId))
+                .limit(limit)
+                .map(Product::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static boolean matches(Product product, String[] terms) {
+        String[] nameWords = product.getName().split(" ");
+        for (String term : terms) {
+            boolean found = false;
+            for (String word : nameWords) {
+                found |= word.startsWith(term);
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> ids(List<Product> products) {
+        assertTrue(products.size() <= AutocompleteIndex.DEFAULT_MAX_SUGGESTIONS);
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    private static Product product(String id, String name, int stock) {
+        return new Product(id, name, name, new BigDecimal("19.99"), stock, "Test");
+    }
+}
@@ -0,0 +1,220 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.inventory.CartHolds;
+import com.ecommerce.inventory.StockHold;
+import com.ecommerce.inventory.StockReservation;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ShoppingCart;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Currency;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class CartHoldsTest {
+    private static final Duration TTL = Duration.ofMinutes(15);
+    private static final Duration TICK = Duration.ofMillis(100);
+
+    private final AtomicLong clock = new AtomicLong();
+    private CartHolds holds;
+    private ProductService productService;
+    private OrderService orderService;
+
+    @BeforeMethod
+    public void setUp() {
+        clock.set(0);
+        holds = new CartHolds(TTL, TICK, clock::get);
+        productService = new ProductService();
+        orderService = new OrderService(productService);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        holds.close();
+        orderService.close();
+    }
+
+    @Test(groups = {"regression"})
+    public void testAddItem_TakesStockUntilExpiry() {
+        Product laptop = productService.getProductById("P001");
+        int stock = laptop.getStockQuantity();
+
+        ShoppingCart cart = new ShoppingCart("user123", holds);
+        cart.addItem(laptop, 2);
+        assertEquals(laptop.getStockQuantity(), stock - 2);
+
+        advance(TTL.minus(TICK));
+        assertEquals(holds.expireDue(), 0, "Hold should not expire before its TTL");
+        advance(TICK);
+        assertEquals(holds.expireDue(), 1);
+        assertEquals(laptop.getStockQuantity(), stock);
+        assertEquals(holds.getActiveHoldCount(), 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testAddItem_RejectedWhenOthersHoldTheStock() {
+        Product laptop = productService.getProductById("P001");
+        productService.updateStock("P001", 3);
+
+        new ShoppingCart("user1", holds).addItem(laptop, 2);
+        ShoppingCart late = new ShoppingCart("user2", holds);
+        assertThrows(IllegalStateException.class, () -> late.addItem(laptop, 2));
+        assertTrue(late.isEmpty());
+        assertEquals(laptop.getStockQuantity(), 1);
+    }
+
+    @Test(groups = {"regression"})
+    public void testChangingLine_RenewsHold() {
+        Product laptop = productService.getProductById("P001");
+        int stock = laptop.getStockQuantity();
+        ShoppingCart cart = new ShoppingCart("user123", holds);
+        cart.addItem(laptop, 1);
+
+        advance(TTL.minusMinutes(1));
+        cart.updateItemQuantity("P001", 3);
+        assertEquals(laptop.getStockQuantity(), stock - 3);
+        advance(Duration.ofMinutes(2));
+        assertEquals(holds.expireDue(), 0, "Updating the line should restart its TTL");
+
+        cart.updateItemQuantity("P001", 2);
+        assertEquals(laptop.getStockQuantity(), stock - 2);
+        cart.removeItem("P001");
+        assertEquals(laptop.getStockQuantity(), stock);
+        assertEquals(holds.getActiveHoldCount(), 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testClear_ReleasesEveryHold() {
+        Product laptop = productService.getProductById("P001");
+        Product mouse = productService.getProductById("P005");
+        int laptopStock = laptop.getStockQuantity();
+        int mouseStock = mouse.getStockQuantity();
+
+        ShoppingCart cart = new ShoppingCart("user123", holds);
+        cart.addItem(laptop, 1);
+        cart.addItem(mouse, 4);
+        cart.clear();
+
+        assertEquals(laptop.getStockQuantity(), laptopStock);
+        assertEquals(mouse.getStockQuantity(), mouseStock);
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrder_ClaimsHeldStock() {
+        Product laptop = productService.getProductById("P001");
+        productService.updateStock("P001", 2);
+        ShoppingCart cart = new ShoppingCart("user123", holds);
+        cart.addItem(laptop, 2);
+
+        Order order = orderService.createOrder(cart, "123 Main St");
+        assertEquals(order.getItems().get(0).getQuantity(), 2);
+        assertEquals(laptop.getStockQuantity(), 0, "Held units should not be reserved twice");
+        assertEquals(holds.getActiveHoldCount(), 0);
+
+        advance(TTL.plus(TICK));
+        assertEquals(holds.expireDue(), 0);
+        assertEquals(laptop.getStockQuantity(), 0, "Claimed units must not come back on expiry");
+
+        orderService.cancelOrder(order.getOrderId());
+        assertEquals(laptop.getStockQuantity(), 2);
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrder_ReservesExpiredHoldsAgain() {
+        Product laptop = productService.getProductById("P001");
+        Product mouse = productService.getProductById("P005");
+        int mouseStock = mouse.getStockQuantity();
+        productService.updateStock("P001", 2);
+        ShoppingCart cart = new ShoppingCart("user123", holds);
+        cart.addItem(laptop, 2);
+        cart.addItem(mouse, 1);
+
+        advance(TTL);
+        holds.expireDue();
+        // Someone else buys the laptops once the hold has lapsed
+        laptop.reduceStock(1);
+
+        assertThrows(IllegalStateException.class, () -> orderService.createOrder(cart, "123 Main St"));
+        assertEquals(laptop.getStockQuantity(), 1);
+        assertEquals(mouse.getStockQuantity(), mouseStock);
+        assertEquals(holds.getActiveHoldCount(), 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testAddItem_RejectedLineHoldsNothing() {
+        Product laptop = productService.getProductById("P001");
+        Product euroLaptop = new Product("P999", "Euro laptop", "Test", new BigDecimal("899.00"), 5, "Test");
+        euroLaptop.setCurrency(Currency.getInstance("EUR"));
+        ShoppingCart cart = new ShoppingCart("user123", holds);
+        cart.addItem(laptop, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> cart.addItem(euroLaptop, 2));
+        assertEquals(euroLaptop.getStockQuantity(), 5, "A line the cart rejects must not hold stock");
+        assertEquals(holds.getActiveHoldCount(), 1);
+        assertEquals(cart.getItemCount(), 1);
+    }
+
+    @Test(groups = {"regression"})
+    public void testReserve_LookupFailureReturnsHeldUnits() {
+        Product laptop = productService.getProductById("P001");
+        productService.updateStock("P001", 2);
+        ShoppingCart cart = new ShoppingCart("user123", holds);
+        cart.addItem(laptop, 2);
+        cart.addItem(new Product("P999", "Discontinued", "Test", new BigDecimal("1.00"), 5, "Test"), 1);
+
+        Map<String, Integer> held = cart.claimHeldStock();
+        assertThrows(NoSuchElementException.class,
+                () -> StockReservation.reserve(cart.getItems(), held, productService::getProductById));
+        assertEquals(laptop.getStockQuantity(), 2, "Claimed units must go back when a product lookup fails");
+    }
+
+    @Test(groups = {"regression"})
+    public void testResize_FailureKeepsExistingHold() {
+        Product product = new Product("P999", "Test", "Test", new BigDecimal("1.00"), 5, "Test");
+        StockHold hold = holds.hold(product, 3);
+        assertThrows(IllegalStateException.class, () -> holds.resize(hold, product, 6));
+        assertTrue(hold.isActive());
+        assertEquals(hold.getQuantity(), 3);
+        assertEquals(product.getStockQuantity(), 2);
+
+        assertEquals(holds.claim(hold), 3);
+        assertFalse(hold.isActive());
+        assertEquals(holds.claim(hold), 0, "A hold can only be claimed once");
+    }
+
+    @Test(groups = {"regression"})
+    public void testManyHolds_AllExpireAcrossWheelLevels() {
+        Product product = new Product("P999", "Test", "Test", new BigDecimal("1.00"), 1_000_000, "Test");
+        Random random = new Random(42);
+        int holdCount = 20_000;
+        for (int i = 0; i < holdCount; i++) {
+            // Spread over several hours so timers cascade down from the upper levels
+            clock.set(Duration.ofMillis(random.nextInt(4 * 3_600_000)).toNanos());
+            holds.hold(product, 1);
+        }
+        assertEquals(holds.getActiveHoldCount(), holdCount);
+
+        clock.set(Duration.ofHours(4).plus(TTL).plus(TICK).toNanos());
+        assertEquals(holds.expireDue(), holdCount);
+        assertEquals(product.getStockQuantity(), 1_000_000);
+        assertEquals(holds.getExpiredCount(), holdCount);
+    }
+
+    private void advance(Duration duration) {
+        clock.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,122 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.importer.CatalogFormat;
+import com.ecommerce.importer.ImportResult;
+import com.ecommerce.model.Product;
+import com.ecommerce.service.ProductService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Currency;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class CatalogImportTest {
+    private ProductService productService;
+
+    @BeforeMethod
+    public void setUp() {
+        productService = new ProductService();
+    }
+
+    @Test(groups = {"smoke", "regression"}, priority = 1)
+    public void testImportJson_UpsertsAndIndexes() {
+        String json = "[" +
+                "{\"id\": \"J001\", \"name\": \"Desk Lamp\", \"description\": \"LED lamp\", \"price\": 24.50," +
+                " \"stockQuantity\": 12, \"category\": \"Home\", \"tags\": [\"a\", {\"b\": 1}]}," +
+                "{\"id\": \"P001\", \"name\": \"Laptop Pro\", \"price\": \"1299.00\", \"stock\": 3, \"category\": \"Electronics\"}," +
+                "{\"id\": \"J002\", \"name\": \"Matcha\", \"price\": 1500, \"currency\": \"jpy\", \"category\": null}" +
+                "]";
+
+        ImportResult result = productService.importCatalog(stream(json), CatalogFormat.JSON);
+
+        assertEquals(result.getAcceptedCount(), 3L);
+        assertEquals(result.getRejectedCount(), 0L);
+        assertEquals(productService.getProductById("J001").getPrice(), new BigDecimal("24.50"));
+        assertEquals(productService.getProductById("P001").getName(), "Laptop Pro");
+        assertEquals(productService.getProductById("P001").getStockQuantity(), 3);
+        assertEquals(productService.getProductById("J002").getCurrency(), Currency.getInstance("JPY"));
+        assertEquals(productService.getProductById("J002").getStockQuantity(), 0);
+        assertNull(productService.getProductById("J002").getCategory());
+        assertEquals(productService.searchProducts("lamp").get(0).getId(), "J001");
+        assertEquals(productService.searchProducts("laptop pro").size(), 1);
+        assertEquals(productService.getProductsByCategory("home").size(), 1);
+    }
+
+    @Test(groups = {"regression"})
+    public void testImportJson_RejectsInvalidRecordsAndKeepsGoing() {
+        String ndjson = "{\"id\": \"J010\", \"name\": \"Ok\", \"price\": 1}\n" +
+                "{\"name\": \"No id\", \"price\": 1}\n" +
+                "{\"id\": \"J011\", \"name\": \"Negative\", \"price\": -1}\n" +
+                "{\"id\": \"J012\", \"name\": \"Fraction\", \"price\": 0.001}\n" +
+                "{\"id\": \"J013\", \"name\": \"Bad stock\", \"price\": 2, \"stock\": \"lots\"}\n" +
+                "{\"id\": \"J014\", \"name\": \"Also ok\", \"price\": 2}\n";
+
+        ImportResult result = productService.importCatalog(stream(ndjson), CatalogFormat.JSON);
+
+        assertEquals(result.getAcceptedCount(), 3L);
+        assertEquals(result.getRejectedCount(), 3L);
+        assertEquals(result.getErrors().size(), 3);
+        assertTrue(result.getErrors().get(0).startsWith("Record 2:"), result.getErrors().get(0));
+        assertTrue(result.getErrors().get(2).contains("J013"), result.getErrors().get(2));
+        // Prices finer than a cent are rounded, not rejected
+        assertEquals(productService.getProductById("J012").getPrice(), new BigDecimal("0.00"));
+    }
+
+    @Test(groups = {"regression"})
+    public void testImportCsv_HandlesQuotingAndHeaderOrder() {
+        String csv = "Price,ID,Name,Description,Category,Stock\r\n" +
+                "19.99,C001,\"Cable, braided\",\"2m \"\"fast\"\" cable\",Electronics,40\r\n" +
+                "\r\n" +
+                "5.00,C002,Notebook,\"Lined,\nA5\",Stationery,\r\n" +
+                "oops,C003,Broken,,Stationery,1\r\n";
+
+        ImportResult result = productService.importCatalog(stream(csv), CatalogFormat.CSV);
+
+        assertEquals(result.getAcceptedCount(), 2L);
+        assertEquals(result.getRejectedCount(), 1L);
+        assertTrue(result.getErrors().get(0).startsWith("Record 6:"), result.getErrors().get(0));
+        Product cable = productService.getProductById("C001");
+        assertEquals(cable.getName(), "Cable, braided");
+        assertEquals(cable.getDescription(), "2m \"fast\" cable");
+        assertEquals(cable.getStockQuantity(), 40);
+        assertEquals(productService.getProductById("C002").getDescription(), "Lined,\nA5");
+        assertEquals(productService.getProductsByCategory("stationery").size(), 1);
+    }
+
+    @Test(groups = {"regression"})
+    public void testImport_LastOccurrenceWinsAcrossBatches() {
+        StringBuilder csv = new StringBuilder("id,name,price,stock\n");
+        for (int i = 0; i < 10_000; i++) {
+            csv.append("B").append(i % 2_500).append(",Item ").append(i).append(",1.00,").append(i).append('\n');
+        }
+
+        ImportResult result = productService.importCatalog(stream(csv.toString()), CatalogFormat.CSV);
+
+        assertEquals(result.getAcceptedCount(), 10_000L);
+        assertEquals(productService.getAllProducts().size(), 5 + 2_500);
+        assertEquals(productService.getProductById("B7").getStockQuantity(), 7_507);
+        assertEquals(productService.searchProducts("item 7507").size(), 1);
+        assertEquals(productService.searchProducts("item 2499").size(), 0, "Earlier occurrences are replaced");
+    }
+
+    @Test(groups = {"regression"})
+    public void testImport_MalformedFeedThrowsButKeepsIndexesConsistent() {
+        String json = "[{\"id\": \"J020\", \"name\": \"Fine\", \"price\": 1}, {\"id\": ";
+
+        assertThrows(UncheckedIOException.class, () -> productService.importCatalog(stream(json), CatalogFormat.JSON));
+        assertEquals(productService.searchProducts("laptop").size(), 1);
+    }
+
+    private static InputStream stream(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+}
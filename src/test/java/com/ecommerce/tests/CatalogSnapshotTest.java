@@ -0,0 +1,124 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.model.Product;
+import com.ecommerce.persistence.CatalogSnapshot;
+import com.ecommerce.service.ProductService;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Currency;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+
+public class CatalogSnapshotTest {
+    private Path snapshotFile;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        snapshotFile = Files.createTempFile("catalog", ".snapshot");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshotFile);
+    }
+
+    @Test(groups = {"smoke", "regression"}, priority = 1)
+    public void testFromSnapshot_RestoresCatalogAndIndexes() {
+        ProductService original = new ProductService();
+        original.updateStock("P002", 7);
+        original.saveSnapshot(snapshotFile);
+
+        ProductService loaded = ProductService.fromSnapshot(snapshotFile);
+
+        assertEquals(loaded.getAllProducts().size(), original.getAllProducts().size());
+        for (Product product : original.getAllProducts()) {
+            Product copy = loaded.getProductById(product.getId());
+            assertEquals(copy.getName(), product.getName());
+            assertEquals(copy.getPrice(), product.getPrice());
+            assertEquals(copy.getStockQuantity(), product.getStockQuantity());
+            assertEquals(copy.getCategory(), product.getCategory());
+        }
+        assertEquals(loaded.getProductsByCategory("electronics").size(), 4);
+        assertEquals(loaded.searchProducts("laptop").size(), original.searchProducts("laptop").size());
+    }
+
+    @Test(groups = {"regression"})
+    public void testWriteRead_PreservesNullsScalesAndCurrencies() {
+        Product bare = new Product("X1", "Bare", null, new BigDecimal("10"), 0, null);
+        Product cents = new Product("X2", "Sticker", "Vinyl sticker", new BigDecimal("0.50"), 3, "Stationery");
+        Product yen = new Product("X3", "Tea", "Green tea", null, 12, "stationery");
+        yen.setCurrency(Currency.getInstance("JPY"));
+        yen.setPrice(new BigDecimal("1200"));
+
+        CatalogSnapshot.write(snapshotFile, Arrays.asList(bare, cents, yen));
+        List<Product> products = CatalogSnapshot.read(snapshotFile);
+
+        assertEquals(products.size(), 3);
+        assertNull(products.get(0).getDescription());
+        assertNull(products.get(0).getCategory());
+        assertEquals(products.get(0).getPrice(), new BigDecimal("10"));
+        assertEquals(products.get(1).getPrice(), new BigDecimal("0.50"));
+        assertEquals(products.get(2).getCurrency(), Currency.getInstance("JPY"));
+        assertEquals(products.get(2).getUnitPrice().getMinorUnits(), 1200L);
+        assertEquals(products.get(2).getCategory(), "stationery");
+    }
+
+    @Test(groups = {"regression"})
+    public void testRead_SharesCategoryStrings() {
+        Product first = new Product("C1", "Pen", "Blue pen", new BigDecimal("1.20"), 5, "Stationery");
+        Product second = new Product("C2", "Pencil", "HB pencil", new BigDecimal("0.80"), 5, "Stationery");
+        CatalogSnapshot.write(snapshotFile, List.of(first, second));
+
+        List<Product> products = CatalogSnapshot.read(snapshotFile);
+        assertSame(products.get(0).getCategory(), products.get(1).getCategory());
+    }
+
+    @Test(groups = {"regression"})
+    public void testRead_RejectsForeignFile() throws IOException {
+        Files.write(snapshotFile, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+        assertThrows(UncheckedIOException.class, () -> CatalogSnapshot.read(snapshotFile));
+    }
+
+    @Test(groups = {"regression"})
+    public void testWrite_FailureKeepsOldSnapshotAndLeavesNoTempFile() {
+        Product only = new Product("Z1", "Notebook", "Lined notebook", new BigDecimal("4.99"), 10, "Stationery");
+        CatalogSnapshot.write(snapshotFile, List.of(only));
+        Product unwritable = new Product("Z2", "Unwritable", "Test", new BigDecimal("1.00"), 1, "Test") {
+            @Override
+            public BigDecimal getPrice() {
+                return new BigDecimal("123456789012345678901234567890");
+            }
+        };
+
+        assertThrows(ArithmeticException.class, () -> CatalogSnapshot.write(snapshotFile, List.of(only, unwritable)));
+        assertFalse(Files.exists(snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp")));
+        assertEquals(CatalogSnapshot.read(snapshotFile).size(), 1);
+    }
+
+    @Test(groups = {"regression"})
+    public void testLoadSnapshot_ReplacesExistingCatalog() {
+        Product only = new Product("Z1", "Notebook", "Lined notebook", new BigDecimal("4.99"), 10, "Stationery");
+        CatalogSnapshot.write(snapshotFile, List.of(only));
+
+        ProductService productService = new ProductService();
+        productService.loadSnapshot(snapshotFile);
+
+        assertEquals(productService.getAllProducts().size(), 1);
+        assertEquals(productService.searchProducts("laptop").size(), 0);
+        assertEquals(productService.getProductsByCategory("Electronics").size(), 0);
+        assertEquals(productService.searchProducts("notebook").get(0).getId(), "Z1");
+    }
+}
@@ -0,0 +1,244 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.catalog.CatalogVersion;
+import com.ecommerce.catalog.PersistentHashMap;
+import com.ecommerce.catalog.ProductVersion;
+import com.ecommerce.index.LeftRight;
+import com.ecommerce.model.Product;
+import com.ecommerce.service.ProductService;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class CatalogVersionTest {
+
+    @Test(groups = {"smoke", "regression"}, priority = 1)
+    public void testCatalogVersion_IsUnaffectedByLaterWrites() {
+        ProductService productService = new ProductService();
+        CatalogVersion before = productService.getCatalog();
+        BigDecimal laptopPrice = before.get("P001").getPrice();
+
+        Product laptop = productService.getProductById("P001");
+        laptop.setPrice(new BigDecimal("1.00"));
+        productService.updateProduct(laptop);
+        productService.deleteProduct("P002");
+        productService.addProduct(new Product("P100", "Desk", "Standing desk", new BigDecimal("300.00"), 5, "Furniture"));
+
+        assertEquals(before.get("P001").getPrice(), laptopPrice);
+        assertTrue(before.contains("P002"));
+        assertFalse(before.contains("P100"));
+
+        CatalogVersion after = productService.getCatalog();
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(after.get("P001").getPrice(), new BigDecimal("1.00"));
+        assertFalse(after.contains("P002"));
+        assertEquals(after.size(), before.size());
+    }
+
+    @Test(groups = {"regression"})
+    public void testPersistentHashMap_MatchesHashMap() {
+        Random random = new Random(17);
+        Map<Integer, Integer> expected = new HashMap<>();
+        PersistentHashMap<Integer, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(5_000);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+        }
+        assertEquals(map.size(), expected.size());
+        for (int key = 0; key < 5_000; key++) {
+            assertEquals(map.get(key), expected.get(key), "Mismatch for key " + key);
+        }
+        assertEquals(new HashSet<>(map.values()), new HashSet<>(expected.values()));
+    }
+
+    @Test(groups = {"regression"})
+    public void testPersistentHashMap_HandlesHashCollisions() {
+        // "Aa" and "BB" share a hash code, as do all their concatenations
+        List<String> colliding = List.of("AaAa", "AaBB", "BBAa", "BBBB");
+        PersistentHashMap<String, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < colliding.size(); i++) {
+            map = map.plus(colliding.get(i), i);
+        }
+        PersistentHashMap<String, Integer> withoutOne = map.minus("AaBB");
+
+        assertEquals(map.size(), 4);
+        assertEquals(map.get("BBAa"), Integer.valueOf(2));
+        assertEquals(withoutOne.size(), 3);
+        assertNull(withoutOne.get("AaBB"));
+        assertEquals(withoutOne.get("BBBB"), Integer.valueOf(3));
+        assertSame(map.minus("missing"), map);
+    }
+
+    @Test(groups = {"regression"})
+    public void testBuilder_LeavesSourceMapUntouched() {
+        PersistentHashMap<Integer, Integer> source = PersistentHashMap.empty();
+        for (int i = 0; i < 1_000; i++) {
+            source = source.plus(i, i);
+        }
+        PersistentHashMap.Builder<Integer, Integer> builder = source.toBuilder();
+        for (int i = 0; i < 1_000; i += 2) {
+            builder.put(i, -i);
+        }
+        builder.remove(1);
+        PersistentHashMap<Integer, Integer> built = builder.build();
+
+        assertEquals(source.size(), 1_000);
+        assertEquals(source.get(2), Integer.valueOf(2));
+        assertEquals(source.get(1), Integer.valueOf(1));
+        assertEquals(built.size(), 999);
+        assertEquals(built.get(2), Integer.valueOf(-2));
+        assertNull(built.get(1));
+    }
+
+    @Test(groups = {"regression"})
+    public void testWithAll_ReplacesWholeCatalog() {
+        CatalogVersion catalog = new ProductService().getCatalog();
+        ProductVersion desk = new ProductVersion(
+                new Product("P100", "Desk", "Standing desk", new BigDecimal("300.00"), 5, "Furniture"));
+
+        CatalogVersion merged = catalog.withAll(List.of(desk), false);
+        CatalogVersion replaced = catalog.withAll(List.of(desk), true);
+
+        assertEquals(merged.size(), catalog.size() + 1);
+        assertEquals(replaced.size(), 1);
+        assertEquals(replaced.stream().map(ProductVersion::getId).collect(Collectors.toList()), List.of("P100"));
+    }
+
+    @Test(groups = {"regression"})
+    public void testReaders_SeeConsistentVersionsDuringWrites() throws Exception {
+        ProductService productService = new ProductService();
+        int baseline = productService.getCatalog().size();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        ExecutorService readers = Executors.newFixedThreadPool(2);
+        CountDownLatch started = new CountDownLatch(2);
+        try {
+            Future<Set<Integer>> sizes = readers.submit(() -> {
+                started.countDown();
+                Set<Integer> seen = new HashSet<>();
+                while (writing.get()) {
+                    CatalogVersion version = productService.getCatalog();
+                    // Every product of a version is reachable, and its size matches its contents
+                    assertEquals((int) version.stream().count(), version.size());
+                    seen.add(version.size());
+                }
+                return seen;
+            });
+            Future<?> searches = readers.submit(() -> {
+                started.countDown();
+                while (writing.get()) {
+                    productService.searchProducts("bulk");
+                    productService.getProductsByCategory("Bulk");
+                }
+            });
+            started.await();
+            for (int i = 0; i < 2_000; i++) {
+                productService.addProduct(new Product(String.format("X%05d", i), "Bulk " + i, "Bulk item",
+                        new BigDecimal("1.00"), 1, "Bulk"));
+            }
+            writing.set(false);
+
+            searches.get(10, TimeUnit.SECONDS);
+            for (int size : sizes.get(10, TimeUnit.SECONDS)) {
+                assertTrue(size >= baseline && size <= baseline + 2_000, "Unexpected catalog size " + size);
+            }
+            assertEquals(productService.getProductsByCategory("Bulk").size(), 2_000);
+            assertEquals(productService.getCatalog().size(), baseline + 2_000);
+        } finally {
+            readers.shutdownNow();
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testVersionReads_IgnoreInPlaceEditsUntilUpdate() {
+        ProductService productService = new ProductService();
+        Product laptop = productService.getProductById("P001");
+
+        laptop.setName("Notebook");
+        laptop.setCategory("Computers");
+
+        assertEquals(productService.getProductVersion("P001").getName(), "Laptop");
+        assertEquals(names(productService.searchProductVersions("laptop")), List.of("Laptop"));
+        assertTrue(productService.searchProductVersions("notebook").isEmpty());
+        assertTrue(names(productService.getProductVersionsByCategory("Electronics")).contains("Laptop"));
+        assertEquals(names(productService.autocompleteProductVersions("lap", 5)), List.of("Laptop"));
+
+        productService.updateProduct(laptop);
+
+        assertEquals(productService.getProductVersion("P001").getName(), "Notebook");
+        assertEquals(names(productService.searchProductVersions("notebook")), List.of("Notebook"));
+        assertEquals(names(productService.getProductVersionsByCategory("Computers")), List.of("Notebook"));
+        assertFalse(names(productService.getProductVersionsByCategory("Electronics")).contains("Notebook"));
+        // Stock is still read from the live product
+        laptop.setStockQuantity(3);
+        assertEquals(productService.getProductVersion("P001").getStockQuantity(), 3);
+    }
+
+    @Test(groups = {"regression"})
+    public void testLeftRight_ReadsDoNotWaitForWrites() throws Exception {
+        LeftRight<List<String>> lists = new LeftRight<>(new ArrayList<>(), new ArrayList<>());
+        CountDownLatch applying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean first = new AtomicBoolean(true);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> write = writer.submit(() -> lists.write(list -> {
+                list.add("added");
+                if (first.getAndSet(false)) {
+                    applying.countDown();
+                    awaitQuietly(release);
+                }
+            }));
+            assertTrue(applying.await(10, TimeUnit.SECONDS));
+
+            // The writer is stuck halfway through its change, yet reads still go through
+            assertEquals(lists.read(ArrayList::new), List.of());
+
+            release.countDown();
+            write.get(10, TimeUnit.SECONDS);
+            assertEquals(lists.read(ArrayList::new), List.of("added"));
+            lists.write(List::clear);
+            assertEquals(lists.read(ArrayList::new), List.of());
+        } finally {
+            release.countDown();
+            writer.shutdownNow();
+        }
+    }
+
+    private static List<String> names(List<ProductVersion> products) {
+        return products.stream().map(ProductVersion::getName).collect(Collectors.toList());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
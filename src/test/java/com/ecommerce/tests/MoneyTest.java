@@ -0,0 +1,109 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Money;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ShoppingCart;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Random;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class MoneyTest {
+    private static final Currency USD = Currency.getInstance("USD");
+    private static final Currency JPY = Currency.getInstance("JPY");
+
+    @Test(groups = {"smoke", "regression"}, priority = 1)
+    public void testRoundTrip_KeepsCurrencyScale() {
+        Money price = Money.of(new BigDecimal("999.99"));
+        assertEquals(price.getMinorUnits(), 99999L);
+        assertEquals(price.toBigDecimal(), new BigDecimal("999.99"));
+        assertEquals(Money.of(new BigDecimal("1500"), JPY, RoundingMode.UNNECESSARY).toBigDecimal(), new BigDecimal("1500"));
+    }
+
+    @Test(groups = {"regression"})
+    public void testArithmetic_MatchesBigDecimal() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            BigDecimal a = BigDecimal.valueOf(random.nextInt(10_000_000), 2);
+            BigDecimal b = BigDecimal.valueOf(random.nextInt(10_000_000), 2);
+            int quantity = 1 + random.nextInt(1000);
+
+            assertEquals(Money.of(a).plus(Money.of(b)).toBigDecimal(), a.add(b));
+            assertEquals(Money.of(a).minus(Money.of(b)).toBigDecimal(), a.subtract(b));
+            assertEquals(Money.of(a).times(quantity).toBigDecimal(), a.multiply(BigDecimal.valueOf(quantity)));
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testCartAndOrderTotals_MatchBigDecimal() {
+        Random random = new Random(7);
+        for (int run = 0; run < 200; run++) {
+            ShoppingCart cart = new ShoppingCart("user" + run);
+            BigDecimal expected = BigDecimal.ZERO;
+            int lines = 1 + random.nextInt(20);
+            for (int i = 0; i < lines; i++) {
+                BigDecimal price = BigDecimal.valueOf(1 + random.nextInt(500_000), 2);
+                int quantity = 1 + random.nextInt(50);
+                Product product = new Product("P" + i, "Product " + i, "Test", price, 100, "Test");
+                cart.addItem(product, quantity);
+                BigDecimal subtotal = price.multiply(BigDecimal.valueOf(quantity));
+                assertEquals(new CartItem(product, quantity).getSubtotal(), subtotal);
+                expected = expected.add(subtotal);
+            }
+
+            assertEquals(cart.getTotal(), expected);
+            Order order = new Order("ORD" + run, cart.getUserId(), cart.getItems(), "123 Main St");
+            assertEquals(order.getTotalAmount(), expected);
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testOverflow_Throws() {
+        Money large = Money.ofMinor(Long.MAX_VALUE - 1, USD);
+        assertThrows(ArithmeticException.class, () -> large.plus(Money.ofMinor(2, USD)));
+        assertThrows(ArithmeticException.class, () -> large.times(2));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1e30")));
+    }
+
+    @Test(groups = {"regression"})
+    public void testRounding_IsExplicit() {
+        BigDecimal amount = new BigDecimal("10.005");
+        assertThrows(ArithmeticException.class, () -> Money.of(amount, USD, RoundingMode.UNNECESSARY));
+        assertEquals(Money.of(amount, USD, RoundingMode.HALF_EVEN).getMinorUnits(), 1000L);
+        assertEquals(Money.of(amount, USD, RoundingMode.HALF_UP).getMinorUnits(), 1001L);
+        assertEquals(Money.of(new BigDecimal("19.99")).times(new BigDecimal("0.075"), RoundingMode.HALF_UP).getMinorUnits(), 150L);
+    }
+
+    @Test(groups = {"regression"})
+    public void testCurrencyMismatch_Throws() {
+        Money dollars = Money.ofMinor(100, USD);
+        Money yen = Money.ofMinor(100, JPY);
+        assertThrows(IllegalArgumentException.class, () -> dollars.plus(yen));
+        assertTrue(dollars.compareTo(Money.ofMinor(99, USD)) > 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testProduct_RoundsSubMinorUnitPrice() {
+        Product product = new Product("P1", "Test", "Test", new BigDecimal("9.999"), 1, "Test");
+        assertEquals(product.getPrice(), new BigDecimal("10.00"));
+        assertEquals(product.getUnitPrice(), Money.ofMinor(1000, USD));
+
+        product.setPrice(new BigDecimal("5.005"));
+        assertEquals(product.getPrice(), new BigDecimal("5.00"), "Ties round to even");
+        product.setPrice(new BigDecimal("5"));
+        assertEquals(product.getPrice(), new BigDecimal("5"), "Coarser prices keep their scale");
+
+        product.setPrice(new BigDecimal("9.99"));
+        product.setCurrency(JPY);
+        assertEquals(product.getPrice(), new BigDecimal("10"));
+        assertEquals(product.getUnitPrice(), Money.ofMinor(10, JPY));
+    }
+}
@@ -0,0 +1,164 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.export.OrderExportFilter;
+import com.ecommerce.id.SequentialOrderIdGenerator;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Order;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.Page;
+import com.ecommerce.service.ProductService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.ecommerce.tests.OrderFixtures.placeOrder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+
+public class OrderArchiveTest {
+    private ProductService productService;
+    private OrderService orderService;
+
+    @BeforeMethod
+    public void setUp() {
+        productService = new ProductService();
+        orderService = new OrderService(productService);
+    }
+
+    @Test(groups = {"smoke", "regression"}, priority = 1)
+    public void testArchiveCompletedOrders_KeepsOrdersReadable() {
+        Order delivered = placeOrder(orderService, productService, "user1", "P001", 2);
+        deliver(delivered);
+        Order cancelled = placeOrder(orderService, productService, "user1", "P002", 1);
+        orderService.cancelOrder(cancelled.getOrderId());
+        Order pending = placeOrder(orderService, productService, "user2", "P003", 3);
+
+        assertEquals(orderService.archiveCompletedOrders(), 2);
+
+        Order archived = orderService.getOrderById(delivered.getOrderId());
+        assertNotSame(archived, delivered);
+        assertEquals(archived.getUserId(), "user1");
+        assertEquals(archived.getStatus(), Order.OrderStatus.DELIVERED);
+        assertEquals(archived.getCreatedAt(), delivered.getCreatedAt());
+        assertEquals(archived.getShippingAddress(), delivered.getShippingAddress());
+        assertEquals(archived.getTotalAmount(), delivered.getTotalAmount());
+        CartItem line = archived.getItems().get(0);
+        assertEquals(line.getProduct().getId(), "P001");
+        assertEquals(line.getProduct().getName(), "Laptop");
+        assertEquals(line.getProduct().getPrice(), productService.getProductById("P001").getPrice());
+        assertEquals(line.getQuantity(), 2);
+        assertEquals(orderService.getOrderById(cancelled.getOrderId()).getStatus(), Order.OrderStatus.CANCELLED);
+
+        assertSame(orderService.getOrderById(pending.getOrderId()), pending);
+        assertEquals(orderService.getOrderCount(), 3);
+        assertEquals(orderService.getMetrics().snapshot().getCounter(OrderService.ORDERS_ARCHIVED), 2L);
+        assertEquals(orderService.archiveCompletedOrders(), 0, "Archived orders should not be archived again");
+    }
+
+    @Test(groups = {"regression"})
+    public void testUserHistory_MergesArchivedAndLiveOrders() {
+        LocalDateTime start = LocalDateTime.of(2024, 3, 1, 12, 0);
+        List<Order> placed = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Order order = placeOrder(orderService, productService, "user1", "P004", 1);
+            order.setCreatedAt(start.plusMinutes(i));
+            placed.add(order);
+        }
+        deliver(placed.get(0));
+        orderService.cancelOrder(placed.get(2).getOrderId());
+
+        orderService.archiveCompletedOrders();
+
+        List<String> expected = placed.stream().map(Order::getOrderId).collect(Collectors.toList());
+        assertEquals(ids(orderService.getOrdersByUserId("user1")), expected);
+        assertEquals(orderService.getOrderCountByUserId("user1"), 4);
+        assertEquals(ids(orderService.getLatestOrdersByUserId("user1", 3)),
+                List.of(expected.get(3), expected.get(2), expected.get(1)));
+        assertEquals(ids(orderService.getRecentOrdersByUserId("user1", 2, 5)),
+                List.of(expected.get(1), expected.get(0)));
+    }
+
+    @Test(groups = {"regression"})
+    public void testListings_IncludeArchivedOrdersInPlacementOrder() throws Exception {
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Order order = placeOrder(orderService, productService, "user" + i, "P004", 1);
+            if (i % 3 == 0) {
+                deliver(order);
+            }
+            expected.add(order.getOrderId());
+        }
+        orderService.archiveCompletedOrders();
+
+        assertEquals(ids(orderService.getAllOrders()), expected);
+        assertEquals(orderService.streamOrders().map(Order::getOrderId).collect(Collectors.toList()), expected);
+        Page<Order> page = orderService.getOrdersPage(null, 4);
+        page = orderService.getOrdersPage(page.getNextCursor(), 4);
+        assertEquals(ids(page.getItems()), expected.subList(4, 8));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(orderService.exportOrders(out, OrderExportFilter.all()), 10L);
+        assertEquals(out.toString(StandardCharsets.UTF_8).split("\n").length, 10);
+    }
+
+    @Test(groups = {"regression"})
+    public void testArchivedOrders_RejectStatusChanges() {
+        Order order = placeOrder(orderService, productService, "user1", "P001", 1);
+        deliver(order);
+        orderService.archiveCompletedOrders();
+
+        assertThrows(IllegalStateException.class, () -> orderService.cancelOrder(order.getOrderId()));
+        assertEquals(orderService.getOrderById(order.getOrderId()).getStatus(), Order.OrderStatus.DELIVERED);
+    }
+
+    @Test(groups = {"regression"})
+    public void testCompactJournal_KeepsArchivedOrders() throws IOException {
+        Path journalFile = Files.createTempFile("orders", ".journal");
+        Files.delete(journalFile);
+        try {
+            ProductService before = new ProductService();
+            String archivedId;
+            try (OrderService service = OrderService.recover(before, new SequentialOrderIdGenerator(), journalFile)) {
+                orderService = service;
+                productService = before;
+                Order order = placeOrder(orderService, productService, "user1", "P001", 1);
+                deliver(order);
+                archivedId = order.getOrderId();
+                placeOrder(orderService, productService, "user2", "P002", 2);
+                service.archiveCompletedOrders();
+                service.compactJournal();
+            }
+
+            try (OrderService recovered = OrderService.recover(new ProductService(), new SequentialOrderIdGenerator(), journalFile)) {
+                assertEquals(recovered.getOrderCount(), 2);
+                assertEquals(recovered.getOrderById(archivedId).getStatus(), Order.OrderStatus.DELIVERED);
+                assertEquals(recovered.getOrderById(archivedId).getTotalAmount(),
+                        before.getProductById("P001").getPrice());
+            }
+        } finally {
+            Files.deleteIfExists(journalFile);
+            Files.deleteIfExists(journalFile.resolveSibling(journalFile.getFileName() + ".compact"));
+        }
+    }
+
+    private void deliver(Order order) {
+        orderService.confirmOrder(order.getOrderId());
+        orderService.shipOrder(order.getOrderId());
+        orderService.deliverOrder(order.getOrderId());
+    }
+
+    private static List<String> ids(List<Order> orders) {
+        return orders.stream().map(Order::getOrderId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,198 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.events.OrderEvent;
+import com.ecommerce.events.OrderEventBus;
+import com.ecommerce.events.OrderEventType;
+import com.ecommerce.events.OverflowPolicy;
+import com.ecommerce.events.Subscription;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.ecommerce.tests.OrderFixtures.placeOrder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class OrderEventBusTest {
+    private ProductService productService;
+    private OrderService orderService;
+
+    @BeforeMethod
+    public void setUp() {
+        productService = new ProductService();
+        orderService = new OrderService(productService);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        orderService.close();
+    }
+
+    @Test(groups = {"smoke", "regression"}, priority = 1)
+    public void testSubscribers_ReceiveLifecycleInOrder() {
+        List<String> fulfilment = Collections.synchronizedList(new ArrayList<>());
+        List<String> email = Collections.synchronizedList(new ArrayList<>());
+        Subscription first = orderService.getEventBus().subscribe("fulfilment", events -> record(events, fulfilment));
+        Subscription second = orderService.getEventBus().subscribe("email", events -> record(events, email));
+
+        Order shipped = placeOrder(orderService, productService, "user123", "P001", 1);
+        orderService.confirmOrder(shipped.getOrderId());
+        orderService.shipOrder(shipped.getOrderId());
+        orderService.deliverOrder(shipped.getOrderId());
+        Order cancelled = placeOrder(orderService, productService, "user123", "P002", 1);
+        orderService.cancelOrder(cancelled.getOrderId());
+
+        first.close();
+        second.close();
+
+        List<String> expected = List.of(
+                "CREATED " + shipped.getOrderId(), "CONFIRMED " + shipped.getOrderId(),
+                "SHIPPED " + shipped.getOrderId(), "DELIVERED " + shipped.getOrderId(),
+                "CREATED " + cancelled.getOrderId(), "CANCELLED " + cancelled.getOrderId());
+        assertEquals(fulfilment, expected);
+        assertEquals(email, expected);
+        assertEquals(first.getDeliveredCount(), 6L);
+        assertEquals(orderService.getEventBus().getSubscriberCount(), 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testRacingTransitions_PublishEachStatusOnceInOrder() throws InterruptedException {
+        productService.addProduct(new Product("P999", "Race", "Test", new BigDecimal("1.00"), 1_000, "Test"));
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        Subscription audit = orderService.getEventBus().subscribe("audit", events -> record(events, received));
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            orders.add(placeOrder(orderService, productService, "user" + i, "P999", 1));
+        }
+
+        Thread shipper = new Thread(() -> {
+            for (Order order : orders) {
+                while (true) {
+                    try {
+                        orderService.shipOrder(order.getOrderId());
+                        break;
+                    } catch (IllegalStateException e) {
+                        // Not confirmed yet
+                    }
+                }
+            }
+        });
+        shipper.start();
+        for (Order order : orders) {
+            orderService.confirmOrder(order.getOrderId());
+        }
+        shipper.join();
+        audit.close();
+
+        for (Order order : orders) {
+            List<String> expected = List.of("CREATED " + order.getOrderId(),
+                    "CONFIRMED " + order.getOrderId(), "SHIPPED " + order.getOrderId());
+            List<String> actual = received.stream()
+                    .filter(event -> event.endsWith(" " + order.getOrderId()))
+                    .collect(Collectors.toList());
+            assertEquals(actual, expected);
+        }
+        assertEquals(orderService.getMetrics().counter(OrderService.TRANSITIONS_PREFIX + "CONFIRMED").get(), 500L);
+        assertEquals(orderService.getMetrics().counter(OrderService.TRANSITIONS_PREFIX + "SHIPPED").get(), 500L);
+    }
+
+    @Test(groups = {"regression"})
+    public void testDropNewest_NeverBlocksPublisher() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        OrderEventBus bus = new OrderEventBus();
+        Subscription slow = bus.subscribe("slow", events -> awaitQuietly(release), 4, 1, OverflowPolicy.DROP_NEWEST);
+        Order order = placeOrder(orderService, productService, "user123", "P004", 1);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            bus.publish(OrderEventType.CREATED, order);
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "Publishing should not wait for the subscriber");
+        release.countDown();
+        slow.close();
+
+        assertEquals(slow.getDeliveredCount() + slow.getDroppedCount(), 1000L);
+        assertTrue(slow.getDroppedCount() >= 1000 - 5, "At most the buffer plus one in-flight event get through");
+    }
+
+    @Test(groups = {"regression"})
+    public void testBlock_DeliversEveryEventFromManyPublishers() throws InterruptedException {
+        OrderEventBus bus = new OrderEventBus();
+        long[] received = new long[1];
+        Subscription all = bus.subscribe("audit", events -> received[0] += events.size(), 8, 3, OverflowPolicy.BLOCK);
+        Order order = placeOrder(orderService, productService, "user123", "P004", 1);
+
+        Thread[] publishers = new Thread[4];
+        for (int t = 0; t < publishers.length; t++) {
+            publishers[t] = new Thread(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    bus.publish(OrderEventType.CONFIRMED, order);
+                }
+            });
+            publishers[t].start();
+        }
+        for (Thread publisher : publishers) {
+            publisher.join();
+        }
+        all.close();
+
+        assertEquals(received[0], 20_000L);
+        assertEquals(all.getDroppedCount(), 0L);
+    }
+
+    @Test(groups = {"regression"})
+    public void testFailingHandler_IsCountedAndDeliveryContinues() {
+        List<OrderEvent> kept = Collections.synchronizedList(new ArrayList<>());
+        Subscription flaky = orderService.getEventBus().subscribe("flaky", events -> {
+            for (OrderEvent event : events) {
+                kept.add(event.copy());
+                if (event.getType() == OrderEventType.CREATED) {
+                    throw new IllegalStateException("boom");
+                }
+            }
+        }, 16, 1, OverflowPolicy.BLOCK);
+
+        Order order = placeOrder(orderService, productService, "user123", "P003", 1);
+        orderService.confirmOrder(order.getOrderId());
+        flaky.close();
+
+        assertEquals(flaky.getFailedBatchCount(), 1L);
+        assertEquals(kept.size(), 2);
+        assertEquals(kept.get(1).getType(), OrderEventType.CONFIRMED);
+        assertEquals(kept.get(1).getOrder(), order);
+    }
+
+    @Test(groups = {"regression"})
+    public void testSubscribe_RejectsBadCapacity() {
+        OrderEventBus bus = new OrderEventBus();
+        assertThrows(IllegalArgumentException.class, () -> bus.subscribe("bad", events -> { }, 1000, 10, OverflowPolicy.BLOCK));
+        assertEquals(bus.getSubscriberCount(), 0);
+    }
+
+    private static void record(List<OrderEvent> events, List<String> into) {
+        for (OrderEvent event : events) {
+            into.add(event.getType() + " " + event.getOrderId());
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
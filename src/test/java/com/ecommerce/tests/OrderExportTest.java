@@ -0,0 +1,103 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.export.OrderExportFilter;
+import com.ecommerce.model.Order;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+
+import static com.ecommerce.tests.OrderFixtures.placeOrder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+
+public class OrderExportTest {
+    private ProductService productService;
+    private OrderService orderService;
+
+    @BeforeMethod
+    public void setUp() {
+        productService = new ProductService();
+        orderService = new OrderService(productService);
+    }
+
+    @Test(groups = {"smoke", "regression"}, priority = 1)
+    public void testExportOrders_WritesOneJsonObjectPerLine() throws Exception {
+        Order first = placeOrder(orderService, productService, "user1", "P001", 2);
+        Order second = placeOrder(orderService, productService, "user2", "P004", 1);
+        orderService.confirmOrder(second.getOrderId());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = orderService.exportOrders(Channels.newChannel(out), OrderExportFilter.all());
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(written, 2L);
+        assertEquals(lines.length, 2);
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode json = mapper.readTree(lines[0]);
+        assertEquals(json.get("orderId").asText(), first.getOrderId());
+        assertEquals(json.get("status").asText(), "PENDING");
+        assertEquals(json.get("totalAmount").decimalValue(), first.getTotalAmount());
+        assertEquals(json.get("items").size(), 1);
+        JsonNode line = json.get("items").get(0);
+        assertEquals(line.get("productId").asText(), "P001");
+        assertEquals(line.get("quantity").asInt(), 2);
+        assertEquals(line.get("unitPrice").decimalValue(), productService.getProductById("P001").getPrice());
+        assertEquals(line.get("currency").asText(), "USD");
+        assertEquals(LocalDateTime.parse(json.get("createdAt").asText()), first.getCreatedAt());
+        assertEquals(mapper.readTree(lines[1]).get("status").asText(), "CONFIRMED");
+    }
+
+    @Test(groups = {"regression"})
+    public void testExportOrders_FiltersByStatusAndCreationTime() {
+        Order cancelled = placeOrder(orderService, productService, "user1", "P002", 1);
+        orderService.cancelOrder(cancelled.getOrderId());
+        Order pending = placeOrder(orderService, productService, "user2", "P003", 1);
+        Order old = placeOrder(orderService, productService, "user3", "P004", 1);
+        old.setCreatedAt(LocalDateTime.of(2020, 1, 1, 0, 0));
+
+        OrderExportFilter pendingOnly = OrderExportFilter.all().withStatuses(EnumSet.of(Order.OrderStatus.PENDING));
+        assertEquals(export(pendingOnly), pending.getOrderId() + "," + old.getOrderId());
+
+        OrderExportFilter recentPending = pendingOnly.withCreatedBetween(LocalDateTime.of(2021, 1, 1, 0, 0), null);
+        assertEquals(export(recentPending), pending.getOrderId());
+
+        OrderExportFilter before2021 = OrderExportFilter.all().withCreatedBetween(null, LocalDateTime.of(2021, 1, 1, 0, 0));
+        assertEquals(export(before2021), old.getOrderId());
+    }
+
+    @Test(groups = {"regression"})
+    public void testExportOrders_EmptyWritesNothing() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(orderService.exportOrders(out, OrderExportFilter.all()), 0L);
+        assertEquals(out.size(), 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> OrderExportFilter.all().withCreatedBetween(LocalDateTime.now(), LocalDateTime.now().minusDays(1)));
+    }
+
+    private String export(OrderExportFilter filter) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        orderService.exportOrders(out, filter);
+        StringBuilder ids = new StringBuilder();
+        ObjectMapper mapper = new ObjectMapper();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                ids.append(ids.length() == 0 ? "" : ",").append(mapper.readTree(line).get("orderId").asText());
+            } catch (Exception e) {
+                throw new AssertionError("Not JSON: " + line, e);
+            }
+        }
+        return ids.toString();
+    }
+}
@@ -0,0 +1,25 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.model.Order;
+import com.ecommerce.model.ShoppingCart;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+
+/**
+ * Single-line carts and orders for tests that need orders in place rather than checkout itself.
+ */
+final class OrderFixtures {
+    private OrderFixtures() {
+    }
+
+    static ShoppingCart cartWith(ProductService productService, String userId, String productId, int quantity) {
+        ShoppingCart cart = new ShoppingCart(userId);
+        cart.addItem(productService.getProductById(productId), quantity);
+        return cart;
+    }
+
+    static Order placeOrder(OrderService orderService, ProductService productService,
+                            String userId, String productId, int quantity) {
+        return orderService.createOrder(cartWith(productService, userId, productId, quantity), "123 Main St");
+    }
+}
@@ -0,0 +1,144 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.id.BlockLeasingOrderIdGenerator;
+import com.ecommerce.id.FileBlockAllocator;
+import com.ecommerce.id.NodeTimestampOrderIdGenerator;
+import com.ecommerce.id.OrderIdGenerator;
+import com.ecommerce.id.OrderIds;
+import com.ecommerce.id.SequentialOrderIdGenerator;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class OrderIdGeneratorTest {
+    private static final int THREADS = 32;
+    private static final int IDS_PER_THREAD = 10_000;
+
+    @Test(groups = {"smoke", "regression"}, priority = 1)
+    public void testSequentialIds_KeepLegacyFormat() {
+        OrderIdGenerator generator = new SequentialOrderIdGenerator();
+        assertEquals(generator.nextId(), "ORD000001");
+        assertEquals(generator.nextId(), "ORD000002");
+    }
+
+    @Test(groups = {"regression"})
+    public void testFormat_GrowsPastSixDigits() {
+        assertEquals(OrderIds.format("ORD", 999_999, 6), "ORD999999");
+        assertEquals(OrderIds.format("ORD", 1_000_000, 6), "ORD1000000");
+        assertEquals(OrderIds.format("", 0, 3), "000");
+        assertEquals(OrderIds.format("X", Long.MAX_VALUE, 0), "X" + Long.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> OrderIds.format("ORD", -1, 6));
+    }
+
+    @Test(groups = {"regression"})
+    public void testSequentialIds_UniqueUnderContention() throws InterruptedException {
+        assertUniqueUnderContention(new SequentialOrderIdGenerator());
+    }
+
+    @Test(groups = {"regression"})
+    public void testBlockLeasingIds_UniqueAcrossInstances() throws Exception {
+        Path file = Files.createTempFile("order-ids", ".block");
+        try {
+            FileBlockAllocator allocator = new FileBlockAllocator(file);
+            OrderIdGenerator first = new BlockLeasingOrderIdGenerator(allocator, 100);
+            OrderIdGenerator second = new BlockLeasingOrderIdGenerator(new FileBlockAllocator(file), 100);
+            assertUniqueUnderContention(() -> Thread.currentThread().getId() % 2 == 0 ? first.nextId() : second.nextId());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testBlockLeasingIds_RestartSkipsLeasedBlock() throws IOException {
+        Path file = Files.createTempFile("order-ids", ".block");
+        try {
+            OrderIdGenerator beforeRestart = new BlockLeasingOrderIdGenerator(new FileBlockAllocator(file), 50);
+            assertEquals(beforeRestart.nextId(), "ORD000001");
+
+            OrderIdGenerator afterRestart = new BlockLeasingOrderIdGenerator(new FileBlockAllocator(file), 50);
+            assertEquals(afterRestart.nextId(), "ORD000051");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testFileBlockAllocator_RefusesTruncatedFile() throws IOException {
+        Path file = Files.createTempFile("order-ids", ".block");
+        try {
+            assertEquals(new FileBlockAllocator(file, 1000).lease(10), 1000L, "An empty file starts afresh");
+
+            Files.write(file, new byte[]{0, 0, 0});
+            assertThrows(UncheckedIOException.class, () -> new FileBlockAllocator(file, 1000).lease(10));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testNodeTimestampIds_UniqueUnderContention() throws InterruptedException {
+        assertUniqueUnderContention(new NodeTimestampOrderIdGenerator(7));
+    }
+
+    @Test(groups = {"regression"})
+    public void testNodeTimestampIds_SurviveFrozenAndBackwardClock() {
+        AtomicLong clock = new AtomicLong(NodeTimestampOrderIdGenerator.DEFAULT_EPOCH_MILLIS + 1000);
+        OrderIdGenerator generator = new NodeTimestampOrderIdGenerator("ORD", 1,
+                NodeTimestampOrderIdGenerator.DEFAULT_EPOCH_MILLIS, clock::get);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(ids.add(generator.nextId()), "IDs must not repeat while the clock is frozen");
+        }
+        clock.addAndGet(-500);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(ids.add(generator.nextId()), "IDs must not repeat after the clock steps back");
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testNodeTimestampIds_DifferByNode() {
+        long now = NodeTimestampOrderIdGenerator.DEFAULT_EPOCH_MILLIS + 42;
+        OrderIdGenerator nodeA = new NodeTimestampOrderIdGenerator("ORD", 1, NodeTimestampOrderIdGenerator.DEFAULT_EPOCH_MILLIS, () -> now);
+        OrderIdGenerator nodeB = new NodeTimestampOrderIdGenerator("ORD", 2, NodeTimestampOrderIdGenerator.DEFAULT_EPOCH_MILLIS, () -> now);
+        assertNotEquals(nodeA.nextId(), nodeB.nextId());
+        assertThrows(IllegalArgumentException.class, () -> new NodeTimestampOrderIdGenerator(NodeTimestampOrderIdGenerator.MAX_NODE_ID + 1));
+    }
+
+    private static void assertUniqueUnderContention(OrderIdGenerator generator) throws InterruptedException {
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < IDS_PER_THREAD; i++) {
+                    ids.add(generator.nextId());
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "Generator threads should finish");
+        assertEquals(ids.size(), THREADS * IDS_PER_THREAD, "Every generated ID should be unique");
+    }
+}
@@ -0,0 +1,319 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.id.SequentialOrderIdGenerator;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.persistence.JournaledOrder;
+import com.ecommerce.persistence.OrderJournal;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.ecommerce.tests.OrderFixtures.cartWith;
+import static com.ecommerce.tests.OrderFixtures.placeOrder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class OrderJournalTest {
+    private Path journalFile;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        journalFile = Files.createTempFile("orders", ".journal");
+        Files.delete(journalFile);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(journalFile.resolveSibling(journalFile.getFileName() + ".compact"));
+    }
+
+    @Test(groups = {"smoke", "regression"}, priority = 1)
+    public void testRecover_RebuildsOrdersAndStock() {
+        ProductService before = new ProductService();
+        String cancelledId;
+        String shippedId;
+        try (OrderService orderService = OrderService.recover(before, new SequentialOrderIdGenerator(), journalFile)) {
+            shippedId = placeOrder(orderService, before, "user123", "P001", 2).getOrderId();
+            orderService.confirmOrder(shippedId);
+            orderService.shipOrder(shippedId);
+            cancelledId = placeOrder(orderService, before, "user123", "P002", 3).getOrderId();
+            orderService.cancelOrder(cancelledId);
+            placeOrder(orderService, before, "user456", "P003", 1);
+        }
+
+        ProductService after = new ProductService();
+        try (OrderService recovered = OrderService.recover(after, new SequentialOrderIdGenerator(), journalFile)) {
+            assertEquals(recovered.getOrderCount(), 3);
+            assertEquals(recovered.getOrderById(shippedId).getStatus(), Order.OrderStatus.SHIPPED);
+            assertEquals(recovered.getOrderById(cancelledId).getStatus(), Order.OrderStatus.CANCELLED);
+            assertEquals(recovered.getOrdersByUserId("user123").size(), 2);
+            assertEquals(recovered.getOrderById(shippedId).getTotalAmount(),
+                    before.getProductById("P001").getPrice().multiply(BigDecimal.valueOf(2)));
+            for (String productId : new String[]{"P001", "P002", "P003"}) {
+                assertEquals(after.getProductById(productId).getStockQuantity(),
+                        before.getProductById(productId).getStockQuantity(), "Stock mismatch for " + productId);
+            }
+
+            Order next = placeOrder(recovered, after, "user789", "P004", 1);
+            assertEquals(next.getOrderId(), "ORD000004", "IDs should continue after the recovered ones");
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrderDurably_IsOnDiskWhenItReturns() throws IOException {
+        ProductService productService = new ProductService();
+        Path copy = journalFile.resolveSibling(journalFile.getFileName() + ".copy");
+        try (OrderService orderService = OrderService.recover(productService, new SequentialOrderIdGenerator(), journalFile)) {
+            Order first = orderService.createOrderDurably(cartWith(productService, "user123", "P001", 1), "123 Test St");
+            // An interrupted wait forces the journal itself rather than giving up on the order
+            Thread.currentThread().interrupt();
+            Order second = orderService.createOrderDurably(cartWith(productService, "user123", "P002", 1), "123 Test St");
+            assertTrue(Thread.interrupted(), "The interrupt status should be kept");
+            assertEquals(orderService.getMetrics().snapshot().getLatency("createOrderDurably").getCount(), 2L);
+
+            // Read back a copy taken while the service is still running
+            Files.copy(journalFile, copy);
+            try (OrderService recovered = OrderService.recover(new ProductService(), new SequentialOrderIdGenerator(), copy)) {
+                assertEquals(recovered.getOrderById(first.getOrderId()).getUserId(), "user123");
+                assertEquals(recovered.getOrderById(second.getOrderId()).getUserId(), "user123");
+            }
+        } finally {
+            Files.deleteIfExists(copy);
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testRecover_RebuildsStockFromJournalWhateverCatalogIsLoaded() throws IOException {
+        ProductService before = new ProductService();
+        Path snapshot = journalFile.resolveSibling(journalFile.getFileName() + ".catalog");
+        try {
+            try (OrderService orderService = OrderService.recover(before, new SequentialOrderIdGenerator(), journalFile)) {
+                placeOrder(orderService, before, "user123", "P001", 2);
+                before.updateStock("P003", 500);
+                placeOrder(orderService, before, "user123", "P003", 20);
+                before.addProduct(new Product("P100", "Desk", "Standing desk", new BigDecimal("300.00"), 5, "Furniture"));
+                placeOrder(orderService, before, "user456", "P100", 1);
+                orderService.compactJournal();
+                before.updateStock("P002", 7);
+                // Saved after the orders, so its stock already reflects them
+                before.saveSnapshot(snapshot);
+            }
+
+            for (ProductService after : List.of(new ProductService(), ProductService.fromSnapshot(snapshot))) {
+                after.deleteProduct("P005");
+                if (!after.getCatalog().contains("P100")) {
+                    after.addProduct(new Product("P100", "Desk", "Standing desk", new BigDecimal("300.00"), 5, "Furniture"));
+                }
+                try (OrderService recovered = OrderService.recover(after, new SequentialOrderIdGenerator(), journalFile)) {
+                    for (String productId : new String[]{"P001", "P002", "P003", "P100"}) {
+                        assertEquals(after.getProductById(productId).getStockQuantity(),
+                                before.getProductById(productId).getStockQuantity(), "Stock mismatch for " + productId);
+                    }
+                }
+            }
+        } finally {
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testRecover_RefusesJournalThatLeavesNegativeStock() {
+        ProductService elsewhere = new ProductService();
+        try (OrderService orderService = new OrderService(elsewhere);
+             OrderJournal journal = OrderJournal.open(journalFile, null)) {
+            journal.appendStockAdjusted("P001", 1);
+            journal.appendOrderCreated(placeOrder(orderService, elsewhere, "user123", "P001", 2));
+        }
+
+        ProductService productService = new ProductService();
+        int stock = productService.getProductById("P001").getStockQuantity();
+        IllegalStateException e = expectThrows(IllegalStateException.class,
+                () -> OrderService.recover(productService, new SequentialOrderIdGenerator(), journalFile));
+        assertTrue(e.getMessage().contains("P001"), e.getMessage());
+        assertEquals(productService.getProductById("P001").getStockQuantity(), stock, "No stock should change");
+    }
+
+    @Test(groups = {"regression"})
+    public void testCompact_KeepsStateAndShrinksJournal() {
+        ProductService before = new ProductService();
+        List<String> orderIds = new ArrayList<>();
+        try (OrderService orderService = OrderService.recover(before, new SequentialOrderIdGenerator(), journalFile)) {
+            for (int i = 0; i < 20; i++) {
+                String orderId = placeOrder(orderService, before, "user" + i, "P004", 1).getOrderId();
+                orderService.confirmOrder(orderId);
+                orderService.shipOrder(orderId);
+                orderService.deliverOrder(orderId);
+                orderIds.add(orderId);
+            }
+            orderService.compactJournal();
+        }
+
+        assertEquals(countRecords(), 40L, "Each delivered order should compact to two records");
+
+        ProductService after = new ProductService();
+        try (OrderService recovered = OrderService.recover(after, new SequentialOrderIdGenerator(), journalFile)) {
+            assertEquals(recovered.getOrderCount(), 20);
+            for (String orderId : orderIds) {
+                assertEquals(recovered.getOrderById(orderId).getStatus(), Order.OrderStatus.DELIVERED);
+            }
+            assertEquals(after.getProductById("P004").getStockQuantity(), before.getProductById("P004").getStockQuantity());
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testCompact_KeepsOrderPlacedWhileItRuns() throws Exception {
+        ProductService productService = new ProductService();
+        List<Order> live = new CopyOnWriteArrayList<>();
+        try (OrderService orderService = new OrderService(productService);
+             OrderJournal journal = OrderJournal.open(journalFile, null)) {
+            for (int i = 0; i < 3; i++) {
+                Order order = placeOrder(orderService, productService, "user" + i, "P004", 1);
+                live.add(order);
+                journal.appendOrderCreated(order);
+            }
+            Order late = placeOrder(orderService, productService, "late", "P004", 1);
+
+            Thread[] checkout = new Thread[1];
+            journal.compact(() -> {
+                List<Order> snapshot = new ArrayList<>(live);
+                // Another checkout registers and appends its order right after the snapshot is taken
+                checkout[0] = new Thread(() -> {
+                    live.add(late);
+                    journal.appendOrderCreated(late);
+                });
+                checkout[0].start();
+                try {
+                    checkout[0].join(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return snapshot;
+            });
+            checkout[0].join();
+            journal.commit();
+        }
+
+        List<String> recovered = new ArrayList<>();
+        OrderJournal.open(journalFile, new OrderJournal.Handler() {
+            @Override
+            public void orderCreated(JournaledOrder order) {
+                recovered.add(order.getOrderId());
+            }
+
+            @Override
+            public void statusChanged(String orderId, Order.OrderStatus status) {
+            }
+        }).close();
+        for (Order order : live) {
+            assertTrue(recovered.contains(order.getOrderId()), "Lost " + order.getOrderId() + " to compaction");
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testCompact_LetsAppendsThroughWhileItRewrites() throws Exception {
+        ProductService productService = new ProductService();
+        int stock = productService.getProductById("P004").getStockQuantity();
+        List<Order> live = new CopyOnWriteArrayList<>();
+        Order cancelled;
+        try (OrderService orderService = new OrderService(productService);
+             OrderJournal journal = OrderJournal.open(journalFile, null)) {
+            cancelled = placeOrder(orderService, productService, "user1", "P004", 2);
+            live.add(cancelled);
+            journal.appendOrderCreated(cancelled);
+
+            journal.compact(() -> {
+                // The order moves on and is journaled while the compaction is under way
+                Thread checkout = new Thread(() -> {
+                    orderService.confirmOrder(cancelled.getOrderId());
+                    journal.appendStatusChanged(cancelled.getOrderId(), Order.OrderStatus.CONFIRMED);
+                    orderService.cancelOrder(cancelled.getOrderId());
+                    journal.appendStatusChanged(cancelled.getOrderId(), Order.OrderStatus.CANCELLED);
+                });
+                checkout.start();
+                try {
+                    checkout.join(10_000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                assertFalse(checkout.isAlive(), "Appends should not wait for the compaction");
+                return new ArrayList<>(live);
+            });
+            journal.commit();
+            assertEquals(journal.getRecordCount(), 4L, "The rewritten order and status plus the two copied statuses");
+        }
+
+        ProductService after = new ProductService();
+        try (OrderService recovered = OrderService.recover(after, new SequentialOrderIdGenerator(), journalFile)) {
+            assertEquals(recovered.getOrderById(cancelled.getOrderId()).getStatus(), Order.OrderStatus.CANCELLED);
+            assertEquals(after.getProductById("P004").getStockQuantity(), stock,
+                    "The cancellation should return stock once, not once per copy of its record");
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testOpen_SpansSegmentsAndDropsTornTail() throws Exception {
+        ProductService productService = new ProductService();
+        productService.updateStock("P004", 1000);
+        try (OrderService orderService = new OrderService(productService);
+             OrderJournal journal = OrderJournal.open(journalFile, 4096, 1, null)) {
+            long sequence = 0;
+            for (int i = 0; i < 200; i++) {
+                sequence = journal.appendOrderCreated(placeOrder(orderService, productService, "user" + i, "P004", 1));
+            }
+            journal.awaitCommit(sequence);
+        }
+        assertTrue(Files.size(journalFile) > 4096, "Journal should have rolled into more segments");
+        assertEquals(countRecords(), 200L);
+
+        // Corrupt the last bytes of the final record, as a crash in the middle of a write would
+        long lastRecordEnd = findLastRecordEnd();
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0x7f, 0x7f}), lastRecordEnd - 2);
+        }
+        assertEquals(countRecords(), 199L);
+    }
+
+    private long countRecords() {
+        List<String> created = new ArrayList<>();
+        long[] statuses = new long[1];
+        OrderJournal.open(journalFile, new OrderJournal.Handler() {
+            @Override
+            public void orderCreated(JournaledOrder order) {
+                created.add(order.getOrderId());
+            }
+
+            @Override
+            public void statusChanged(String orderId, Order.OrderStatus status) {
+                statuses[0]++;
+            }
+        }).close();
+        return created.size() + statuses[0];
+    }
+
+    private long findLastRecordEnd() throws IOException {
+        // Records are written back to back; the end of the log is followed by zero bytes
+        byte[] bytes = Files.readAllBytes(journalFile);
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] == 0) {
+            end--;
+        }
+        return end;
+    }
+}
@@ -1,19 +1,26 @@
 package com.ecommerce.tests;
 
 import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderLines;
 import com.ecommerce.model.Product;
 import com.ecommerce.model.ShoppingCart;
+import com.ecommerce.service.OrderPlacementResult;
 import com.ecommerce.service.OrderService;
+import com.ecommerce.service.Page;
 import com.ecommerce.service.ProductService;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.NoSuchElementException;
 
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.assertThrows;
 
@@ -157,6 +164,44 @@ public class OrderServiceTest {
         assertEquals(product.getStockQuantity(), initialStock, "Stock should be restored");
     }
 
+    @Test(groups = {"regression"})
+    public void testOrderLines_AreCapturedAtOrderTime() {
+        Product product = productService.getProductById("P001");
+        BigDecimal price = product.getPrice();
+        cart.addItem(product, 2);
+        Order order = orderService.createOrder(cart, "123 Main St");
+
+        product.setPrice(new BigDecimal("1.00"));
+        product.setName("Renamed");
+        productService.updateProduct(product);
+
+        OrderLines lines = order.getLines();
+        assertEquals(lines.size(), 1);
+        assertEquals(lines.getProductId(0), "P001");
+        assertEquals(lines.getProductName(0), "Laptop");
+        assertEquals(lines.getCategory(0), "Electronics");
+        assertEquals(lines.getQuantity(0), 2);
+        assertEquals(lines.getUnitPrice(0).toBigDecimal(), price);
+        assertEquals(order.getTotalAmount(), price.multiply(BigDecimal.valueOf(2)));
+        assertEquals(order.getItems().get(0).getProduct().getPrice(), price);
+        assertFalse(order.getItems().get(0).getProduct() == product, "Items should not expose the catalog product");
+    }
+
+    @Test(groups = {"regression"})
+    public void testCancelOrder_RestoresStockAfterProductReplaced() {
+        Product original = productService.getProductById("P003");
+        int initialStock = original.getStockQuantity();
+        cart.addItem(original, 3);
+        Order order = orderService.createOrder(cart, "123 Main St");
+
+        Product replacement = new Product("P003", "Headphones v2", "Noise cancelling", new BigDecimal("89.99"),
+                original.getStockQuantity(), "Electronics");
+        productService.updateProduct(replacement);
+        orderService.cancelOrder(order.getOrderId());
+
+        assertEquals(replacement.getStockQuantity(), initialStock, "Stock should return to the current catalog product");
+    }
+
     @Test(groups = {"regression"})
     public void testGetOrdersByUserId_Success() {
         Product product = productService.getProductById("P001");
@@ -171,6 +216,84 @@ public class OrderServiceTest {
         assertEquals(userOrders.size(), 2, "Should have 2 orders for user");
     }
 
+    @Test(groups = {"regression"})
+    public void testGetLatestOrdersByUserId_NewestFirst() {
+        Product product = productService.getProductById("P004");
+        String[] orderIds = new String[5];
+        for (int i = 0; i < orderIds.length; i++) {
+            cart.clear();
+            cart.addItem(product, 1);
+            orderIds[i] = orderService.createOrder(cart, "123 Main St").getOrderId();
+        }
+        ShoppingCart otherCart = new ShoppingCart("user456");
+        otherCart.addItem(product, 1);
+        orderService.createOrder(otherCart, "456 Oak Ave");
+
+        List<Order> latest = orderService.getLatestOrdersByUserId("user123", 2);
+        assertEquals(latest.size(), 2);
+        assertEquals(latest.get(0).getOrderId(), orderIds[4]);
+        assertEquals(latest.get(1).getOrderId(), orderIds[3]);
+
+        List<Order> page = orderService.getRecentOrdersByUserId("user123", 3, 10);
+        assertEquals(page.size(), 2);
+        assertEquals(page.get(0).getOrderId(), orderIds[1]);
+        assertEquals(page.get(1).getOrderId(), orderIds[0]);
+
+        assertEquals(orderService.getOrderCountByUserId("user123"), 5);
+        assertEquals(orderService.getOrdersByUserId("nobody").size(), 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrders_PartialFailureDoesNotAbortBatch() {
+        Product laptop = productService.getProductById("P001");
+        Product book = productService.getProductById("P004");
+        productService.updateStock("P001", 5);
+        int bookStock = book.getStockQuantity();
+
+        List<ShoppingCart> carts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            ShoppingCart batchCart = new ShoppingCart("user" + i);
+            batchCart.addItem(laptop, 2);
+            batchCart.addItem(book, 1);
+            carts.add(batchCart);
+        }
+        carts.add(new ShoppingCart("empty"));
+
+        List<OrderPlacementResult> results = orderService.createOrders(carts, "123 Main St");
+
+        assertEquals(results.size(), 5);
+        assertTrue(results.get(0).isSuccess());
+        assertTrue(results.get(1).isSuccess());
+        assertFalse(results.get(2).isSuccess(), "Third cart should run out of laptops");
+        assertTrue(results.get(2).getFailure() instanceof IllegalStateException);
+        assertFalse(results.get(3).isSuccess());
+        assertTrue(results.get(4).getFailure() instanceof IllegalArgumentException);
+
+        assertEquals(laptop.getStockQuantity(), 1, "Unclaimed laptops should go back to stock");
+        assertEquals(book.getStockQuantity(), bookStock - 2, "Only successful carts should take books");
+        assertEquals(orderService.getOrderCount(), 2);
+        assertEquals(orderService.getOrdersByUserId("user1").get(0), results.get(1).getOrder());
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrders_AllocatesUniqueIds() {
+        Product product = productService.getProductById("P004");
+        List<ShoppingCart> carts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            ShoppingCart batchCart = new ShoppingCart("user" + i);
+            batchCart.addItem(product, 1);
+            carts.add(batchCart);
+        }
+
+        Set<String> orderIds = new HashSet<>();
+        for (OrderPlacementResult result : orderService.createOrders(carts, cart -> cart.getUserId() + " Street")) {
+            assertTrue(result.isSuccess());
+            assertEquals(result.getOrder().getShippingAddress(), result.getCart().getUserId() + " Street");
+            orderIds.add(result.getOrder().getOrderId());
+        }
+        assertEquals(orderIds.size(), 50);
+    }
+
     @Test(groups = {"regression"})
     public void testGetAllOrders_Success() {
         Product product = productService.getProductById("P001");
@@ -180,5 +303,45 @@ public class OrderServiceTest {
         List<Order> allOrders = orderService.getAllOrders();
         assertTrue(allOrders.size() > 0, "Should have at least 1 order");
     }
-}
 
+    @Test(groups = {"regression"})
+    public void testGetOrdersPage_WalksAllOrdersWithoutRepeats() {
+        Product product = productService.getProductById("P004");
+        List<String> placed = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ShoppingCart pagedCart = new ShoppingCart("user" + i);
+            pagedCart.addItem(product, 1);
+            placed.add(orderService.createOrder(pagedCart, "123 Main St").getOrderId());
+        }
+
+        List<String> seen = new ArrayList<>();
+        Page<Order> page = orderService.getOrdersPage(null, 3);
+        seen.add(page.getItems().get(0).getOrderId());
+        // An order placed mid-walk must not shift the pages
+        ShoppingCart lateCart = new ShoppingCart("late");
+        lateCart.addItem(product, 1);
+        placed.add(orderService.createOrder(lateCart, "123 Main St").getOrderId());
+        page.getItems().subList(1, page.getItems().size()).forEach(order -> seen.add(order.getOrderId()));
+        while (page.hasMore()) {
+            page = orderService.getOrdersPage(page.getNextCursor(), 3);
+            page.getItems().forEach(order -> seen.add(order.getOrderId()));
+        }
+
+        assertEquals(seen, placed);
+        assertEquals(orderService.getOrdersPage(page.getNextCursor(), 3).getItems().size(), 0);
+        assertThrows(IllegalArgumentException.class, () -> orderService.getOrdersPage("bogus", 3));
+    }
+
+    @Test(groups = {"regression"})
+    public void testStreamOrders_ParallelSeesEveryOrder() {
+        Product product = productService.getProductById("P004");
+        for (int i = 0; i < 40; i++) {
+            ShoppingCart streamCart = new ShoppingCart("user" + (i % 4));
+            streamCart.addItem(product, 1);
+            orderService.createOrder(streamCart, "123 Main St");
+        }
+
+        assertEquals(orderService.streamOrders().parallel().map(Order::getOrderId).distinct().count(), 40L);
+        assertThrows(UnsupportedOperationException.class, () -> orderService.getAllOrders().clear());
+    }
+}
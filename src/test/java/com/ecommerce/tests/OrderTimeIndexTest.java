@@ -0,0 +1,92 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.index.OrderTimeIndex;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ShoppingCart;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+import org.testng.annotations.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+
+public class OrderTimeIndexTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 11, 29, 0, 0);
+
+    @Test(groups = {"smoke", "regression"}, priority = 1)
+    public void testPositions_ReturnsHalfOpenWindowInTimeOrder() {
+        OrderTimeIndex index = new OrderTimeIndex();
+        // Added out of time order, as racing checkouts would
+        index.add(START.plusMinutes(30), 0);
+        index.add(START.plusMinutes(10), 1);
+        index.add(START.plusMinutes(20), 2);
+        index.add(START.plusMinutes(20), 3);
+        index.add(START.plusMinutes(40), 4);
+
+        assertEquals(collect(index.positions(START.plusMinutes(10), START.plusMinutes(40), false)), List.of(1, 2, 3, 0));
+        assertEquals(collect(index.positions(START.plusMinutes(10), START.plusMinutes(40), true)), List.of(0, 3, 2, 1));
+        assertEquals(collect(index.positions(START.plusMinutes(20), START.plusMinutes(20), false)), List.of());
+        assertEquals(collect(index.positions(START.plusHours(1), START.plusHours(2), false)), List.of());
+        assertThrows(IllegalArgumentException.class, () -> index.positions(null, START, false));
+    }
+
+    @Test(groups = {"regression"})
+    public void testStreamOrdersCreatedBetween_FiltersByStatusAndDirection() {
+        ProductService productService = new ProductService();
+        try (OrderService orderService = new OrderService(productService)) {
+            LocalDateTime from = LocalDateTime.now();
+            List<String> placed = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                ShoppingCart cart = new ShoppingCart("user" + i);
+                Product product = productService.getProductById("P004");
+                cart.addItem(product, 1);
+                placed.add(orderService.createOrder(cart, "123 Main St").getOrderId());
+            }
+            LocalDateTime before = LocalDateTime.now().plusNanos(1);
+            orderService.cancelOrder(placed.get(1));
+            orderService.cancelOrder(placed.get(4));
+
+            assertEquals(ids(orderService.getOrdersCreatedBetween(from, before)), placed);
+            List<String> cancelled = orderService.streamOrdersCreatedBetween(from, before,
+                    EnumSet.of(Order.OrderStatus.CANCELLED), true).map(Order::getOrderId).collect(Collectors.toList());
+            assertEquals(cancelled, List.of(placed.get(4), placed.get(1)));
+            assertFalse(orderService.streamOrdersCreatedBetween(from.minusDays(1), from, null, false).findAny().isPresent());
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testStreamOrdersCreatedBetween_ResolvesArchivedOrders() {
+        ProductService productService = new ProductService();
+        try (OrderService orderService = new OrderService(productService)) {
+            LocalDateTime from = LocalDateTime.now();
+            ShoppingCart cart = new ShoppingCart("user1");
+            cart.addItem(productService.getProductById("P004"), 1);
+            Order order = orderService.createOrder(cart, "123 Main St");
+            orderService.cancelOrder(order.getOrderId());
+            orderService.archiveCompletedOrders();
+
+            List<Order> window = orderService.getOrdersCreatedBetween(from, LocalDateTime.now().plusNanos(1));
+            assertEquals(ids(window), List.of(order.getOrderId()));
+            assertEquals(window.get(0).getStatus(), Order.OrderStatus.CANCELLED);
+        }
+    }
+
+    private static List<Integer> collect(PrimitiveIterator.OfInt positions) {
+        List<Integer> result = new ArrayList<>();
+        positions.forEachRemaining((int position) -> result.add(position));
+        return result;
+    }
+
+    private static List<String> ids(List<Order> orders) {
+        return orders.stream().map(Order::getOrderId).collect(Collectors.toList());
+    }
+}
@@ -1,6 +1,7 @@
 package com.ecommerce.tests;
 
 import com.ecommerce.model.Product;
+import com.ecommerce.service.Page;
 import com.ecommerce.service.ProductService;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -94,6 +95,27 @@ public class ProductServiceTest {
         electronics.forEach(p -> assertEquals(p.getCategory(), "Electronics"));
     }
 
+    @Test(groups = {"regression"})
+    public void testGetProductsByCategory_IgnoresCase() {
+        assertEquals(productService.getProductsByCategory("eLeCtRoNiCs").size(), 4);
+        assertEquals(productService.getProductsByCategory("Unknown").size(), 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testGetProductsByCategory_TracksCategoryChange() {
+        Product book = productService.getProductById("P004");
+        book.setCategory("Electronics");
+        productService.updateProduct(book);
+
+        assertEquals(productService.getProductsByCategory("Books").size(), 0);
+        assertEquals(productService.getProductsByCategory("Electronics").size(), 5);
+
+        productService.deleteProduct("P001");
+        List<Product> electronics = productService.getProductsByCategory("Electronics");
+        assertEquals(electronics.size(), 4);
+        assertFalse(electronics.stream().anyMatch(p -> p.getId().equals("P001")));
+    }
+
     @Test(groups = {"regression"})
     public void testSearchProducts_ByName() {
         List<Product> results = productService.searchProducts("laptop");
@@ -109,6 +131,61 @@ public class ProductServiceTest {
         assertEquals(results.size(), 0);
     }
 
+    @Test(groups = {"regression"})
+    public void testSearchProducts_SubstringInsideWord() {
+        List<Product> results = productService.searchProducts("APTO");
+        assertEquals(results.size(), 1);
+        assertEquals(results.get(0).getId(), "P001");
+    }
+
+    @Test(groups = {"regression"})
+    public void testSearchProducts_ShortKeyword() {
+        List<Product> results = productService.searchProducts("ph");
+        assertTrue(results.stream().anyMatch(p -> p.getId().equals("P002")), "Smartphone should match");
+        assertTrue(results.stream().anyMatch(p -> p.getId().equals("P003")), "Headphones should match");
+    }
+
+    @Test(groups = {"regression"})
+    public void testSearchProducts_MultiTermAnd() {
+        List<Product> results = productService.searchProducts("wireless mouse");
+        assertEquals(results.size(), 1);
+        assertEquals(results.get(0).getId(), "P005");
+
+        assertEquals(productService.searchProducts("wireless laptop").size(), 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testSearchProducts_TracksUpdatesAndDeletes() {
+        Product product = productService.getProductById("P004");
+        product.setName("Cookbook");
+        productService.updateProduct(product);
+
+        assertEquals(productService.searchProducts("cookbook").size(), 1);
+        assertEquals(productService.searchProducts("book").size(), 1);
+
+        productService.deleteProduct("P004");
+        assertEquals(productService.searchProducts("cookbook").size(), 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testSearchProducts_MatchesSubstringScan() {
+        for (int i = 0; i < 2000; i++) {
+            productService.addProduct(new Product("X" + i, "Item " + Integer.toHexString(i * 7919),
+                    "Batch " + (i % 37), new BigDecimal("1.00"), 1, "Test"));
+        }
+        for (int i = 0; i < 1500; i += 3) {
+            productService.deleteProduct("X" + i);
+        }
+
+        for (String keyword : new String[]{"a3", "1f", "batch", "tch", "0", "laptop", "zz"}) {
+            long expected = productService.getAllProducts().stream()
+                    .filter(p -> p.getName().toLowerCase().contains(keyword)
+                            || p.getDescription().toLowerCase().contains(keyword))
+                    .count();
+            assertEquals(productService.searchProducts(keyword).size(), expected, "Mismatch for: " + keyword);
+        }
+    }
+
     @Test(groups = {"smoke", "regression"}, priority = 4)
     public void testIsProductAvailable_InStock() {
         // Critical smoke test - stock availability check
@@ -128,5 +205,28 @@ public class ProductServiceTest {
         Product product = productService.getProductById("P001");
         assertEquals(product.getStockQuantity(), 20);
     }
-}
 
+    @Test(groups = {"regression"})
+    public void testGetProductsPage_SortedByIdAndStable() {
+        Page<Product> first = productService.getProductsPage(null, 2);
+        assertEquals(first.getItems().size(), 2);
+        assertEquals(first.getItems().get(0).getId(), "P001");
+        assertEquals(first.getNextCursor(), "P002");
+        assertTrue(first.hasMore());
+
+        // Products sorting before the cursor are not revisited; ones after it show up
+        productService.addProduct(new Product("P000", "Cable", "USB cable", new BigDecimal("9.99"), 5, "Electronics"));
+        productService.addProduct(new Product("P009", "Desk", "Standing desk", new BigDecimal("299.99"), 5, "Furniture"));
+        productService.deleteProduct("P003");
+
+        Page<Product> second = productService.getProductsPage(first.getNextCursor(), 10);
+        assertEquals(second.getItems().stream().map(Product::getId).toArray(), new Object[]{"P004", "P005", "P009"});
+        assertFalse(second.hasMore());
+        assertEquals(productService.getProductsPage(second.getNextCursor(), 10).getItems().size(), 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testStreamProducts_CoversCatalog() {
+        assertEquals(productService.streamProducts().parallel().count(), (long) productService.getAllProducts().size());
+    }
+}
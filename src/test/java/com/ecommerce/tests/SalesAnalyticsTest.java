@@ -0,0 +1,115 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.analytics.ProductSales;
+import com.ecommerce.analytics.SalesAnalytics;
+import com.ecommerce.model.Money;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.OrderLines;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static com.ecommerce.tests.OrderFixtures.placeOrder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class SalesAnalyticsTest {
+
+    @Test(groups = {"smoke", "regression"}, priority = 1)
+    public void testCreateAndCancelOrder_UpdatesFigures() {
+        ProductService productService = new ProductService();
+        try (OrderService orderService = new OrderService(productService)) {
+            placeOrder(orderService, productService, "user1", "P004", 3);
+            placeOrder(orderService, productService, "user2", "P001", 1);
+            Order cancelled = placeOrder(orderService, productService, "user3", "P004", 2);
+            orderService.cancelOrder(cancelled.getOrderId());
+
+            SalesAnalytics analytics = orderService.getAnalytics();
+            assertEquals(analytics.getUnitsSold("P004"), 3);
+            assertEquals(analytics.getRevenue("P004"), Money.of(new BigDecimal("119.97")));
+            assertEquals(analytics.getUnitsSold("P002"), 0);
+            Map<String, Money> byCategory = analytics.getRevenueByCategory();
+            assertEquals(byCategory.get("Books"), Money.of(new BigDecimal("119.97")));
+            assertEquals(byCategory.get("Electronics"), Money.of(new BigDecimal("999.99")));
+
+            List<String> top = analytics.getTopSellingProducts(5).stream()
+                    .map(ProductSales::getProductId).collect(Collectors.toList());
+            assertEquals(top, List.of("P004", "P001"));
+            assertEquals(analytics.getTopSellingProducts(1).size(), 1);
+            assertThrows(IllegalArgumentException.class, () -> analytics.getTopSellingProducts(-1));
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testRecordOrder_ConcurrentWritersLoseNothing() throws Exception {
+        SalesAnalytics analytics = new SalesAnalytics();
+        OrderLines lines = OrderLines.builder(Money.DEFAULT_CURRENCY, 2)
+                .add("SKU-1", "Widget", "Tools", 2, 150)
+                .add("SKU-2", "Gadget", null, 1, 999)
+                .build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 5_000; i++) {
+                        analytics.recordOrder(lines);
+                    }
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(analytics.getUnitsSold("SKU-1"), 80_000);
+        assertEquals(analytics.getUnitsSold("SKU-2"), 40_000);
+        assertEquals(analytics.getRevenue("SKU-1").getMinorUnits(), 40_000L * 300);
+        assertEquals(analytics.getRevenueByCategory().get(SalesAnalytics.UNCATEGORIZED).getMinorUnits(), 40_000L * 999);
+        List<ProductSales> top = analytics.getTopSellingProducts(10);
+        assertEquals(top.size(), 2);
+        assertEquals(top.get(0).getProductId(), "SKU-1");
+        assertEquals(top.get(0).getUnitsSold(), 80_000);
+    }
+
+    @Test(groups = {"regression"})
+    public void testRebuildAnalytics_MatchesIncrementalFigures() {
+        ProductService productService = new ProductService();
+        try (OrderService orderService = new OrderService(productService)) {
+            String[] products = {"P003", "P004", "P005"};
+            List<Order> placed = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                placed.add(placeOrder(orderService, productService, "user" + (i % 7), products[i % products.length], 1 + i % 2));
+            }
+            for (int i = 0; i < placed.size(); i += 9) {
+                orderService.cancelOrder(placed.get(i).getOrderId());
+            }
+            orderService.archiveCompletedOrders();
+
+            SalesAnalytics analytics = orderService.getAnalytics();
+            Map<String, Money> byCategory = analytics.getRevenueByCategory();
+            List<ProductSales> top = analytics.getTopSellingProducts(products.length);
+            orderService.rebuildAnalytics();
+
+            assertEquals(analytics.getRevenueByCategory(), byCategory);
+            assertEquals(toString(analytics.getTopSellingProducts(products.length)), toString(top));
+            assertTrue(analytics.getUnitsSold("P003") > 0);
+        }
+    }
+
+    private static List<String> toString(List<ProductSales> sales) {
+        return sales.stream().map(ProductSales::toString).collect(Collectors.toList());
+    }
+}
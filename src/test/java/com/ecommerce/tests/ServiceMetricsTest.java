@@ -0,0 +1,207 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.export.OrderExportFilter;
+import com.ecommerce.importer.CatalogFormat;
+import com.ecommerce.metrics.LatencyHistogram;
+import com.ecommerce.metrics.LatencySnapshot;
+import com.ecommerce.metrics.MetricsSnapshot;
+import com.ecommerce.metrics.ServiceMetrics;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ShoppingCart;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.ecommerce.tests.OrderFixtures.cartWith;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class ServiceMetricsTest {
+    private ProductService productService;
+    private OrderService orderService;
+
+    @BeforeMethod
+    public void setUp() {
+        productService = new ProductService();
+        orderService = new OrderService(productService);
+    }
+
+    @Test(groups = {"smoke", "regression"}, priority = 1)
+    public void testOrderService_CountsOrdersRejectionsAndTransitions() {
+        Order order = orderService.createOrder(cartWith(productService, "user123", "P001", 1), "123 Main St");
+        orderService.confirmOrder(order.getOrderId());
+        Order cancelled = orderService.createOrder(cartWith(productService, "user123", "P002", 1), "123 Main St");
+        orderService.cancelOrder(cancelled.getOrderId());
+        ShoppingCart soldOut = cartWith(productService, "user123", "P003", 1);
+        productService.getProductById("P003").setStockQuantity(0);
+        assertThrows(IllegalStateException.class, () -> orderService.createOrder(soldOut, "123 Main St"));
+
+        MetricsSnapshot snapshot = orderService.getMetrics().snapshot();
+        assertEquals(snapshot.getCounter(OrderService.ORDERS_CREATED), 2L);
+        assertEquals(snapshot.getCounter(OrderService.STOCK_REJECTIONS), 1L);
+        assertEquals(snapshot.getCounter(OrderService.TRANSITIONS_PREFIX + "CONFIRMED"), 1L);
+        assertEquals(snapshot.getCounter(OrderService.TRANSITIONS_PREFIX + "CANCELLED"), 1L);
+        assertEquals(snapshot.getCounter(OrderService.TRANSITIONS_PREFIX + "SHIPPED"), 0L);
+        assertEquals(snapshot.getLatency("createOrder").getCount(), 3L, "Failed checkouts are timed too");
+        assertEquals(snapshot.getLatency("cancelOrder").getCount(), 1L);
+        assertTrue(snapshot.getLatency("createOrder").getMaxNanos() > 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrders_CountsStockRejectionsPerCart() {
+        List<ShoppingCart> carts = new ArrayList<>();
+        int stock = productService.getProductById("P004").getStockQuantity();
+        carts.add(cartWith(productService, "user123", "P004", stock));
+        carts.add(cartWith(productService, "user123", "P004", 1));
+        carts.add(new ShoppingCart("empty"));
+
+        orderService.createOrders(carts, "123 Main St");
+
+        MetricsSnapshot snapshot = orderService.getMetrics().snapshot();
+        assertEquals(snapshot.getCounter(OrderService.ORDERS_CREATED), 1L);
+        assertEquals(snapshot.getCounter(OrderService.STOCK_REJECTIONS), 1L, "An empty cart is not a stock rejection");
+        assertEquals(snapshot.getLatency("createOrders").getCount(), 1L);
+    }
+
+    @Test(groups = {"regression"})
+    public void testProductService_TimesLookups() {
+        productService.searchProducts("laptop");
+        productService.searchProducts("no such thing");
+        productService.getProductsByCategory("Electronics");
+
+        MetricsSnapshot snapshot = productService.getMetrics().snapshot();
+        assertEquals(snapshot.getLatency("searchProducts").getCount(), 2L);
+        assertEquals(snapshot.getLatency("getProductsByCategory").getCount(), 1L);
+        assertEquals(snapshot.getCounter("emptySearchResults"), 1L);
+    }
+
+    @Test(groups = {"regression"})
+    public void testProductService_TimesEveryOperationOnce() {
+        productService.getProductById("P001");
+        productService.addProduct(new Product("P999", "Test", "Test", new BigDecimal("1.00"), 1, "Test"));
+        productService.updateProduct(productService.getProductById("P999"));
+        productService.updateStock("P999", 5);
+        productService.isProductAvailable("P999", 1);
+        productService.getAllProducts();
+        productService.getProductsPage(null, 2);
+        productService.deleteProduct("P999");
+        productService.importCatalog(new ByteArrayInputStream(new byte[0]), CatalogFormat.CSV);
+
+        MetricsSnapshot snapshot = productService.getMetrics().snapshot();
+        assertEquals(snapshot.getLatency("getProductById").getCount(), 2L,
+                "Lookups made by other operations are not counted as getProductById");
+        for (String operation : List.of("addProduct", "updateProduct", "updateStock", "isProductAvailable",
+                "getAllProducts", "getProductsPage", "deleteProduct", "importCatalog")) {
+            assertEquals(snapshot.getLatency(operation).getCount(), 1L, operation);
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testOrderService_TimesReadsOnce() {
+        Order order = orderService.createOrder(cartWith(productService, "user123", "P001", 1), "123 Main St");
+        orderService.getOrderById(order.getOrderId());
+        orderService.confirmOrder(order.getOrderId());
+        orderService.getOrdersByUserId("user123");
+        orderService.getLatestOrdersByUserId("user123", 5);
+        orderService.getOrderCountByUserId("user123");
+        orderService.getAllOrders();
+        orderService.getOrdersPage(null, 10);
+        orderService.exportOrders(new ByteArrayOutputStream(), OrderExportFilter.all());
+        orderService.archiveCompletedOrders();
+
+        MetricsSnapshot snapshot = orderService.getMetrics().snapshot();
+        for (String operation : List.of("getOrderById", "getOrdersByUserId", "getRecentOrdersByUserId",
+                "getOrderCountByUserId", "getAllOrders", "getOrdersPage", "exportOrders", "archiveCompletedOrders")) {
+            assertEquals(snapshot.getLatency(operation).getCount(), 1L, operation);
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testLatencyHistogram_PercentilesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(snapshot.getCount(), 100_000L);
+        assertEquals(snapshot.getMaxNanos(), 100_000_000L);
+        assertEquals(snapshot.getMeanNanos(), 50_000_500.0, 1e-6);
+        assertWithin(snapshot.getP50Nanos(), 50_000_000L);
+        assertWithin(snapshot.getP99Nanos(), 99_000_000L);
+        assertWithin(snapshot.getP999Nanos(), 99_900_000L);
+        assertEquals(snapshot.getValueAtPercentile(100), 100_000_000L);
+    }
+
+    @Test(groups = {"regression"})
+    public void testLatencyHistogram_ExtremesAndEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(histogram.snapshot().getP99Nanos(), 0L);
+
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(snapshot.getValueAtPercentile(50), 0L, "Negative durations count as zero");
+        assertEquals(snapshot.getValueAtPercentile(100), Long.MAX_VALUE);
+        assertThrows(IllegalArgumentException.class, () -> snapshot.getValueAtPercentile(101));
+    }
+
+    @Test(groups = {"regression"})
+    public void testLatencyHistogram_ConcurrentRecordingLosesNothing() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(histogram.snapshot().getCount(), 200_000L);
+    }
+
+    @Test(groups = {"regression"})
+    public void testRegisterMBean_ExposesCountersAndLatencies() throws Exception {
+        orderService.createOrder(cartWith(productService, "user123", "P001", 1), "123 Main St");
+        ServiceMetrics metrics = orderService.getMetrics();
+        ObjectName name = metrics.registerMBean("ServiceMetricsTest");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            TabularData counters = (TabularData) server.getAttribute(name, "Counters");
+            CompositeData created = counters.get(new Object[]{OrderService.ORDERS_CREATED});
+            assertEquals(created.get("value"), 1L);
+
+            TabularData latencies = (TabularData) server.getAttribute(name, "Latencies");
+            CompositeData createOrder = (CompositeData) latencies.get(new Object[]{"createOrder"}).get("value");
+            assertEquals(createOrder.get("count"), 1L);
+            assertThrows(IllegalStateException.class, () -> metrics.registerMBean("ServiceMetricsTest"));
+        } finally {
+            metrics.unregisterMBean();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+    private static void assertWithin(long actual, long expected) {
+        // Buckets split each power of two 32 ways, so values are within 1/32 of the truth
+        assertTrue(Math.abs(actual - expected) <= expected / 32, "Expected ~" + expected + " but was " + actual);
+    }
+}
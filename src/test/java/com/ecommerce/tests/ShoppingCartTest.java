@@ -129,6 +129,68 @@ public class ShoppingCartTest {
         assertEquals(cart.getTotal(), BigDecimal.ZERO, "Total should be zero");
     }
 
+    @Test(groups = {"regression"})
+    public void testRunningTotal_TracksEveryChange() {
+        cart.addItem(product1, 1);
+        cart.addItem(product2, 3);
+        cart.updateItemQuantity("P002", 1);
+        cart.addItem(product1, 1);
+        cart.removeItem("P002");
+
+        assertEquals(cart.getTotal(), new BigDecimal("1999.98"));
+        assertEquals(cart.getItemCount(), 2);
+
+        cart.removeItem("P001");
+        assertEquals(cart.getTotal(), BigDecimal.ZERO, "Total should be zero once the cart is empty");
+        assertEquals(cart.getItemCount(), 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testGetItems_ReadOnlyViewInInsertionOrder() {
+        cart.addItem(product2, 1);
+        cart.addItem(product1, 1);
+        cart.addItem(product2, 1);
+
+        assertEquals(cart.getItems().iterator().next().getProduct().getId(), "P002");
+        assertThrows(UnsupportedOperationException.class, () -> cart.getItems().clear());
+    }
+
+    @Test(groups = {"regression"})
+    public void testReprice_PicksUpPriceChange() {
+        cart.addItem(product1, 2);
+        product1.setPrice(new BigDecimal("899.99"));
+        cart.reprice();
+
+        assertEquals(cart.getTotal(), new BigDecimal("1799.98"));
+    }
+
+    @Test(groups = {"regression"})
+    public void testRunningTotal_NoDriftAfterPriceChange() {
+        cart.addItem(product1, 2);
+        cart.addItem(product2, 1);
+
+        product1.setPrice(new BigDecimal("899.99"));
+        cart.updateItemQuantity("P001", 3);
+        assertEquals(cart.getTotal(), new BigDecimal("2729.96"),
+                "The changed line should be repriced, not offset by its old total at the new price");
+
+        product2.setPrice(new BigDecimal("19.99"));
+        cart.removeItem("P002");
+        assertEquals(cart.getTotal(), new BigDecimal("2699.97"));
+    }
+
+    @Test(groups = {"regression"})
+    public void testUpdateItemQuantity_OverflowLeavesCartUnchanged() {
+        Product priceless = new Product("P999", "Priceless", "Test",
+                new BigDecimal("50000000000000000.00"), 10, "Test");
+        cart.addItem(priceless, 1);
+
+        assertThrows(ArithmeticException.class, () -> cart.updateItemQuantity("P999", 2));
+        assertEquals(cart.getItems().iterator().next().getQuantity(), 1);
+        assertEquals(cart.getTotal(), new BigDecimal("50000000000000000.00"));
+        assertEquals(cart.getItemCount(), 1);
+    }
+
     @Test(groups = {"regression"})
     public void testGetItemCount_MultipleProducts() {
         cart.addItem(product1, 2);
@@ -0,0 +1,155 @@
+package com.ecommerce.tests;
+
+import com.ecommerce.inventory.BatchStockReservation;
+import com.ecommerce.model.CartItem;
+import com.ecommerce.model.Order;
+import com.ecommerce.model.Product;
+import com.ecommerce.model.ShoppingCart;
+import com.ecommerce.service.OrderService;
+import com.ecommerce.service.ProductService;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+public class StockReservationTest {
+    private static final String[] PRODUCT_IDS = {"P001", "P002", "P003", "P004", "P005"};
+    private static final int INITIAL_STOCK = 200;
+
+    private ProductService productService;
+    private OrderService orderService;
+
+    @BeforeMethod
+    public void setUp() {
+        productService = new ProductService();
+        orderService = new OrderService(productService);
+    }
+
+    @Test(groups = {"regression"})
+    public void testCreateOrder_AllOrNothing() {
+        Product laptop = productService.getProductById("P001");
+        Product mouse = productService.getProductById("P005");
+        int laptopStock = laptop.getStockQuantity();
+
+        ShoppingCart cart = new ShoppingCart("user123");
+        cart.addItem(laptop, 2);
+        cart.addItem(mouse, 1);
+        productService.updateStock("P005", 0);
+
+        assertThrows(IllegalStateException.class, () -> orderService.createOrder(cart, "123 Main St"));
+        assertEquals(laptop.getStockQuantity(), laptopStock, "Reserved stock should be rolled back");
+        assertEquals(orderService.getOrderCount(), 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testTryReserveStock_NeverGoesNegative() {
+        Product product = new Product("P999", "Test", "Test", new BigDecimal("1.00"), 3, "Test");
+        assertTrue(product.tryReserveStock(3));
+        assertEquals(product.tryReserveStock(1), false);
+        assertEquals(product.getStockQuantity(), 0);
+    }
+
+    @Test(groups = {"regression"})
+    public void testConcurrentCheckout_NoOversell() throws InterruptedException {
+        for (String id : PRODUCT_IDS) {
+            productService.updateStock(id, INITIAL_STOCK);
+        }
+
+        int threads = 64;
+        int attemptsPerThread = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            executor.execute(() -> {
+                Random random = new Random(seed);
+                awaitQuietly(start);
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    ShoppingCart cart = new ShoppingCart("user" + seed);
+                    try {
+                        int lines = 1 + random.nextInt(3);
+                        for (int l = 0; l < lines; l++) {
+                            String id = PRODUCT_IDS[random.nextInt(PRODUCT_IDS.length)];
+                            cart.addItem(productService.getProductById(id), 1 + random.nextInt(3));
+                        }
+                        Order order = orderService.createOrder(cart, "123 Main St");
+                        if (random.nextInt(10) == 0) {
+                            orderService.cancelOrder(order.getOrderId());
+                        }
+                    } catch (IllegalStateException | IllegalArgumentException e) {
+                        // Out of stock at cart or checkout time is expected once the stock runs low
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(60, TimeUnit.SECONDS), "Checkout threads should finish");
+
+        Map<String, Integer> sold = new HashMap<>();
+        for (Order order : orderService.getAllOrders()) {
+            if (order.getStatus() == Order.OrderStatus.CANCELLED) {
+                continue;
+            }
+            for (CartItem item : order.getItems()) {
+                sold.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+            }
+        }
+        for (String id : PRODUCT_IDS) {
+            int remaining = productService.getProductById(id).getStockQuantity();
+            assertTrue(remaining >= 0, "Stock must never go negative for " + id);
+            assertEquals(remaining + sold.getOrDefault(id, 0), INITIAL_STOCK, "Units sold must match stock taken for " + id);
+        }
+    }
+
+    @Test(groups = {"regression"})
+    public void testBatchReserve_TakesOnlyAllocatedStockAndRetriesOnConflict() {
+        AtomicInteger reserveCalls = new AtomicInteger();
+        Product laptop = new Product("P999", "Laptop", "Test", new BigDecimal("500.00"), 5, "Test") {
+            @Override
+            public boolean tryReserveStock(int quantity) {
+                if (reserveCalls.getAndIncrement() == 0) {
+                    assertEquals(getStockQuantity(), 5, "Nothing should be taken before carts are allocated");
+                    // A checkout outside the batch sells three units between the read and the take
+                    assertTrue(super.tryReserveStock(3));
+                }
+                return super.tryReserveStock(quantity);
+            }
+        };
+        List<List<CartItem>> carts = List.of(
+                List.of(new CartItem(laptop, 2)),
+                List.of(new CartItem(laptop, 2)),
+                List.of(new CartItem(laptop, 4)));
+
+        BatchStockReservation reservation = BatchStockReservation.reserve(carts, id -> laptop);
+
+        assertTrue(reservation.isReserved(0));
+        assertFalse(reservation.isReserved(1), "Only two units were left after the outside sale");
+        assertTrue(reservation.getFailure(1) instanceof IllegalStateException);
+        assertFalse(reservation.isReserved(2));
+        assertEquals(laptop.getStockQuantity(), 0);
+        assertEquals(reserveCalls.get(), 2, "One conflicting take and one retry");
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}